@@ -33,10 +33,11 @@ import com.x9ware.tools.X9Task;
  * useful as functional separation and simplification of X9UtilMain, and has been retained since it
  * may add value in the future. X9UtilBatch represents a single logical work unit where all enclosed
  * tasks are performed as a group and will result in an exit status that is the maximum of all
- * performed tasks. Everything we do here runs sequentially within a single thread. We implement
- * closeable as part of try-with-resources to easily ensure that our close method is always invoked
- * by the caller. Finally, note that we purposefully have not defined any of our methods as final,
- * allowing them to be overridden by possible extension classes of the these capabilities.
+ * performed tasks. Everything we do here runs sequentially within a single thread, other than
+ * daemon mode (X9UtilDaemon) which runs requests concurrently. We implement closeable as part of
+ * try-with-resources to easily ensure that our close method is always invoked by the caller.
+ * Finally, note that we purposefully have not defined any of our methods as final, allowing them to
+ * be overridden by possible extension classes of the these capabilities.
  *
  * @author X9Ware LLC. Copyright(c) 2012-2018 X9Ware LLC. All Rights Reserved. This is proprietary
  *         software as developed and licensed by X9Ware LLC under the exclusive legal right of the
@@ -63,6 +64,8 @@ abstract public class X9UtilBatch implements AutoCloseable {
 	public static final String SWITCH_LOG_FOLDER = "log";
 	public static final String CONSOLE_ON_SWITCH = "consoleOn";
 	public static final String CONSOLE_OFF_SWITCH = "consoleOff";
+	public static final String SWITCH_DAEMON = "daemon";
+	public static final String SWITCH_BATCH_FILE = "batchFile";
 
 	/*
 	 * Sdk open and close flags.
@@ -124,9 +127,75 @@ abstract public class X9UtilBatch implements AutoCloseable {
 		if (isEnvironmentToBeOpened) {
 			open(x9commandLine);
 		}
+		if (x9commandLine.isSwitchSet(SWITCH_DAEMON) && !x9commandLine.isSwitchSet(HELP_SWITCH)) {
+			return runDaemon(x9commandLine);
+		}
+		if (x9commandLine.isSwitchSet(SWITCH_BATCH_FILE)
+				&& !x9commandLine.isSwitchSet(HELP_SWITCH)) {
+			return runBatchFile(x9commandLine);
+		}
+		if (x9commandLine.isSwitchSet(X9UtilTraining.SWITCH_TRAIN)
+				&& !x9commandLine.isSwitchSet(HELP_SWITCH)) {
+			return runTraining(x9commandLine);
+		}
 		return process(x9commandLine);
 	}
 
+	/**
+	 * Run in training mode, which exercises all utilities functions so that the launcher script
+	 * can create a class data sharing archive from the classes that have been loaded.
+	 *
+	 * @param x9commandLine
+	 *            training command line
+	 * @return x9utilities work results
+	 */
+	public X9UtilWorkResults runTraining(final X9CommandLine x9commandLine) {
+		LOGGER.info("training command line: {}",
+				StringUtils.join(x9commandLine.getCommandArgs(), ' '));
+		final X9UtilWorkUnit workUnit = new X9UtilWorkUnit(x9commandLine);
+		final File[] commandFiles = x9commandLine.getCommandFiles();
+		final X9UtilTraining x9utilTraining = new X9UtilTraining(this,
+				new File(x9commandLine.getSwitchValue(X9UtilTraining.SWITCH_TRAIN)),
+				commandFiles != null && commandFiles.length > 0 ? commandFiles[0] : null);
+		return new X9UtilWorkResults(workUnit, accumulateExitStatus(x9utilTraining.process()));
+	}
+
+	/**
+	 * Run all work units which are listed within a batch file against this open environment,
+	 * where independent work units are run concurrently subject to the thread count.
+	 *
+	 * @param x9commandLine
+	 *            batch file command line
+	 * @return x9utilities work results with the results of each enclosed work unit
+	 */
+	public X9UtilWorkResults runBatchFile(final X9CommandLine x9commandLine) {
+		LOGGER.info("batch file command line: {}",
+				StringUtils.join(x9commandLine.getCommandArgs(), ' '));
+		final X9UtilWorkUnit workUnit = new X9UtilWorkUnit(x9commandLine);
+		final X9UtilBatchFile x9utilBatchFile = new X9UtilBatchFile(this,
+				new File(x9commandLine.getSwitchValue(SWITCH_BATCH_FILE)),
+				workUnit.getThreadCount());
+		final int status = x9utilBatchFile.process();
+		return new X9UtilWorkResults(workUnit, accumulateExitStatus(status),
+				x9utilBatchFile.getUnitResults());
+	}
+
+	/**
+	 * Run as a daemon, where the batch environment remains open and command lines are accepted
+	 * from a local socket and/or a spool folder until a shutdown request is received.
+	 *
+	 * @param x9commandLine
+	 *            daemon command line
+	 * @return x9utilities work results
+	 */
+	public X9UtilWorkResults runDaemon(final X9CommandLine x9commandLine) {
+		LOGGER.info("daemon command line: {}",
+				StringUtils.join(x9commandLine.getCommandArgs(), ' '));
+		final X9UtilWorkUnit workUnit = new X9UtilWorkUnit(x9commandLine);
+		final X9UtilDaemon x9utilDaemon = new X9UtilDaemon(this, workUnit);
+		return new X9UtilWorkResults(workUnit, accumulateExitStatus(x9utilDaemon.run()));
+	}
+
 	/**
 	 * Open this batch environment.
 	 *
@@ -270,11 +339,12 @@ abstract public class X9UtilBatch implements AutoCloseable {
 	}
 
 	/**
-	 * Load the required startup files.
+	 * Load the required startup files. The xml configuration files are loaded on first use (when
+	 * the first sdkBase is allocated) and are then shared by all subsequent work units.
 	 */
 	public void initLoadStartupFiles() {
 		X9SdkRoot.logStartupEnvironment(programName);
-		X9SdkRoot.loadXmlConfigurationFiles();
+		X9UtilConfigLoader.deferLoad();
 		X9OptionsManager.logStartupFolders();
 	}
 
@@ -296,6 +366,35 @@ abstract public class X9UtilBatch implements AutoCloseable {
 	 * @return x9utilities work results
 	 */
 	public X9UtilWorkResults process(final X9CommandLine x9commandLine) {
+		/*
+		 * Execute the command line and accumulate its exit status.
+		 */
+		final X9UtilWorkResults workResults = execute(x9commandLine);
+		final int status = workResults.getExitStatus();
+		final int accumulatedStatus = accumulateExitStatus(status);
+		if (workResults.getWorkUnit().utilFunctionName != null) {
+			LOGGER.info("function({}) status({}) accumulated exitStatus({})",
+					workResults.getWorkUnit().utilFunctionName.toLowerCase(), status,
+					accumulatedStatus);
+		}
+
+		/*
+		 * Return our work results with the accumulated exit status.
+		 */
+		return new X9UtilWorkResults(workResults.getWorkUnit(), accumulatedStatus);
+	}
+
+	/**
+	 * Execute a single command line and return the exit status for that command alone, without
+	 * regard to the exit status that has been accumulated by earlier commands. This method does not
+	 * modify the state of this batch environment and can thus be invoked concurrently, which allows
+	 * independent work units to be run in parallel against a single environment open.
+	 *
+	 * @param x9commandLine
+	 *            current command line
+	 * @return x9utilities work results for this command
+	 */
+	public X9UtilWorkResults execute(final X9CommandLine x9commandLine) {
 		/*
 		 * Log the command line.
 		 */
@@ -308,6 +407,7 @@ abstract public class X9UtilBatch implements AutoCloseable {
 		 */
 		final long startTime = System.currentTimeMillis();
 		final X9UtilWorkUnit workUnit = new X9UtilWorkUnit(x9commandLine);
+		int status = EXIT_STATUS_ZERO;
 		try {
 			if (x9commandLine.isSwitchSet(HELP_SWITCH)) {
 				/*
@@ -323,50 +423,58 @@ abstract public class X9UtilBatch implements AutoCloseable {
 					/*
 					 * Invoke the requested function.
 					 */
-					final int status = runBatchCommand(workUnit);
-
-					/*
-					 * Accumulate the highest encountered exit status but do not allow that to
-					 * replace any negative exit status values that have been set earlier.
-					 */
-					if (exitStatus >= 0) {
-						if (status < 0) {
-							/*
-							 * Assign this new exit status when it is negative.
-							 */
-							exitStatus = status;
-						} else {
-							/*
-							 * Otherwise assign the highest exit status that we have encountered.
-							 */
-							exitStatus = Math.max(status, exitStatus);
-						}
+					try (final X9UtilMetrics metrics = workUnit.getMetrics()) {
+						metrics.start();
+						status = runBatchCommand(workUnit);
 					}
 
 					/*
-					 * Log the completion, elapsed time, and highest exit status encountered.
+					 * Log the completion, elapsed time, and exit status.
 					 */
-					LOGGER.info(
-							"function({}) completed elapsed({}) status({}) "
-									+ "accumulated exitStatus({})",
+					LOGGER.info("function({}) completed elapsed({}) status({})",
 							workUnit.utilFunctionName.toLowerCase(),
-							X9Task.formatElapsedSeconds(startTime), status, exitStatus);
+							X9Task.formatElapsedSeconds(startTime), status);
 				} else {
-					exitStatus = EXIT_STATUS_INVALID_FUNCTION;
+					status = EXIT_STATUS_INVALID_FUNCTION;
 				}
 			}
 		} catch (final FileNotFoundException ex) {
 			LOGGER.error("fileNotFoundException exception", ex);
-			exitStatus = EXIT_STATUS_FILE_NOT_FOUND;
+			status = EXIT_STATUS_FILE_NOT_FOUND;
 		} catch (final Throwable t) {
 			LOGGER.error("exception", t);
-			exitStatus = EXIT_STATUS_ABORTED;
+			status = EXIT_STATUS_ABORTED;
 		}
 
 		/*
 		 * Return our work results.
 		 */
-		return new X9UtilWorkResults(workUnit, exitStatus);
+		return new X9UtilWorkResults(workUnit, status);
+	}
+
+	/**
+	 * Accumulate the highest encountered exit status but do not allow that to replace any negative
+	 * exit status values that have been set earlier.
+	 *
+	 * @param status
+	 *            exit status for the most recent command
+	 * @return accumulated exit status
+	 */
+	protected synchronized int accumulateExitStatus(final int status) {
+		if (exitStatus >= 0) {
+			if (status < 0) {
+				/*
+				 * Assign this new exit status when it is negative.
+				 */
+				exitStatus = status;
+			} else {
+				/*
+				 * Otherwise assign the highest exit status that we have encountered.
+				 */
+				exitStatus = Math.max(status, exitStatus);
+			}
+		}
+		return exitStatus;
 	}
 
 	/**
@@ -376,6 +484,7 @@ abstract public class X9UtilBatch implements AutoCloseable {
 	public void close() {
 		if (isEnvironmentToBeClosed) {
 			X9SdkRoot.shutdown();
+			X9UtilConfigLoader.reset();
 			LOGGER.info("{} exitStatus({})", programName, exitStatus);
 			X9JdkLogger.closeLog();
 		}
@@ -388,7 +497,7 @@ abstract public class X9UtilBatch implements AutoCloseable {
 	 *            task exit status
 	 * @return updated exit status
 	 */
-	protected int updateExitStatus(final int taskStatus) {
+	protected synchronized int updateExitStatus(final int taskStatus) {
 		exitStatus = Math.max(exitStatus, taskStatus);
 		return exitStatus;
 	}
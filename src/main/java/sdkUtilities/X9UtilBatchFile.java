@@ -0,0 +1,384 @@
+package sdkUtilities;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.x9ware.actions.X9Exception;
+import com.x9ware.tools.X9CommandLine;
+import com.x9ware.tools.X9FileUtils;
+import com.x9ware.tools.X9Task;
+
+/**
+ * X9UtilBatchFile executes a series of work units which are listed within a batch file, where all
+ * work units are run against a single batch environment open. Each non-comment line of the batch
+ * file defines one work unit in the format "name;dependencies;commandLine", where dependencies is
+ * a comma separated list of work unit names that must complete before this work unit can start
+ * (which can be empty) and the command line arguments are separated by the pipe character. For
+ * example, "merge;import1,import2;-merge|inputFolder|output.x9" will run the merge once both
+ * imports have completed. Work units whose dependencies have been satisfied are run concurrently
+ * on a bounded pool of threads. A work unit is skipped (and posted as aborted) when any of its
+ * dependencies has completed with a negative exit status. Work results are retained for each work
+ * unit in batch file sequence, along with a combined exit status across all work units.
+ *
+ * @author X9Ware LLC. Copyright(c) 2012-2018 X9Ware LLC. All Rights Reserved. This is proprietary
+ *         software as developed and licensed by X9Ware LLC under the exclusive legal right of the
+ *         copyright holder. All licensees are provided the right to use the software only under
+ *         certain conditions, and are specifically restricted from other specific uses including
+ *         modification, sharing, reuse, redistribution, or reverse engineering.
+ */
+public final class X9UtilBatchFile {
+
+	/*
+	 * Private.
+	 */
+	private final X9UtilBatch x9utilBatch;
+	private final File batchFile;
+	private final int maximumThreadCount;
+	private final Map<String, BatchUnit> unitMap = new LinkedHashMap<>();
+	private final Map<String, X9UtilWorkResults> unitResults = new LinkedHashMap<>();
+	private int exitStatus = X9UtilBatch.EXIT_STATUS_ZERO;
+
+	/*
+	 * Constants.
+	 */
+	private static final String COMMENT_PREFIX = "#";
+	private static final char FIELD_SEPARATOR = ';';
+	private static final char DEPENDENCY_SEPARATOR = ',';
+	private static final int FIELD_COUNT = 3;
+
+	/**
+	 * Logger instance.
+	 */
+	private static final Logger LOGGER = LoggerFactory.getLogger(X9UtilBatchFile.class);
+
+	/**
+	 * X9UtilBatchFile Constructor.
+	 *
+	 * @param x9util_Batch
+	 *            batch environment which has already been opened
+	 * @param batch_File
+	 *            batch file which lists the work units
+	 * @param maximumThread_Count
+	 *            maximum number of concurrent work units
+	 */
+	public X9UtilBatchFile(final X9UtilBatch x9util_Batch, final File batch_File,
+			final int maximumThread_Count) {
+		x9utilBatch = x9util_Batch;
+		batchFile = batch_File;
+		maximumThreadCount = Math.max(1, maximumThread_Count);
+	}
+
+	/**
+	 * Execute all work units within the batch file.
+	 *
+	 * @return combined exit status
+	 */
+	public int process() {
+		/*
+		 * Load the batch file and ensure that the dependencies can be satisfied.
+		 */
+		final long startTime = System.currentTimeMillis();
+		loadBatchFile();
+		verifyDependencies();
+
+		/*
+		 * Run all work units as their dependencies are satisfied.
+		 */
+		final int threadCount = Math.min(maximumThreadCount, unitMap.size());
+		LOGGER.info("batch file started batchFile({}) unitCount({}) threadCount({})", batchFile,
+				unitMap.size(), threadCount);
+		final ExecutorService executorService = Executors.newFixedThreadPool(threadCount);
+		try {
+			runUnits(new ExecutorCompletionService<>(executorService));
+		} catch (final InterruptedException ex) {
+			Thread.currentThread().interrupt();
+			throw X9Exception.abort(ex);
+		} catch (final Exception ex) {
+			throw X9Exception.abort(ex);
+		} finally {
+			executorService.shutdownNow();
+		}
+
+		/*
+		 * Post results for all work units in batch file sequence.
+		 */
+		for (final BatchUnit batchUnit : unitMap.values()) {
+			unitResults.put(batchUnit.name, batchUnit.workResults);
+			LOGGER.info("unit({}) exitStatus({})", batchUnit.name,
+					batchUnit.workResults.getExitStatus());
+		}
+
+		/*
+		 * Log completion and return the combined exit status.
+		 */
+		LOGGER.info("batch file completed elapsed({}) exitStatus({})",
+				X9Task.formatElapsedSeconds(startTime), exitStatus);
+		return exitStatus;
+	}
+
+	/**
+	 * Get the work results for each work unit, keyed by work unit name in batch file sequence.
+	 *
+	 * @return work results by work unit name
+	 */
+	public Map<String, X9UtilWorkResults> getUnitResults() {
+		return Collections.unmodifiableMap(unitResults);
+	}
+
+	/**
+	 * Load all work units from the batch file.
+	 */
+	private void loadBatchFile() {
+		/*
+		 * Read all lines from the batch file.
+		 */
+		if (!X9FileUtils.existsWithPathTracing(batchFile)) {
+			throw X9Exception.abort("batch file notFound({})", batchFile);
+		}
+		final List<String> lines;
+		try {
+			lines = Files.readAllLines(batchFile.toPath(), StandardCharsets.UTF_8);
+		} catch (final Exception ex) {
+			throw X9Exception.abort(ex);
+		}
+
+		/*
+		 * Create a work unit for each non-comment line.
+		 */
+		int lineNumber = 0;
+		for (final String line : lines) {
+			lineNumber++;
+			if (StringUtils.isBlank(line) || StringUtils.startsWith(line.trim(), COMMENT_PREFIX)) {
+				continue;
+			}
+
+			final String[] fields = StringUtils.splitPreserveAllTokens(line, FIELD_SEPARATOR);
+			if (fields.length != FIELD_COUNT || StringUtils.isBlank(fields[0])
+					|| StringUtils.isBlank(fields[2])) {
+				throw X9Exception.abort("batch file line({}) invalid({})", lineNumber, line);
+			}
+
+			final String name = fields[0].trim();
+			if (unitMap.containsKey(name)) {
+				throw X9Exception.abort("batch file line({}) duplicate unit({})", lineNumber, name);
+			}
+
+			final List<String> dependencies = new ArrayList<>();
+			for (final String dependency : StringUtils.split(fields[1], DEPENDENCY_SEPARATOR)) {
+				if (StringUtils.isNotBlank(dependency)) {
+					dependencies.add(dependency.trim());
+				}
+			}
+
+			final String[] args = StringUtils.split(fields[2].trim(),
+					X9UtilWorkUnit.COMMAND_LINE_ARGS_SEPARATION_CHARACTER);
+			unitMap.put(name, new BatchUnit(name, dependencies, args));
+		}
+
+		if (unitMap.isEmpty()) {
+			throw X9Exception.abort("batch file has no work units({})", batchFile);
+		}
+	}
+
+	/**
+	 * Link each work unit to the work units which depend on it, and ensure that all dependencies
+	 * exist and do not form a cycle.
+	 */
+	private void verifyDependencies() {
+		/*
+		 * Link dependencies and abort when a dependency is undefined.
+		 */
+		for (final BatchUnit batchUnit : unitMap.values()) {
+			for (final String dependency : batchUnit.dependencies) {
+				final BatchUnit prerequisite = unitMap.get(dependency);
+				if (prerequisite == null) {
+					throw X9Exception.abort("unit({}) dependency undefined({})", batchUnit.name,
+							dependency);
+				}
+				prerequisite.dependents.add(batchUnit);
+			}
+			batchUnit.remainingDependencies = batchUnit.dependencies.size();
+		}
+
+		/*
+		 * Ensure all work units can be reached in dependency sequence.
+		 */
+		final Map<BatchUnit, Integer> remaining = new LinkedHashMap<>();
+		final Deque<BatchUnit> readyQueue = new ArrayDeque<>();
+		for (final BatchUnit batchUnit : unitMap.values()) {
+			remaining.put(batchUnit, batchUnit.remainingDependencies);
+			if (batchUnit.remainingDependencies == 0) {
+				readyQueue.add(batchUnit);
+			}
+		}
+		int reachedCount = 0;
+		while (!readyQueue.isEmpty()) {
+			reachedCount++;
+			for (final BatchUnit dependent : readyQueue.poll().dependents) {
+				if (remaining.merge(dependent, -1, Integer::sum) == 0) {
+					readyQueue.add(dependent);
+				}
+			}
+		}
+		if (reachedCount != unitMap.size()) {
+			throw X9Exception.abort("batch file has circular dependencies({})", batchFile);
+		}
+	}
+
+	/**
+	 * Run all work units, where each work unit is submitted once its dependencies have completed.
+	 *
+	 * @param completionService
+	 *            completion service for the bounded thread pool
+	 * @throws Exception
+	 */
+	private void runUnits(final CompletionService<BatchUnit> completionService)
+			throws Exception {
+		/*
+		 * Queue all work units which have no dependencies.
+		 */
+		final Deque<BatchUnit> readyQueue = new ArrayDeque<>();
+		for (final BatchUnit batchUnit : unitMap.values()) {
+			if (batchUnit.remainingDependencies == 0) {
+				readyQueue.add(batchUnit);
+			}
+		}
+
+		/*
+		 * Submit ready work units and release their dependents as each one completes.
+		 */
+		int completedCount = 0;
+		int activeCount = 0;
+		while (completedCount < unitMap.size()) {
+			while (!readyQueue.isEmpty()) {
+				final BatchUnit batchUnit = readyQueue.poll();
+				if (batchUnit.isSkipped) {
+					batchUnit.workResults = new X9UtilWorkResults(null,
+							X9UtilBatch.EXIT_STATUS_ABORTED);
+					LOGGER.warn("unit({}) skipped since a dependency has aborted", batchUnit.name);
+					completedCount++;
+					releaseDependents(batchUnit, readyQueue);
+				} else {
+					completionService.submit(() -> runUnit(batchUnit));
+					activeCount++;
+				}
+			}
+
+			if (activeCount > 0) {
+				final BatchUnit batchUnit = completionService.take().get();
+				activeCount--;
+				completedCount++;
+				releaseDependents(batchUnit, readyQueue);
+			} else if (readyQueue.isEmpty() && completedCount < unitMap.size()) {
+				throw X9Exception.abort("batch file has unreachable work units({})", batchFile);
+			}
+		}
+	}
+
+	/**
+	 * Run a single work unit against the shared batch environment.
+	 *
+	 * @param batchUnit
+	 *            work unit to be run
+	 * @return completed work unit
+	 */
+	private BatchUnit runUnit(final BatchUnit batchUnit) {
+		final Thread thread = Thread.currentThread();
+		final String threadName = thread.getName();
+		thread.setName("unit-" + batchUnit.name);
+		try {
+			LOGGER.info("unit({}) started", batchUnit.name);
+			batchUnit.workResults = x9utilBatch.execute(new X9CommandLine(batchUnit.args));
+		} catch (final Throwable t) {
+			LOGGER.error("unit({}) exception", batchUnit.name, t);
+			batchUnit.workResults = new X9UtilWorkResults(null, X9UtilBatch.EXIT_STATUS_ABORTED);
+		} finally {
+			thread.setName(threadName);
+		}
+		return batchUnit;
+	}
+
+	/**
+	 * Accumulate the exit status of a completed work unit and release each dependent work unit
+	 * whose dependencies have now all completed. Dependents are marked to be skipped when this
+	 * work unit has completed with a negative exit status.
+	 *
+	 * @param batchUnit
+	 *            completed work unit
+	 * @param readyQueue
+	 *            queue of work units which are ready to be run
+	 */
+	private void releaseDependents(final BatchUnit batchUnit, final Deque<BatchUnit> readyQueue) {
+		/*
+		 * Accumulate the highest exit status but retain any negative exit status.
+		 */
+		final int status = batchUnit.workResults.getExitStatus();
+		if (exitStatus >= 0) {
+			exitStatus = status < 0 ? status : Math.max(status, exitStatus);
+		}
+
+		/*
+		 * Release dependents.
+		 */
+		for (final BatchUnit dependent : batchUnit.dependents) {
+			if (status < 0) {
+				dependent.isSkipped = true;
+			}
+			if (--dependent.remainingDependencies == 0) {
+				readyQueue.add(dependent);
+			}
+		}
+	}
+
+	/**
+	 * BatchUnit defines a single work unit within the batch file.
+	 */
+	private static final class BatchUnit {
+
+		/*
+		 * Private.
+		 */
+		private final String name;
+		private final List<String> dependencies;
+		private final String[] args;
+		private final List<BatchUnit> dependents = new ArrayList<>();
+		private int remainingDependencies;
+		private boolean isSkipped;
+		private volatile X9UtilWorkResults workResults;
+
+		/**
+		 * BatchUnit Constructor.
+		 *
+		 * @param unit_Name
+		 *            work unit name
+		 * @param unit_Dependencies
+		 *            names of the work units which must complete before this one
+		 * @param command_Args
+		 *            command line arguments
+		 */
+		private BatchUnit(final String unit_Name, final List<String> unit_Dependencies,
+				final String[] command_Args) {
+			name = unit_Name;
+			dependencies = unit_Dependencies;
+			args = command_Args;
+		}
+
+	}
+
+}
@@ -1,9 +1,14 @@
 package sdkUtilities;
 
 import java.io.File;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Consumer;
 
@@ -22,17 +27,38 @@ import com.x9ware.core.X9TotalsXml;
 import com.x9ware.elements.X9C;
 import com.x9ware.fields.X9Field;
 import com.x9ware.fields.X9FieldManager;
+import com.x9ware.options.X9WorkFolder;
+import com.x9ware.tools.X9CountDownLatch;
+import com.x9ware.tools.X9CsvLine;
+import com.x9ware.tools.X9CsvReader;
 import com.x9ware.tools.X9CsvWriter;
+import com.x9ware.tools.X9File;
+import com.x9ware.tools.X9FileIO;
 import com.x9ware.tools.X9FileUtils;
+import com.x9ware.tools.X9Folder;
+import com.x9ware.tools.X9Numeric;
 import com.x9ware.tools.X9TallyMap;
 import com.x9ware.tools.X9TempFile;
 import com.x9ware.tools.X9TextWriter;
+import com.x9ware.tools.X9Thread;
 import com.x9ware.validate.X9TrailerManager;
 import com.x9ware.validate.X9TrailerManager937;
 
 /**
  * X9UtilCompare is part of our utilities package which compares the contents of two x9.37 files. An
- * output differences file and results csv are created which lists the differences found.
+ * output differences file and results csv are created which lists the differences found. When fast
+ * compare (-fast) is selected, bundle level digests are first computed for both files concurrently.
+ * When all digests are equal, the files are identical and the field level compare is bypassed.
+ * Otherwise the field level compare is run against reduced copies of both files which contain only
+ * those bundles whose digests are different. The reduced files are retained, and the results csv
+ * identifies them and maps their record numbers back to the input files. When item compare (-items)
+ * is selected, items are instead matched by their item keys, which allows inserted, removed, and
+ * reordered items to be identified without positional differences. Differences are streamed to an
+ * intermediate file as they are encountered (optionally limited by -maxdiff) and are then copied to
+ * the results csv following the field tally, which keeps memory usage independent of the number of
+ * differences. When batch compare (-batch) is selected, a list of file pairs is compared
+ * concurrently from either a csv manifest or two mirrored folders, with a consolidated results file
+ * written for all pairs.
  *
  * @author X9Ware LLC. Copyright(c) 2012-2018 X9Ware LLC. All Rights Reserved. This is proprietary
  *         software as developed and licensed by X9Ware LLC under the exclusive legal right of the
@@ -61,11 +87,20 @@ public final class X9UtilCompare {
 	private File outputFile;
 	private File resultsFile;
 	private X9TrailerManager x9trailerManager;
+	private X9UtilCompareEntry compareEntry;
+	private int differenceLimit;
+	private int textLinesWritten;
+	private int textLinesSuppressed;
+	private X9UtilCompareDigest reducedDigest1;
+	private X9UtilCompareDigest reducedDigest2;
 
 	/*
 	 * Constants.
 	 */
 	private static final int EXIT_STATUS_DIFFERENCES = 1;
+	private static final int DIGEST_THREAD_COUNT = 2;
+	private static final String TEXT_LINES_PREFIX = "compareTextLines_";
+	private static final String TEXT_LINES_SUFFIX = ".csv";
 
 	/**
 	 * Logger instance.
@@ -78,8 +113,26 @@ public final class X9UtilCompare {
 	 * @param work_Unit current work unit
 	 */
 	public X9UtilCompare(final X9UtilWorkUnit work_Unit) {
+		/*
+		 * Batch compare does not need an sdkBase here, since each pair is compared by a worker
+		 * using its own sdkBase.
+		 */
+		this(work_Unit,
+				work_Unit.isCommandSwitchSet(X9UtilWorkUnit.SWITCH_BATCH_COMPARE) ? null
+						: work_Unit.getNewSdkBase());
+	}
+
+	/**
+	 * X9UtilCompare Constructor for a single pair within a batch compare.
+	 *
+	 * @param work_Unit
+	 *            current work unit
+	 * @param sdk_Base
+	 *            sdkBase to be used for this pair
+	 */
+	public X9UtilCompare(final X9UtilWorkUnit work_Unit, final X9SdkBase sdk_Base) {
 		workUnit = work_Unit;
-		sdkBase = workUnit.getNewSdkBase();
+		sdkBase = sdk_Base;
 	}
 
 	/**
@@ -88,6 +141,13 @@ public final class X9UtilCompare {
 	 * @return exit status
 	 */
 	public int process() {
+		/*
+		 * Compare a list of file pairs when batch compare is selected.
+		 */
+		if (workUnit.isCommandSwitchSet(X9UtilWorkUnit.SWITCH_BATCH_COMPARE)) {
+			return processBatch();
+		}
+
 		/*
 		 * Get work unit files.
 		 */
@@ -96,17 +156,58 @@ public final class X9UtilCompare {
 		outputFile = workUnit.outputFile;
 		resultsFile = workUnit.resultsFile;
 
+		/*
+		 * Compare the files.
+		 */
+		return compareFiles();
+	}
+
+	/**
+	 * Compare a single pair of files as part of a batch compare, with the exit status and field
+	 * tally posted to the provided entry. This method is invoked from a worker thread and uses the
+	 * sdkBase for this instance.
+	 *
+	 * @param compare_Entry
+	 *            compare entry for the pair of files to be compared
+	 */
+	public void compareToEntry(final X9UtilCompareEntry compare_Entry) {
+		compareEntry = compare_Entry;
+		inputFile1 = compareEntry.getInputFile1();
+		inputFile2 = compareEntry.getInputFile2();
+		outputFile = compareEntry.getOutputFile();
+		resultsFile = compareEntry.getResultsFile();
+		compareEntry.setExitStatus(compareFiles());
+	}
+
+	/**
+	 * Compare the currently assigned files and summarize the differences found.
+	 *
+	 * @return exit status
+	 */
+	private int compareFiles() {
 		/*
 		 * Set the configuration name when provided; we otherwise default to file header.
 		 */
 		sdk = X9SdkFactory.getSdk(sdkBase);
-		workUnit.autoBindToCommandLineConfiguration(sdkBase);
+		workUnit.autoBindToCommandLineConfiguration(sdkBase, inputFile1);
 
 		/*
 		 * Allocate helper instances.
 		 */
 		x9trailerManager = new X9TrailerManager937(sdkBase);
 
+		/*
+		 * Get the optional limit on the number of difference lines written to the results.
+		 */
+		if (workUnit.isCommandSwitchSet(X9UtilWorkUnit.SWITCH_DIFFERENCE_LIMIT)) {
+			final String limit = workUnit
+					.getCommandSwitchValue(X9UtilWorkUnit.SWITCH_DIFFERENCE_LIMIT);
+			differenceLimit = X9Numeric.toInt(limit);
+			if (differenceLimit <= 0) {
+				throw X9Exception.abort("differenceLimit({}) invalid", limit);
+			}
+		}
+
 		/*
 		 * Compare files.
 		 */
@@ -143,9 +244,12 @@ public final class X9UtilCompare {
 				x9totalsXml.setTotals(inputFile1, x9trailerManager);
 
 				/*
-				 * Write summary totals when requested by command line switches.
+				 * Write summary totals when requested by command line switches, which is not
+				 * applicable to the individual pairs within a batch compare.
 				 */
-				workUnit.writeSummaryTotals(x9totalsXml);
+				if (compareEntry == null) {
+					workUnit.writeSummaryTotals(x9totalsXml);
+				}
 				LOGGER.info("compare {}", x9totalsXml.getTotalsString());
 			}
 		}
@@ -156,6 +260,216 @@ public final class X9UtilCompare {
 		return exitStatus;
 	}
 
+	/**
+	 * Compare a list of file pairs concurrently. Pairs are either read from a csv manifest (where
+	 * each line contains two file names) or are built from two mirrored folders (where each file in
+	 * the first folder is paired with the file having the same relative name in the second folder).
+	 * Each pair is written to its own differences and results files, and a consolidated results
+	 * file is then written with the exit status of each pair and an aggregated field tally.
+	 *
+	 * @return exit status
+	 */
+	private int processBatch() {
+		/*
+		 * Allocate the folder which will contain the individual pair results.
+		 */
+		final String folder = X9FileUtils.getFolderName(workUnit.resultsFile);
+		final String baseName = FilenameUtils.getBaseName(workUnit.resultsFile.toString());
+		final File pairsFolder = new File(folder, baseName + "_PAIRS");
+		X9Folder.createFolderWhenNeeded(pairsFolder);
+
+		/*
+		 * Build the list of file pairs.
+		 */
+		final List<X9UtilCompareEntry> entryList = workUnit.inputFile.isDirectory()
+				? buildPairsFromFolders(pairsFolder)
+				: buildPairsFromManifest(pairsFolder);
+
+		/*
+		 * Compare all pairs using our task monitor.
+		 */
+		final int maximumThreadCount = workUnit.getThreadCount();
+		LOGGER.info("batch compare started; pairCount({}) maximumThreadCount({})",
+				entryList.size(), maximumThreadCount);
+		X9UtilMultiFileMonitor.runAllEntries(workUnit, entryList, maximumThreadCount,
+				CompareTask::new);
+
+		/*
+		 * Write the consolidated results.
+		 */
+		return writeBatchResults(entryList);
+	}
+
+	/**
+	 * Build the list of file pairs from a csv manifest.
+	 *
+	 * @param pairsFolder
+	 *            folder for individual pair results
+	 * @return list of compare entries
+	 */
+	private List<X9UtilCompareEntry> buildPairsFromManifest(final File pairsFolder) {
+		final List<X9UtilCompareEntry> entryList = new ArrayList<>();
+		final String manifestFolder = X9FileUtils.getFolderName(workUnit.inputFile);
+		try (final X9CsvReader csvReader = new X9CsvReader(workUnit.inputFile)) {
+			X9CsvLine csvLine;
+			while ((csvLine = csvReader.getNextCsvLine()) != null) {
+				if (csvLine.isPopulated()) {
+					final String[] record = csvLine.getCsvArray();
+					if (record.length < 2 || StringUtils.isAnyBlank(record[0], record[1])) {
+						throw X9Exception.abort(
+								"invalid manifest lineNumber({}); format is file1,file2",
+								csvLine.getLineNumber());
+					}
+					entryList.add(createCompareEntry(entryList.size() + 1,
+							resolveManifestFile(manifestFolder, record[0]),
+							resolveManifestFile(manifestFolder, record[1]), pairsFolder));
+				}
+			}
+		} catch (final Exception ex) {
+			throw X9Exception.abort(ex);
+		}
+		return entryList;
+	}
+
+	/**
+	 * Resolve a manifest file name, where relative names are relative to the manifest folder.
+	 *
+	 * @param manifestFolder
+	 *            manifest folder name
+	 * @param fileName
+	 *            file name from the manifest
+	 * @return resolved file
+	 */
+	private File resolveManifestFile(final String manifestFolder, final String fileName) {
+		final File file = new File(fileName.trim());
+		return file.isAbsolute() ? file : new File(manifestFolder, fileName.trim());
+	}
+
+	/**
+	 * Build the list of file pairs from two mirrored folders.
+	 *
+	 * @param pairsFolder
+	 *            folder for individual pair results
+	 * @return list of compare entries
+	 */
+	private List<X9UtilCompareEntry> buildPairsFromFolders(final File pairsFolder) {
+		final File folder1 = workUnit.inputFile;
+		final File folder2 = workUnit.secondaryFile;
+		if (folder2 == null || !folder2.isDirectory()) {
+			throw X9Exception.abort("secondary folder not a directory({})", folder2);
+		}
+		final String[] inputFileExtensions = workUnit.validateInputFileExtensions(
+				workUnit.getCommandSwitchValue(X9UtilWorkUnit.SWITCH_EXTENSION_INPUT));
+		final List<X9File> fileList = X9FileUtils.createInputFileList(folder1,
+				X9FileUtils.SUBFOLDERS_INCLUDED, inputFileExtensions,
+				workUnit.getFileSkipInterval(), X9FileUtils.LOG_SELECTED_FILES_ENABLED);
+		final List<X9UtilCompareEntry> entryList = new ArrayList<>(fileList.size());
+		final Path basePath = folder1.toPath();
+		for (final File file1 : fileList) {
+			final File file2 = new File(folder2, basePath.relativize(file1.toPath()).toString());
+			entryList.add(createCompareEntry(entryList.size() + 1, file1, file2, pairsFolder));
+		}
+		return entryList;
+	}
+
+	/**
+	 * Create a new compare entry with output and results files assigned within the pairs folder.
+	 *
+	 * @param pairNumber
+	 *            pair number relative to one
+	 * @param file1
+	 *            first input file
+	 * @param file2
+	 *            second input file
+	 * @param pairsFolder
+	 *            folder for individual pair results
+	 * @return compare entry
+	 */
+	private X9UtilCompareEntry createCompareEntry(final int pairNumber, final File file1,
+			final File file2, final File pairsFolder) {
+		final String pairName = StringUtils.leftPad(Integer.toString(pairNumber), 6, '0') + "_"
+				+ FilenameUtils.getBaseName(file1.toString());
+		return new X9UtilCompareEntry(pairNumber, file1, file2,
+				new File(pairsFolder, pairName + "." + X9C.TXT),
+				new File(pairsFolder, pairName + "." + X9C.CSV));
+	}
+
+	/**
+	 * Write the consolidated batch results, which contains the exit status for each pair, the
+	 * aggregated field tally across all pairs, and overall summary counts.
+	 *
+	 * @param entryList
+	 *            list of compared entries in pair sequence
+	 * @return overall exit status
+	 */
+	private int writeBatchResults(final List<X9UtilCompareEntry> entryList) {
+		int exitStatus = X9UtilBatch.EXIT_STATUS_ZERO;
+		int pairsEqual = 0;
+		int pairsDifferent = 0;
+		int pairsAborted = 0;
+		final Map<String, Integer> aggregatedTally = new TreeMap<>();
+		final X9TempFile csvTempFile = X9UtilWorkUnit.getTempFileInstance(workUnit.resultsFile);
+		try (final X9CsvWriter csvWriter = new X9CsvWriter(csvTempFile.getTemp())) {
+			/*
+			 * Write the status for each pair and aggregate the field tallies.
+			 */
+			for (final X9UtilCompareEntry entry : entryList) {
+				final int pairExitStatus = entry.getExitStatus();
+				csvWriter.putFromArray(new String[] { "pair",
+						Integer.toString(entry.getPairNumber()), entry.getInputFile1().toString(),
+						entry.getInputFile2().toString(), Integer.toString(pairExitStatus),
+						entry.getAbortMessage() });
+				if (pairExitStatus < 0) {
+					pairsAborted++;
+					exitStatus = Math.min(exitStatus, pairExitStatus);
+				} else {
+					if (pairExitStatus == X9UtilBatch.EXIT_STATUS_ZERO) {
+						pairsEqual++;
+					} else {
+						pairsDifferent++;
+					}
+					if (exitStatus >= 0) {
+						exitStatus = Math.max(exitStatus, pairExitStatus);
+					}
+				}
+				for (final Entry<String, Integer> tally : entry.getFieldTally().entrySet()) {
+					aggregatedTally.merge(tally.getKey(), tally.getValue(), Integer::sum);
+				}
+			}
+
+			/*
+			 * Write the aggregated field tally.
+			 */
+			for (final Entry<String, Integer> tally : aggregatedTally.entrySet()) {
+				final String[] diff = StringUtils.split(tally.getKey(),
+						X9CompareFiles.TALLYMAP_SEPARATOR);
+				csvWriter.putFromArray(new String[] { "tally", diff.length >= 1 ? diff[0] : "",
+						diff.length >= 2 ? diff[1] : "", Integer.toString(tally.getValue()) });
+			}
+
+			/*
+			 * Write summary and end lines.
+			 */
+			csvWriter.putFromArray(new String[] { "summary", Integer.toString(entryList.size()),
+					Integer.toString(pairsEqual), Integer.toString(pairsDifferent),
+					Integer.toString(pairsAborted), Integer.toString(exitStatus) });
+			csvWriter.putFromArray(new String[] { "end" });
+		} catch (final Exception ex) {
+			throw X9Exception.abort(ex);
+		} finally {
+			csvTempFile.renameTemp();
+		}
+
+		/*
+		 * Log and return the overall exit status.
+		 */
+		LOGGER.info(
+				"batch compare finished; pairs({}) equal({}) different({}) aborted({}) "
+						+ "exitStatus({})",
+				entryList.size(), pairsEqual, pairsDifferent, pairsAborted, exitStatus);
+		return exitStatus;
+	}
+
 	/**
 	 * File scrub processing with exception thrown on any errors.
 	 *
@@ -167,6 +481,13 @@ public final class X9UtilCompare {
 	 * @throws Exception
 	 */
 	private int runCompare(final X9SdkIO sdkIO, final File diffFile) throws Exception {
+		/*
+		 * Run an item keyed compare when selected.
+		 */
+		if (workUnit.isCommandSwitchSet(X9UtilWorkUnit.SWITCH_ITEM_COMPARE)) {
+			return runItemCompare(diffFile);
+		}
+
 		/*
 		 * Build a list of the fields to be excluded from the compare.
 		 */
@@ -199,11 +520,6 @@ public final class X9UtilCompare {
 			}
 		}
 
-		/*
-		 * Allocate our text writer and accumulate differences as they are encountered.
-		 */
-		final List<String> differencesList = new ArrayList<>(1000);
-
 		/*
 		 * Allocate ancillary files.
 		 */
@@ -211,34 +527,100 @@ public final class X9UtilCompare {
 		final String baseName = FilenameUtils.getBaseName(diffFile.toString());
 		final File records1File = new File(folder, baseName + "_records1." + X9C.TXT);
 		final File records2File = new File(folder, baseName + "_records2." + X9C.TXT);
+		final File reduced1File = new File(folder, baseName + "_reduced1." + X9C.X937);
+		final File reduced2File = new File(folder, baseName + "_reduced2." + X9C.X937);
 
 		/*
-		 * Text capture call back.
+		 * Run the fast compare pre-pass when enabled. The field level compare is bypassed when
+		 * the files are identical and is otherwise limited to the bundles which are different.
 		 */
-		final Consumer<String> textCaptureCallBack = new Consumer<String>() {
-
-			@Override
-			public void accept(final String text) {
-				differencesList.add(text);
+		File compareFile1 = inputFile1;
+		File compareFile2 = inputFile2;
+		if (workUnit.isCommandSwitchSet(X9UtilWorkUnit.SWITCH_FAST_COMPARE)) {
+			final X9UtilCompareDigest digest1 = new X9UtilCompareDigest(workUnit, inputFile1);
+			final X9UtilCompareDigest digest2 = new X9UtilCompareDigest(workUnit, inputFile2);
+			computeDigestsConcurrently(digest1, digest2);
+			if (digest1.isAborted() || digest2.isAborted()) {
+				LOGGER.info("fast compare pre-pass aborted; full compare will be performed");
+			} else {
+				final Set<Integer> differingSegments = getDifferingSegments(digest1, digest2);
+				if (differingSegments.size() == 0) {
+					/*
+					 * Files are identical; write an empty differences file and results.
+					 */
+					LOGGER.info("fast compare digests are equal; files are identical");
+					X9FileIO.writeFile(new byte[0], diffFile);
+					writeIdenticalResultsFile();
+					return X9UtilBatch.EXIT_STATUS_ZERO;
+				}
 
+				/*
+				 * Create reduced files when only a subset of the bundles are different.
+				 */
+				final int bundleCount = Math.max(digest1.getBundleCount(),
+						digest2.getBundleCount());
+				final int differingBundles = getDifferingBundleCount(digest1, digest2,
+						differingSegments);
+				LOGGER.info("fast compare bundles({}) differingBundles({})", bundleCount,
+						differingBundles);
+				if (differingBundles < bundleCount) {
+					digest1.writeReducedFile(reduced1File, differingSegments);
+					digest2.writeReducedFile(reduced2File, differingSegments);
+					compareFile1 = reduced1File;
+					compareFile2 = reduced2File;
+					reducedDigest1 = digest1;
+					reducedDigest2 = digest2;
+					LOGGER.info("field level compare limited to differing bundles; record "
+							+ "numbers are relative to reduced1({}) and reduced2({}) which are "
+							+ "retained and mapped within the results", reduced1File,
+							reduced2File);
+				}
 			}
-
-		};
+		}
 
 		/*
-		 * Run the comparison.
+		 * Run the comparison, where differences are streamed to an intermediate text lines file as
+		 * they are encountered. This keeps memory usage independent of the number of differences,
+		 * while the results csv is still written with the field tally ahead of the text lines.
 		 */
+		File textLinesFile = null;
 		int diffCount = 0;
 		X9CompareFiles x9compareFiles = null;
-		try (final X9TextWriter diffWriter = new X9TextWriter(diffFile, textCaptureCallBack)) {
+		try {
+			textLinesFile = File.createTempFile(TEXT_LINES_PREFIX, TEXT_LINES_SUFFIX,
+					X9WorkFolder.getTempFolder());
+			try (final X9CsvWriter textLinesWriter = new X9CsvWriter(textLinesFile)) {
+				/*
+				 * Text capture call back which writes each difference to the text lines file.
+				 */
+				final Consumer<String> textCaptureCallBack = new Consumer<String>() {
+
+					@Override
+					public void accept(final String text) {
+						writeTextLine(textLinesWriter, text);
+					}
+
+				};
+
+				/*
+				 * Invoke our standard file comparison process.
+				 */
+				try (final X9TextWriter diffWriter = new X9TextWriter(diffFile,
+						textCaptureCallBack)) {
+					x9compareFiles = new X9CompareFiles(sdkBase, diffWriter, exclusionList,
+							workUnit.isCommandSwitchSet(X9UtilWorkUnit.SWITCH_VERBOSE),
+							workUnit.isCommandSwitchSet(X9UtilWorkUnit.SWITCH_MASK));
+					diffCount = x9compareFiles.runCompare(compareFile1, compareFile2,
+							records1File, records2File);
+				}
+			}
+
 			/*
-			 * Invoke our standard file comparison process.
+			 * We must abort when the compare itself encountered an exception.
 			 */
-			x9compareFiles = new X9CompareFiles(sdkBase, diffWriter, exclusionList,
-					workUnit.isCommandSwitchSet(X9UtilWorkUnit.SWITCH_VERBOSE),
-					workUnit.isCommandSwitchSet(X9UtilWorkUnit.SWITCH_MASK));
-			diffCount = x9compareFiles.runCompare(inputFile1, inputFile2, records1File,
-					records2File);
+			if (x9compareFiles.isCompareAborted()) {
+				throw X9Exception.abort("compare aborted");
+			}
 
 			/*
 			 * Delete the records1 and records2 text files when enabled.
@@ -248,54 +630,113 @@ public final class X9UtilCompare {
 					LOGGER.info("text files deleted");
 				}
 			}
+
+			/*
+			 * Write the results file.
+			 */
+			writeResultsFile(x9compareFiles.getFieldTallyMap(), textLinesFile);
+
+			/*
+			 * Post the field tally when running as part of a batch compare.
+			 */
+			if (compareEntry != null) {
+				compareEntry.setFieldTally(x9compareFiles.getFieldTallyMap());
+			}
 		} catch (final Exception ex) {
 			throw X9Exception.abort(ex);
 		} finally {
 			/*
-			 * We must abort when the compare itself encountered an exception.
+			 * Delete the intermediate text lines file.
 			 */
-			if (x9compareFiles == null || x9compareFiles.isCompareAborted()) {
-				throw X9Exception.abort("compare aborted");
+			if (textLinesFile != null && textLinesFile.exists()
+					&& !X9FileUtils.delete(textLinesFile)) {
+				LOGGER.warn("unable to delete textLinesFile({})", textLinesFile);
 			}
 		}
 
 		/*
-		 * Write the results file.
+		 * Return our exit status.
 		 */
+		LOGGER.info("differences textLinesWritten({}) textLinesSuppressed({})", textLinesWritten,
+				textLinesSuppressed);
+		return diffCount == 0 ? X9UtilBatch.EXIT_STATUS_ZERO : EXIT_STATUS_DIFFERENCES;
+	}
+
+	/**
+	 * Item keyed compare, where items are matched by sequence number, amount, and routing instead
+	 * of by their position within the files.
+	 *
+	 * @param diffFile
+	 *            differences text file
+	 * @return exit status
+	 */
+	private int runItemCompare(final File diffFile) {
+		final X9TempFile csvTempFile = X9UtilWorkUnit.getTempFileInstance(resultsFile);
+		final int diffCount;
+		try {
+			final X9UtilCompareItems x9utilCompareItems = new X9UtilCompareItems(sdkBase);
+			diffCount = x9utilCompareItems.compareItems(inputFile1, inputFile2, diffFile,
+					csvTempFile.getTemp(), differenceLimit);
+		} finally {
+			csvTempFile.renameTemp();
+		}
+		return diffCount == 0 ? X9UtilBatch.EXIT_STATUS_ZERO : EXIT_STATUS_DIFFERENCES;
+	}
+
+	/**
+	 * Write the results csv file when the fast compare pre-pass has determined that the files are
+	 * identical, which contains only the end line.
+	 */
+	private void writeIdenticalResultsFile() {
+		writeResultsFile(null, null);
+	}
+
+	/**
+	 * Write the results csv file, which contains the field differences from the tally map, the
+	 * difference text lines, the number of text lines suppressed by the limit (when applicable),
+	 * the reduced file lines (when applicable), and the end.
+	 *
+	 * @param x9tallyMap
+	 *            field tally map or null when there are no differences
+	 * @param textLinesFile
+	 *            intermediate text lines file or null when there are no differences
+	 */
+	private void writeResultsFile(final X9TallyMap x9tallyMap, final File textLinesFile) {
 		final X9TempFile csvTempFile = X9UtilWorkUnit.getTempFileInstance(resultsFile);
-		final X9TallyMap x9tallyMap = x9compareFiles.getFieldTallyMap();
 		try (final X9CsvWriter csvWriter = new X9CsvWriter(csvTempFile.getTemp())) {
 			/*
 			 * Write actual field differences from the tally map.
 			 */
-			for (final Entry<String, AtomicInteger> entry : x9tallyMap.entrySet()) {
-				csvWriter.startNewLine();
-				final String[] diff = StringUtils.split(entry.getKey(),
-						X9CompareFiles.TALLYMAP_SEPARATOR);
-				csvWriter.addField(diff.length >= 1 ? diff[0] : "");
-				csvWriter.addField(diff.length >= 2 ? diff[1] : "");
-				csvWriter.addField(Integer.toString(entry.getValue().get()));
-				csvWriter.write();
+			if (x9tallyMap != null) {
+				for (final Entry<String, AtomicInteger> entry : x9tallyMap.entrySet()) {
+					csvWriter.startNewLine();
+					final String[] diff = StringUtils.split(entry.getKey(),
+							X9CompareFiles.TALLYMAP_SEPARATOR);
+					csvWriter.addField(diff.length >= 1 ? diff[0] : "");
+					csvWriter.addField(diff.length >= 2 ? diff[1] : "");
+					csvWriter.addField(Integer.toString(entry.getValue().get()));
+					csvWriter.write();
+				}
 			}
 
 			/*
-			 * Include the output text file so everything is included in the results.
+			 * Include the difference text lines so everything is included in the results.
 			 */
-			for (final String text : differencesList) {
-				if (StringUtils.isNotBlank(text)) {
-					csvWriter.startNewLine();
-					csvWriter.addField("textLine");
-					csvWriter.addField(text);
-					csvWriter.write();
+			if (textLinesFile != null) {
+				try (final X9CsvReader csvReader = new X9CsvReader(textLinesFile)) {
+					X9CsvLine csvLine;
+					while ((csvLine = csvReader.getNextCsvLine()) != null) {
+						if (csvLine.isPopulated()) {
+							csvWriter.putFromArray(csvLine.getCsvArray());
+						}
+					}
 				}
 			}
 
 			/*
-			 * Write an end line.
+			 * Write the remaining trailing lines.
 			 */
-			csvWriter.startNewLine();
-			csvWriter.addField("end");
-			csvWriter.write();
+			writeResultsTrailer(csvWriter);
 		} catch (final Exception ex) {
 			throw X9Exception.abort(ex);
 		} finally {
@@ -305,11 +746,233 @@ public final class X9UtilCompare {
 				throw X9Exception.abort(ex);
 			}
 		}
+	}
 
+	/**
+	 * Write a single difference text line to the text lines file as it is received from the
+	 * compare. Text lines are counted but no longer written once the optional limit is reached.
+	 *
+	 * @param csvWriter
+	 *            text lines csv writer
+	 * @param text
+	 *            difference text line
+	 */
+	private void writeTextLine(final X9CsvWriter csvWriter, final String text) {
+		if (StringUtils.isNotBlank(text)) {
+			if (differenceLimit > 0 && textLinesWritten >= differenceLimit) {
+				textLinesSuppressed++;
+			} else {
+				textLinesWritten++;
+				try {
+					csvWriter.startNewLine();
+					csvWriter.addField("textLine");
+					csvWriter.addField(text);
+					csvWriter.write();
+				} catch (final Exception ex) {
+					throw X9Exception.abort(ex);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Write the trailing lines of the results csv file, which are the number of text lines
+	 * suppressed by the limit (when applicable), the reduced file lines (when applicable), and the
+	 * end.
+	 *
+	 * @param csvWriter
+	 *            results csv writer
+	 * @throws Exception
+	 */
+	private void writeResultsTrailer(final X9CsvWriter csvWriter) throws Exception {
 		/*
-		 * Return our exit status.
+		 * Write summary counts when text lines were suppressed by the difference limit.
 		 */
-		return diffCount == 0 ? X9UtilBatch.EXIT_STATUS_ZERO : EXIT_STATUS_DIFFERENCES;
+		if (textLinesSuppressed > 0) {
+			csvWriter.startNewLine();
+			csvWriter.addField("textLinesSuppressed");
+			csvWriter.addField(Integer.toString(textLinesSuppressed));
+			csvWriter.addField(Integer.toString(textLinesWritten + textLinesSuppressed));
+			csvWriter.write();
+		}
+
+		/*
+		 * Identify the reduced files and map their record numbers to the input files when the
+		 * field level compare was limited to differing bundles.
+		 */
+		if (reducedDigest1 != null) {
+			writeReducedFileMap(csvWriter, reducedDigest1, "1");
+			writeReducedFileMap(csvWriter, reducedDigest2, "2");
+		}
+
+		/*
+		 * Write an end line.
+		 */
+		csvWriter.startNewLine();
+		csvWriter.addField("end");
+		csvWriter.write();
+	}
+
+	/**
+	 * Write the reduced file lines to the results csv file. The first line identifies the reduced
+	 * file which was compared in place of the input file. Each following line maps a range of
+	 * record numbers within the reduced file (as reported by the differences) to the corresponding
+	 * range of record numbers within the input file.
+	 *
+	 * @param csvWriter
+	 *            results csv writer
+	 * @param reducedDigest
+	 *            digest instance which wrote the reduced file
+	 * @param fileNumber
+	 *            file number (1 or 2)
+	 * @throws Exception
+	 */
+	private void writeReducedFileMap(final X9CsvWriter csvWriter,
+			final X9UtilCompareDigest reducedDigest, final String fileNumber) throws Exception {
+		csvWriter.putFromArray(new String[] { "reducedFile", fileNumber,
+				reducedDigest.getReducedFile().toString(),
+				reducedDigest.getInputFile().toString() });
+		int reducedRecordNumber = 1;
+		for (final X9UtilCompareSegment segment : reducedDigest.getReducedSegmentList()) {
+			final int recordCount = segment.getLastRecordNumber() - segment.getFirstRecordNumber()
+					+ 1;
+			csvWriter.putFromArray(new String[] { "recordMap", fileNumber,
+					Integer.toString(reducedRecordNumber),
+					Integer.toString(reducedRecordNumber + recordCount - 1),
+					Integer.toString(segment.getFirstRecordNumber()),
+					Integer.toString(segment.getLastRecordNumber()) });
+			reducedRecordNumber += recordCount;
+		}
+	}
+
+	/**
+	 * Compute the segment digests for both files concurrently and wait for their completion.
+	 *
+	 * @param digest1
+	 *            digest instance for the first file
+	 * @param digest2
+	 *            digest instance for the second file
+	 */
+	private void computeDigestsConcurrently(final X9UtilCompareDigest digest1,
+			final X9UtilCompareDigest digest2) {
+		try {
+			final X9CountDownLatch waitLatch = new X9CountDownLatch(DIGEST_THREAD_COUNT);
+			X9Thread.startAndPost(() -> digest1.computeDigests(), waitLatch);
+			X9Thread.startAndPost(() -> digest2.computeDigests(), waitLatch);
+			waitLatch.await();
+		} catch (final Exception ex) {
+			throw X9Exception.abort(ex);
+		}
+	}
+
+	/**
+	 * Get the indexes of all segments which are different between the two files. Segments are
+	 * compared positionally. When the segment structures diverge (either a segment type mismatch
+	 * or a different number of segments), then positional alignment is lost and all segments from
+	 * that point forward are considered to be different.
+	 *
+	 * @param digest1
+	 *            digest instance for the first file
+	 * @param digest2
+	 *            digest instance for the second file
+	 * @return set of differing segment indexes which is empty when the files are identical
+	 */
+	private Set<Integer> getDifferingSegments(final X9UtilCompareDigest digest1,
+			final X9UtilCompareDigest digest2) {
+		final Set<Integer> differingSegments = new TreeSet<>();
+		final List<X9UtilCompareSegment> segmentList1 = digest1.getSegmentList();
+		final List<X9UtilCompareSegment> segmentList2 = digest2.getSegmentList();
+		final int commonCount = Math.min(segmentList1.size(), segmentList2.size());
+		final int maximumCount = Math.max(segmentList1.size(), segmentList2.size());
+		int alignedCount = commonCount;
+		for (int i = 0; i < commonCount; i++) {
+			final X9UtilCompareSegment segment1 = segmentList1.get(i);
+			final X9UtilCompareSegment segment2 = segmentList2.get(i);
+			if (segment1.isBundle() != segment2.isBundle()) {
+				alignedCount = i;
+				break;
+			}
+			if (!segment1.isDigestEqual(segment2)) {
+				differingSegments.add(i);
+			}
+		}
+		for (int i = alignedCount; i < maximumCount; i++) {
+			differingSegments.add(i);
+		}
+		return differingSegments;
+	}
+
+	/**
+	 * Get the number of bundles which are within the differing segments.
+	 *
+	 * @param digest1
+	 *            digest instance for the first file
+	 * @param digest2
+	 *            digest instance for the second file
+	 * @param differingSegments
+	 *            set of differing segment indexes
+	 * @return differing bundle count
+	 */
+	private int getDifferingBundleCount(final X9UtilCompareDigest digest1,
+			final X9UtilCompareDigest digest2, final Set<Integer> differingSegments) {
+		int differingBundles = 0;
+		for (final int segmentIndex : differingSegments) {
+			if (isBundleSegment(digest1, segmentIndex) || isBundleSegment(digest2, segmentIndex)) {
+				differingBundles++;
+			}
+		}
+		return differingBundles;
+	}
+
+	/**
+	 * Determine if a given segment index is a bundle within a digest instance.
+	 *
+	 * @param x9utilCompareDigest
+	 *            digest instance
+	 * @param segmentIndex
+	 *            segment index
+	 * @return true or false
+	 */
+	private boolean isBundleSegment(final X9UtilCompareDigest x9utilCompareDigest,
+			final int segmentIndex) {
+		final List<X9UtilCompareSegment> segmentList = x9utilCompareDigest.getSegmentList();
+		return segmentIndex < segmentList.size() && segmentList.get(segmentIndex).isBundle();
+	}
+
+	/**
+	 * CompareTask compares a series of file pairs as initiated from a worker task, where each pair
+	 * is compared using a newly allocated X9UtilCompare instance and sdkBase.
+	 */
+	private final class CompareTask implements X9UtilMultiFileTask<X9UtilCompareEntry> {
+
+		@Override
+		public boolean processEntry(final X9UtilCompareEntry entry) {
+			/*
+			 * Mark the pair as not found when either file is missing.
+			 */
+			if (!X9FileUtils.existsWithPathTracing(entry.getInputFile1())
+					|| !X9FileUtils.existsWithPathTracing(entry.getInputFile2())) {
+				entry.setAborted(X9UtilBatch.EXIT_STATUS_FILE_NOT_FOUND, "file not found");
+				LOGGER.info("pairNumber({}) file not found; file1({}) file2({})",
+						entry.getPairNumber(), entry.getInputFile1(), entry.getInputFile2());
+				return false;
+			}
+
+			/*
+			 * Compare this pair.
+			 */
+			final X9UtilCompare x9utilCompare = new X9UtilCompare(workUnit,
+					workUnit.getNewSdkBase());
+			x9utilCompare.compareToEntry(entry);
+			return true;
+		}
+
+		@Override
+		public void abortEntry(final X9UtilCompareEntry entry, final Exception ex) {
+			entry.setAborted(X9UtilBatch.EXIT_STATUS_ABORTED, ex.toString());
+			LOGGER.error("pairNumber({}) exception", entry.getPairNumber(), ex);
+		}
+
 	}
 
 }
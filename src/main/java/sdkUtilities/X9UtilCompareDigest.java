@@ -0,0 +1,307 @@
+package sdkUtilities;
+
+import java.io.File;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.x9ware.actions.X9Exception;
+import com.x9ware.base.X9Sdk;
+import com.x9ware.base.X9SdkBase;
+import com.x9ware.base.X9SdkFactory;
+import com.x9ware.base.X9SdkIO;
+import com.x9ware.base.X9SdkObject;
+import com.x9ware.core.X9;
+import com.x9ware.core.X9Reader;
+
+/**
+ * X9UtilCompareDigest computes bundle level digests for a single x9 file as the fast compare
+ * pre-pass for X9UtilCompare. The file is read sequentially and broken into segments, where each
+ * bundle is a segment and the records between bundles form their own segments. Each segment digest
+ * is accumulated over record data and image payloads. When the segment digests of two files are
+ * all equal, then the files are identical and the full field level compare can be bypassed. When
+ * they differ, this class can also write a reduced copy of the file which contains only the
+ * differing bundles (along with all non-bundle records) which then becomes the compare input.
+ * Record numbers within the reduced file can be mapped back to the original file using the first
+ * record number of each segment that was written.
+ *
+ * @author X9Ware LLC. Copyright(c) 2012-2018 X9Ware LLC. All Rights Reserved. This is proprietary
+ *         software as developed and licensed by X9Ware LLC under the exclusive legal right of the
+ *         copyright holder. All licensees are provided the right to use the software only under
+ *         certain conditions, and are specifically restricted from other specific uses including
+ *         modification, sharing, reuse, redistribution, or reverse engineering.
+ */
+public final class X9UtilCompareDigest {
+
+	/**
+	 * X9UtilWorkUnit instance which describes the unit of work assigned to us.
+	 */
+	private final X9UtilWorkUnit workUnit;
+
+	/**
+	 * List of segments in file sequence.
+	 */
+	private final List<X9UtilCompareSegment> segmentList = new ArrayList<>();
+
+	/**
+	 * List of segments which have been written to the reduced file in file sequence.
+	 */
+	private final List<X9UtilCompareSegment> reducedSegmentList = new ArrayList<>();
+
+	/*
+	 * Private.
+	 */
+	private final File x9inputFile;
+	private File reducedFile;
+	private int recordCount;
+	private int bundleCount;
+	private boolean isSegmentClosed;
+	private String abortMessage = "";
+
+	/*
+	 * Constants.
+	 */
+	private static final String DIGEST_ALGORITHM = "SHA-256";
+
+	/**
+	 * Logger instance.
+	 */
+	private static final Logger LOGGER = LoggerFactory.getLogger(X9UtilCompareDigest.class);
+
+	/**
+	 * X9UtilCompareDigest Constructor.
+	 *
+	 * @param work_Unit
+	 *            current work unit
+	 * @param x9_InputFile
+	 *            x9 input file to be digested
+	 */
+	public X9UtilCompareDigest(final X9UtilWorkUnit work_Unit, final File x9_InputFile) {
+		workUnit = work_Unit;
+		x9inputFile = x9_InputFile;
+	}
+
+	/**
+	 * Read the x9 file and compute segment digests. This method is designed to be run on a
+	 * background thread, hence exceptions are consumed and retained as the abort message, which
+	 * allows the caller to fall back to the full compare when the pre-pass cannot be completed.
+	 */
+	public void computeDigests() {
+		try {
+			final MessageDigest messageDigest = MessageDigest.getInstance(DIGEST_ALGORITHM);
+			final X9SdkBase sdkBase = workUnit.getNewSdkBase();
+			final X9Sdk sdk = X9SdkFactory.getSdk(sdkBase);
+			workUnit.autoBindToCommandLineConfiguration(sdkBase, x9inputFile);
+			try (final X9SdkIO sdkIO = sdk.getSdkIO();
+					final X9Reader x9reader = sdkIO.openInputFile(x9inputFile)) {
+				/*
+				 * Read all records and accumulate each into the digest for the current segment.
+				 */
+				X9UtilCompareSegment currentSegment = null;
+				X9SdkObject sdkObject = sdkIO.readNext();
+				while (sdkObject != null) {
+					recordCount++;
+					final int recordType = sdkObject.getRecordType();
+					if (isNewSegment(currentSegment, recordType)) {
+						if (currentSegment != null) {
+							currentSegment.finish();
+						}
+						final boolean isBundle = recordType == X9.BUNDLE_HEADER;
+						if (isBundle) {
+							bundleCount++;
+						}
+						currentSegment = new X9UtilCompareSegment(segmentList.size(), isBundle,
+								recordCount, messageDigest);
+						segmentList.add(currentSegment);
+					}
+					currentSegment.accumulate(recordCount, sdkObject.getDataByteArray(),
+							recordType == X9.IMAGE_VIEW_DATA ? sdkObject.getCheckImage() : null);
+					closeSegmentOnBundleTrailer(recordType);
+					sdkObject = sdkIO.readNext();
+				}
+
+				/*
+				 * Finish the final segment.
+				 */
+				if (currentSegment != null) {
+					currentSegment.finish();
+				}
+			} finally {
+				sdkBase.systemReset();
+			}
+			LOGGER.info("digests computed file({}) records({}) bundles({}) segments({})",
+					x9inputFile, recordCount, bundleCount, segmentList.size());
+		} catch (final Exception ex) {
+			abortMessage = ex.toString();
+			LOGGER.error("digest exception file({})", x9inputFile, ex);
+		}
+	}
+
+	/**
+	 * Write a reduced copy of the x9 file which contains all non-bundle segments along with those
+	 * bundle segments which have been selected. The segment structure is identical to that which
+	 * was assigned by computeDigests(), since the same file is read using the same rules.
+	 *
+	 * @param outputFile
+	 *            reduced output file
+	 * @param selectedSegments
+	 *            selected segment indexes
+	 * @return number of records written
+	 */
+	public int writeReducedFile(final File outputFile, final Set<Integer> selectedSegments) {
+		int recordsWritten = 0;
+		reducedFile = outputFile;
+		final X9SdkBase sdkBase = workUnit.getNewSdkBase();
+		final X9Sdk sdk = X9SdkFactory.getSdk(sdkBase);
+		workUnit.autoBindToCommandLineConfiguration(sdkBase, x9inputFile);
+		try (final X9SdkIO sdkIO = sdk.getSdkIO();
+				final X9Reader x9reader = sdkIO.openInputFile(x9inputFile)) {
+			/*
+			 * Open our output file.
+			 */
+			sdkIO.openOutputFile(outputFile);
+
+			/*
+			 * Copy all records which are within non-bundle or selected bundle segments.
+			 */
+			int segmentIndex = -1;
+			boolean isBundle = false;
+			isSegmentClosed = false;
+			reducedSegmentList.clear();
+			X9UtilCompareSegment currentSegment = null;
+			X9SdkObject sdkObject = sdkIO.readNext();
+			while (sdkObject != null) {
+				final int recordType = sdkObject.getRecordType();
+				if (isNewSegment(currentSegment, recordType)) {
+					segmentIndex++;
+					currentSegment = segmentList.get(segmentIndex);
+					isBundle = recordType == X9.BUNDLE_HEADER;
+					if (!isBundle || selectedSegments.contains(segmentIndex)) {
+						reducedSegmentList.add(currentSegment);
+					}
+				}
+				if (!isBundle || selectedSegments.contains(segmentIndex)) {
+					recordsWritten++;
+					sdkObject.setUpdateType52ImageLengths(
+							X9SdkIO.UPDATE_TYPE52_IMAGE_LENGTHS_DISABLED);
+					sdkIO.writeOutputFileFromData(sdkObject, sdkObject.getDataByteArray());
+				}
+				closeSegmentOnBundleTrailer(recordType);
+				sdkObject = sdkIO.readNext();
+			}
+		} catch (final Exception ex) {
+			throw X9Exception.abort(ex);
+		} finally {
+			sdkBase.systemReset();
+		}
+		return recordsWritten;
+	}
+
+	/**
+	 * Get the reduced file.
+	 *
+	 * @return reduced file or null when a reduced file has not been written
+	 */
+	public File getReducedFile() {
+		return reducedFile;
+	}
+
+	/**
+	 * Get the list of segments which have been written to the reduced file.
+	 *
+	 * @return reduced segment list
+	 */
+	public List<X9UtilCompareSegment> getReducedSegmentList() {
+		return reducedSegmentList;
+	}
+
+	/**
+	 * Determine if the current record starts a new segment. A bundle header always starts a new
+	 * segment, as does the first record following a bundle trailer.
+	 *
+	 * @param currentSegment
+	 *            current segment or null when this is the first record
+	 * @param recordType
+	 *            current record type
+	 * @return true when a new segment is started
+	 */
+	private boolean isNewSegment(final X9UtilCompareSegment currentSegment,
+			final int recordType) {
+		if (currentSegment == null || isSegmentClosed || recordType == X9.BUNDLE_HEADER) {
+			isSegmentClosed = false;
+			return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Close the current segment when a bundle trailer has been encountered.
+	 *
+	 * @param recordType
+	 *            current record type
+	 */
+	private void closeSegmentOnBundleTrailer(final int recordType) {
+		if (recordType == X9.BUNDLE_TRAILER) {
+			isSegmentClosed = true;
+		}
+	}
+
+	/**
+	 * Get the input file.
+	 *
+	 * @return input file
+	 */
+	public File getInputFile() {
+		return x9inputFile;
+	}
+
+	/**
+	 * Get the list of segments.
+	 *
+	 * @return segment list
+	 */
+	public List<X9UtilCompareSegment> getSegmentList() {
+		return segmentList;
+	}
+
+	/**
+	 * Get the number of records read.
+	 *
+	 * @return record count
+	 */
+	public int getRecordCount() {
+		return recordCount;
+	}
+
+	/**
+	 * Get the number of bundles read.
+	 *
+	 * @return bundle count
+	 */
+	public int getBundleCount() {
+		return bundleCount;
+	}
+
+	/**
+	 * Determine if the digest pre-pass was aborted.
+	 *
+	 * @return true or false
+	 */
+	public boolean isAborted() {
+		return abortMessage.length() > 0;
+	}
+
+	/**
+	 * Get the abort message.
+	 *
+	 * @return abort message
+	 */
+	public String getAbortMessage() {
+		return abortMessage;
+	}
+
+}
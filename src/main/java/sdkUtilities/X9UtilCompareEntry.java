@@ -0,0 +1,170 @@
+package sdkUtilities;
+
+import java.io.File;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.x9ware.tools.X9TallyMap;
+
+/**
+ * X9UtilCompareEntry defines a single pair of files to be compared as part of a batch compare,
+ * along with the results of that comparison as posted by the worker task. The field tally is
+ * retained as an immutable snapshot, which allows the tallies for all pairs to be aggregated once
+ * all concurrent comparisons have completed.
+ *
+ * @author X9Ware LLC. Copyright(c) 2012-2018 X9Ware LLC. All Rights Reserved. This is proprietary
+ *         software as developed and licensed by X9Ware LLC under the exclusive legal right of the
+ *         copyright holder. All licensees are provided the right to use the software only under
+ *         certain conditions, and are specifically restricted from other specific uses including
+ *         modification, sharing, reuse, redistribution, or reverse engineering.
+ */
+public final class X9UtilCompareEntry {
+
+	/*
+	 * Private.
+	 */
+	private final int pairNumber;
+	private final File inputFile1;
+	private final File inputFile2;
+	private final File outputFile;
+	private final File resultsFile;
+	private Map<String, Integer> fieldTally = Collections.emptyMap();
+	private String abortMessage = "";
+	private int exitStatus = X9UtilBatch.EXIT_STATUS_ABORTED;
+
+	/**
+	 * X9UtilCompareEntry Constructor.
+	 *
+	 * @param pair_Number
+	 *            pair number relative to one
+	 * @param input_File1
+	 *            first input file
+	 * @param input_File2
+	 *            second input file
+	 * @param output_File
+	 *            differences text file for this pair
+	 * @param results_File
+	 *            results csv file for this pair
+	 */
+	public X9UtilCompareEntry(final int pair_Number, final File input_File1,
+			final File input_File2, final File output_File, final File results_File) {
+		pairNumber = pair_Number;
+		inputFile1 = input_File1;
+		inputFile2 = input_File2;
+		outputFile = output_File;
+		resultsFile = results_File;
+	}
+
+	/**
+	 * Get the pair number.
+	 *
+	 * @return pair number
+	 */
+	public int getPairNumber() {
+		return pairNumber;
+	}
+
+	/**
+	 * Get the first input file.
+	 *
+	 * @return first input file
+	 */
+	public File getInputFile1() {
+		return inputFile1;
+	}
+
+	/**
+	 * Get the second input file.
+	 *
+	 * @return second input file
+	 */
+	public File getInputFile2() {
+		return inputFile2;
+	}
+
+	/**
+	 * Get the differences text file for this pair.
+	 *
+	 * @return output file
+	 */
+	public File getOutputFile() {
+		return outputFile;
+	}
+
+	/**
+	 * Get the results csv file for this pair.
+	 *
+	 * @return results file
+	 */
+	public File getResultsFile() {
+		return resultsFile;
+	}
+
+	/**
+	 * Set the field tally as an immutable snapshot of the compare tally map.
+	 *
+	 * @param x9tallyMap
+	 *            compare field tally map
+	 */
+	public void setFieldTally(final X9TallyMap x9tallyMap) {
+		final Map<String, Integer> tally = new TreeMap<>();
+		for (final Entry<String, AtomicInteger> entry : x9tallyMap.entrySet()) {
+			tally.put(entry.getKey(), entry.getValue().get());
+		}
+		fieldTally = Collections.unmodifiableMap(tally);
+	}
+
+	/**
+	 * Get the field tally.
+	 *
+	 * @return field tally
+	 */
+	public Map<String, Integer> getFieldTally() {
+		return fieldTally;
+	}
+
+	/**
+	 * Set the exit status.
+	 *
+	 * @param exit_Status
+	 *            exit status
+	 */
+	public void setExitStatus(final int exit_Status) {
+		exitStatus = exit_Status;
+	}
+
+	/**
+	 * Get the exit status.
+	 *
+	 * @return exit status
+	 */
+	public int getExitStatus() {
+		return exitStatus;
+	}
+
+	/**
+	 * Mark this pair as aborted.
+	 *
+	 * @param exit_Status
+	 *            exit status which must be negative
+	 * @param abort_Message
+	 *            abort message
+	 */
+	public void setAborted(final int exit_Status, final String abort_Message) {
+		exitStatus = exit_Status;
+		abortMessage = abort_Message;
+	}
+
+	/**
+	 * Get the abort message.
+	 *
+	 * @return abort message
+	 */
+	public String getAbortMessage() {
+		return abortMessage;
+	}
+
+}
@@ -0,0 +1,154 @@
+package sdkUtilities;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+
+/**
+ * X9UtilCompareItem defines a single item as loaded for an item keyed compare. Each item retains
+ * only those attributes which are needed to identify and report the item, along with a digest of
+ * the complete item group (item record, addenda, and images) which is used to determine if matched
+ * items have been changed. This compact representation allows very large files to be indexed.
+ *
+ * @author X9Ware LLC. Copyright(c) 2012-2018 X9Ware LLC. All Rights Reserved. This is proprietary
+ *         software as developed and licensed by X9Ware LLC under the exclusive legal right of the
+ *         copyright holder. All licensees are provided the right to use the software only under
+ *         certain conditions, and are specifically restricted from other specific uses including
+ *         modification, sharing, reuse, redistribution, or reverse engineering.
+ */
+public final class X9UtilCompareItem {
+
+	/*
+	 * Private.
+	 */
+	private final int recordNumber;
+	private final int recordType;
+	private final String itemSequenceNumber;
+	private final BigDecimal itemAmount;
+	private final String itemRouting;
+	private final byte[] digest;
+	private X9UtilCompareItem duplicateItem;
+
+	/*
+	 * Constants.
+	 */
+	private static final char KEY_SEPARATOR = '|';
+
+	/**
+	 * X9UtilCompareItem Constructor.
+	 *
+	 * @param record_Number
+	 *            item record number
+	 * @param record_Type
+	 *            item record type
+	 * @param item_SequenceNumber
+	 *            item sequence number
+	 * @param item_Amount
+	 *            item amount
+	 * @param item_Routing
+	 *            item routing
+	 * @param item_Digest
+	 *            digest of the item group
+	 */
+	public X9UtilCompareItem(final int record_Number, final int record_Type,
+			final String item_SequenceNumber, final BigDecimal item_Amount,
+			final String item_Routing, final byte[] item_Digest) {
+		recordNumber = record_Number;
+		recordType = record_Type;
+		itemSequenceNumber = item_SequenceNumber;
+		itemAmount = item_Amount;
+		itemRouting = item_Routing;
+		digest = item_Digest;
+	}
+
+	/**
+	 * Get the item key which is a concatenation of sequence number, amount, and routing.
+	 *
+	 * @return item key
+	 */
+	public String getItemKey() {
+		return itemSequenceNumber + KEY_SEPARATOR
+				+ (itemAmount == null ? "" : itemAmount.toPlainString()) + KEY_SEPARATOR
+				+ itemRouting;
+	}
+
+	/**
+	 * Get the item record number.
+	 *
+	 * @return record number
+	 */
+	public int getRecordNumber() {
+		return recordNumber;
+	}
+
+	/**
+	 * Get the item record type.
+	 *
+	 * @return record type
+	 */
+	public int getRecordType() {
+		return recordType;
+	}
+
+	/**
+	 * Get the item sequence number.
+	 *
+	 * @return item sequence number
+	 */
+	public String getItemSequenceNumber() {
+		return itemSequenceNumber;
+	}
+
+	/**
+	 * Get the item amount.
+	 *
+	 * @return item amount
+	 */
+	public BigDecimal getItemAmount() {
+		return itemAmount;
+	}
+
+	/**
+	 * Get the item routing.
+	 *
+	 * @return item routing
+	 */
+	public String getItemRouting() {
+		return itemRouting;
+	}
+
+	/**
+	 * Append another item which has the same item key as this item. Duplicates are chained in
+	 * their original file sequence, which allows them to be matched in that same sequence.
+	 *
+	 * @param otherItem
+	 *            other item with the same item key
+	 */
+	public void appendDuplicate(final X9UtilCompareItem otherItem) {
+		X9UtilCompareItem lastItem = this;
+		while (lastItem.duplicateItem != null) {
+			lastItem = lastItem.duplicateItem;
+		}
+		lastItem.duplicateItem = otherItem;
+	}
+
+	/**
+	 * Get the next item which has the same item key as this item.
+	 *
+	 * @return next duplicate item or null when there are none
+	 */
+	public X9UtilCompareItem getDuplicateItem() {
+		return duplicateItem;
+	}
+
+	/**
+	 * Determine if this item group has the same content as another item group.
+	 *
+	 * @param otherItem
+	 *            other item
+	 * @return true or false
+	 */
+	public boolean isContentEqual(final X9UtilCompareItem otherItem) {
+		return Arrays.equals(digest, otherItem.digest);
+	}
+
+}
@@ -0,0 +1,357 @@
+package sdkUtilities;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.x9ware.actions.X9Exception;
+import com.x9ware.base.X9FileReader;
+import com.x9ware.base.X9Item937;
+import com.x9ware.base.X9Object;
+import com.x9ware.base.X9SdkBase;
+import com.x9ware.core.X9;
+import com.x9ware.core.X9Reader937;
+import com.x9ware.tools.X9CsvWriter;
+import com.x9ware.tools.X9String;
+
+/**
+ * X9UtilCompareItems performs an item keyed compare of two x9 files, as an alternative to the
+ * positional field level compare. Items from the first file are indexed by sequence number, amount,
+ * and routing. The second file is then read and each item is matched against that index, which
+ * allows items to be reported as matched, changed, added, or removed regardless of their position
+ * within the files. Changes are identified using a digest of each item group (the item record, its
+ * addenda, and images). Both files are streamed and only the compact index for the first file is
+ * retained in memory, so this process scales to very large files.
+ *
+ * @author X9Ware LLC. Copyright(c) 2012-2018 X9Ware LLC. All Rights Reserved. This is proprietary
+ *         software as developed and licensed by X9Ware LLC under the exclusive legal right of the
+ *         copyright holder. All licensees are provided the right to use the software only under
+ *         certain conditions, and are specifically restricted from other specific uses including
+ *         modification, sharing, reuse, redistribution, or reverse engineering.
+ */
+public final class X9UtilCompareItems {
+
+	/**
+	 * X9SdkBase instance for this environment.
+	 */
+	private final X9SdkBase sdkBase;
+
+	/**
+	 * Index of items from the first file by item key.
+	 */
+	private final Map<String, X9UtilCompareItem> itemIndex = new HashMap<>();
+
+	/*
+	 * Private.
+	 */
+	private final MessageDigest messageDigest;
+	private int recordNumber;
+	private int itemCount1;
+	private int itemCount2;
+	private int matchedCount;
+	private int changedCount;
+	private int addedCount;
+	private int removedCount;
+	private int differenceLimit;
+	private int differencesWritten;
+	private int differencesSuppressed;
+
+	/*
+	 * Constants.
+	 */
+	private static final String DIGEST_ALGORITHM = "SHA-256";
+	private static final String CHANGED = "changed";
+	private static final String ADDED = "added";
+	private static final String REMOVED = "removed";
+
+	/**
+	 * Logger instance.
+	 */
+	private static final Logger LOGGER = LoggerFactory.getLogger(X9UtilCompareItems.class);
+
+	/**
+	 * X9UtilCompareItems Constructor.
+	 *
+	 * @param sdk_Base
+	 *            current sdkBase which has been bound to the x9 configuration
+	 */
+	public X9UtilCompareItems(final X9SdkBase sdk_Base) {
+		sdkBase = sdk_Base;
+		try {
+			messageDigest = MessageDigest.getInstance(DIGEST_ALGORITHM);
+		} catch (final Exception ex) {
+			throw X9Exception.abort(ex);
+		}
+	}
+
+	/**
+	 * Compare two files at the item level and write the differences to the output text and results
+	 * csv files. Only changed, added, and removed items are written as individual lines; matched
+	 * items are counted but not listed, which keeps the output proportional to the differences.
+	 * Differences beyond the optional limit are counted but not written, and the number that were
+	 * suppressed is then written ahead of the summary line.
+	 *
+	 * @param inputFile1
+	 *            first x9 input file
+	 * @param inputFile2
+	 *            second x9 input file
+	 * @param diffFile
+	 *            differences text file
+	 * @param csvFile
+	 *            results csv file
+	 * @param difference_Limit
+	 *            maximum number of differences to be written or zero when unlimited
+	 * @return number of items which are different
+	 */
+	public int compareItems(final File inputFile1, final File inputFile2, final File diffFile,
+			final File csvFile, final int difference_Limit) {
+		differenceLimit = difference_Limit;
+
+		/*
+		 * Build the item index from the first file.
+		 */
+		readItems(inputFile1, item -> {
+			itemCount1++;
+			final X9UtilCompareItem existingItem = itemIndex.putIfAbsent(item.getItemKey(), item);
+			if (existingItem != null) {
+				existingItem.appendDuplicate(item);
+			}
+		});
+		LOGGER.info("item index built file({}) items({}) uniqueKeys({})", inputFile1, itemCount1,
+				itemIndex.size());
+
+		/*
+		 * Read the second file and match each item against the index. Changed and added items are
+		 * written as they are encountered; removed items are written once the file is complete.
+		 */
+		try (final X9CsvWriter csvWriter = new X9CsvWriter(csvFile);
+				final BufferedWriter diffWriter = Files.newBufferedWriter(diffFile.toPath(),
+						StandardCharsets.UTF_8)) {
+			readItems(inputFile2, item -> {
+				itemCount2++;
+				final X9UtilCompareItem matchedItem = removeFromIndex(item.getItemKey());
+				if (matchedItem == null) {
+					addedCount++;
+					writeDifference(csvWriter, diffWriter, ADDED, item, null, item);
+				} else if (matchedItem.isContentEqual(item)) {
+					matchedCount++;
+				} else {
+					changedCount++;
+					writeDifference(csvWriter, diffWriter, CHANGED, item, matchedItem, item);
+				}
+			});
+
+			/*
+			 * Items remaining within the index have been removed; list in original sequence.
+			 */
+			final List<X9UtilCompareItem> removedList = new ArrayList<>();
+			for (final X9UtilCompareItem indexedItem : itemIndex.values()) {
+				X9UtilCompareItem item = indexedItem;
+				while (item != null) {
+					removedList.add(item);
+					item = item.getDuplicateItem();
+				}
+			}
+			removedList.sort(Comparator.comparingInt(X9UtilCompareItem::getRecordNumber));
+			for (final X9UtilCompareItem item : removedList) {
+				removedCount++;
+				writeDifference(csvWriter, diffWriter, REMOVED, item, item, null);
+			}
+
+			/*
+			 * Write summary counts when differences were suppressed by the difference limit.
+			 */
+			if (differencesSuppressed > 0) {
+				csvWriter.putFromArray(new String[] { "textLinesSuppressed",
+						Integer.toString(differencesSuppressed),
+						Integer.toString(differencesWritten + differencesSuppressed) });
+			}
+
+			/*
+			 * Write summary and end lines.
+			 */
+			csvWriter.putFromArray(new String[] { "summary", Integer.toString(itemCount1),
+					Integer.toString(itemCount2), Integer.toString(matchedCount),
+					Integer.toString(changedCount), Integer.toString(addedCount),
+					Integer.toString(removedCount) });
+			csvWriter.putFromArray(new String[] { "end" });
+		} catch (final Exception ex) {
+			throw X9Exception.abort(ex);
+		}
+
+		/*
+		 * Log and return the number of differences.
+		 */
+		LOGGER.info(
+				"item compare finished; items1({}) items2({}) matched({}) changed({}) added({}) "
+						+ "removed({}) differencesSuppressed({})",
+				itemCount1, itemCount2, matchedCount, changedCount, addedCount, removedCount,
+				differencesSuppressed);
+		return changedCount + addedCount + removedCount;
+	}
+
+	/**
+	 * Remove the first item for a given key from the index. When duplicates exist, the next
+	 * duplicate becomes the indexed item so that duplicates are matched in file sequence.
+	 *
+	 * @param itemKey
+	 *            item key
+	 * @return indexed item or null when not found
+	 */
+	private X9UtilCompareItem removeFromIndex(final String itemKey) {
+		final X9UtilCompareItem item = itemIndex.remove(itemKey);
+		if (item != null && item.getDuplicateItem() != null) {
+			itemIndex.put(itemKey, item.getDuplicateItem());
+		}
+		return item;
+	}
+
+	/**
+	 * Write a single item difference to both the results csv and differences text files. The
+	 * difference is counted but no longer written once the optional limit is reached.
+	 *
+	 * @param csvWriter
+	 *            results csv writer
+	 * @param diffWriter
+	 *            differences text writer
+	 * @param status
+	 *            difference status
+	 * @param item
+	 *            item which is used to identify the difference
+	 * @param item1
+	 *            item from the first file or null
+	 * @param item2
+	 *            item from the second file or null
+	 */
+	private void writeDifference(final X9CsvWriter csvWriter, final BufferedWriter diffWriter,
+			final String status, final X9UtilCompareItem item, final X9UtilCompareItem item1,
+			final X9UtilCompareItem item2) {
+		if (differenceLimit > 0 && differencesWritten >= differenceLimit) {
+			differencesSuppressed++;
+			return;
+		}
+
+		differencesWritten++;
+		final String amount = item.getItemAmount() == null ? ""
+				: item.getItemAmount().toPlainString();
+		final String recordNumber1 = item1 == null ? "" : Integer.toString(item1.getRecordNumber());
+		final String recordNumber2 = item2 == null ? "" : Integer.toString(item2.getRecordNumber());
+		try {
+			csvWriter.putFromArray(new String[] { status, item.getItemSequenceNumber(), amount,
+					item.getItemRouting(), recordNumber1, recordNumber2 });
+			diffWriter.write(status + " itemSequenceNumber(" + item.getItemSequenceNumber()
+					+ ") amount(" + amount + ") routing(" + item.getItemRouting()
+					+ ") recordNumber1(" + recordNumber1 + ") recordNumber2(" + recordNumber2
+					+ ")");
+			diffWriter.newLine();
+		} catch (final Exception ex) {
+			throw X9Exception.abort(ex);
+		}
+	}
+
+	/**
+	 * Read all items from an x9 file and pass each to the provided consumer. Each item group is
+	 * digested over the item record, all addenda records, and image payloads.
+	 *
+	 * @param x9file
+	 *            x9 input file
+	 * @param itemConsumer
+	 *            consumer for each item
+	 */
+	private void readItems(final File x9file, final Consumer<X9UtilCompareItem> itemConsumer) {
+		recordNumber = 0;
+		try (final X9FileReader x9fileReader = X9FileReader.getNewChannelReader(x9file);
+				final X9Reader937 x9reader937 = new X9Reader937(sdkBase, x9fileReader)) {
+			X9Object x9o = getNextIncomingRecord(x9reader937);
+			while (x9o != null) {
+				/*
+				 * Advance to the next item when not currently positioned on an item.
+				 */
+				while (x9o != null && !x9o.isItem()) {
+					x9o = getNextIncomingRecord(x9reader937);
+				}
+
+				/*
+				 * Exit when we reach end of file.
+				 */
+				if (x9o == null) {
+					break;
+				}
+
+				/*
+				 * Digest the item record and all records within the item group.
+				 */
+				final X9Object currentItem = x9o;
+				final X9Item937 x9item937 = new X9Item937(x9o, X9Item937.DO_NOT_ATTACH_FROM_HEAP);
+				messageDigest.reset();
+				messageDigest.update(currentItem.x9ObjData);
+				while ((x9o = getNextIncomingRecord(x9reader937)) != null
+						&& isItemGroupRecord(x9o)) {
+					x9item937.populateFieldsByRecordType(x9o);
+					messageDigest.update(x9o.x9ObjData);
+					if (x9o.isRecordType(X9.IMAGE_VIEW_DATA)) {
+						final byte[] imageArray = x9reader937.getImageBuffer();
+						if (imageArray != null) {
+							messageDigest.update(imageArray);
+						}
+					}
+				}
+
+				/*
+				 * Pass this item to the consumer.
+				 */
+				final BigDecimal itemAmount = x9item937.getAmount();
+				itemConsumer.accept(new X9UtilCompareItem(currentItem.x9ObjIdx,
+						currentItem.x9ObjType,
+						X9String.removeLeadingZeroes(x9item937.getItemSequenceNumber()),
+						itemAmount, x9item937.getRouting(), messageDigest.digest()));
+			}
+		} catch (final Exception ex) {
+			throw X9Exception.abort(ex);
+		}
+	}
+
+	/**
+	 * Determine if a record is part of the current item group, which are those records that follow
+	 * the item within the bundle and are not themselves items.
+	 *
+	 * @param x9o
+	 *            current x9object
+	 * @return true or false
+	 */
+	private boolean isItemGroupRecord(final X9Object x9o) {
+		return !x9o.isItem() && x9o.x9ObjType > X9.BUNDLE_HEADER
+				&& x9o.x9ObjType < X9.BUNDLE_TRAILER;
+	}
+
+	/**
+	 * Get the next x9 record from the current file.
+	 *
+	 * @param x9reader937
+	 *            current reader
+	 * @return x9object or null at end of file
+	 */
+	private X9Object getNextIncomingRecord(final X9Reader937 x9reader937) {
+		final X9Object x9o;
+		if (x9reader937.getNext() == null) {
+			x9o = null;
+		} else {
+			recordNumber++;
+			x9o = x9reader937.createNewX9Object(recordNumber);
+		}
+		return x9o;
+	}
+
+}
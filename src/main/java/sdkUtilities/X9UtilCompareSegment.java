@@ -0,0 +1,128 @@
+package sdkUtilities;
+
+import java.security.MessageDigest;
+import java.util.Arrays;
+
+/**
+ * X9UtilCompareSegment defines a single logical segment of an x9 file as identified during a fast
+ * compare pre-pass. A segment is either a bundle (type 20 through type 70) or a run of records which
+ * exist between bundles (file and cash letter headers and trailers). Each segment is assigned a
+ * digest that is accumulated over all record data and image payloads within that segment.
+ *
+ * @author X9Ware LLC. Copyright(c) 2012-2018 X9Ware LLC. All Rights Reserved. This is proprietary
+ *         software as developed and licensed by X9Ware LLC under the exclusive legal right of the
+ *         copyright holder. All licensees are provided the right to use the software only under
+ *         certain conditions, and are specifically restricted from other specific uses including
+ *         modification, sharing, reuse, redistribution, or reverse engineering.
+ */
+public final class X9UtilCompareSegment {
+
+	/*
+	 * Private.
+	 */
+	private final int segmentIndex;
+	private final boolean isBundle;
+	private final int firstRecordNumber;
+	private final MessageDigest messageDigest;
+	private int lastRecordNumber;
+	private byte[] digest;
+
+	/**
+	 * X9UtilCompareSegment Constructor.
+	 *
+	 * @param segment_Index
+	 *            segment index relative to zero
+	 * @param is_Bundle
+	 *            true if this segment is a bundle
+	 * @param first_RecordNumber
+	 *            first record number within this segment
+	 * @param message_Digest
+	 *            message digest used to accumulate this segment
+	 */
+	public X9UtilCompareSegment(final int segment_Index, final boolean is_Bundle,
+			final int first_RecordNumber, final MessageDigest message_Digest) {
+		segmentIndex = segment_Index;
+		isBundle = is_Bundle;
+		firstRecordNumber = first_RecordNumber;
+		lastRecordNumber = first_RecordNumber;
+		messageDigest = message_Digest;
+		messageDigest.reset();
+	}
+
+	/**
+	 * Accumulate the data for another record within this segment.
+	 *
+	 * @param recordNumber
+	 *            record number
+	 * @param dataRecord
+	 *            record data
+	 * @param imageArray
+	 *            image payload or null when not present
+	 */
+	public void accumulate(final int recordNumber, final byte[] dataRecord,
+			final byte[] imageArray) {
+		lastRecordNumber = recordNumber;
+		if (dataRecord != null) {
+			messageDigest.update(dataRecord);
+		}
+		if (imageArray != null) {
+			messageDigest.update(imageArray);
+		}
+	}
+
+	/**
+	 * Finish this segment and assign the final digest.
+	 */
+	public void finish() {
+		digest = messageDigest.digest();
+	}
+
+	/**
+	 * Get the segment index.
+	 *
+	 * @return segment index
+	 */
+	public int getSegmentIndex() {
+		return segmentIndex;
+	}
+
+	/**
+	 * Determine if this segment is a bundle.
+	 *
+	 * @return true or false
+	 */
+	public boolean isBundle() {
+		return isBundle;
+	}
+
+	/**
+	 * Get the first record number within this segment.
+	 *
+	 * @return first record number
+	 */
+	public int getFirstRecordNumber() {
+		return firstRecordNumber;
+	}
+
+	/**
+	 * Get the last record number within this segment.
+	 *
+	 * @return last record number
+	 */
+	public int getLastRecordNumber() {
+		return lastRecordNumber;
+	}
+
+	/**
+	 * Determine if this segment has the same type and digest as another segment.
+	 *
+	 * @param otherSegment
+	 *            other segment
+	 * @return true or false
+	 */
+	public boolean isDigestEqual(final X9UtilCompareSegment otherSegment) {
+		return otherSegment != null && isBundle == otherSegment.isBundle()
+				&& Arrays.equals(digest, otherSegment.digest);
+	}
+
+}
@@ -0,0 +1,88 @@
+package sdkUtilities;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.x9ware.base.X9SdkRoot;
+import com.x9ware.tools.X9Task;
+
+/**
+ * X9UtilConfigLoader defers the loading of the xml configuration files until an sdkBase is first
+ * allocated for a work unit, instead of loading them as part of the batch environment open. This
+ * removes configuration loading from help requests and from command lines that fail validation, and
+ * allows a daemon or batch file environment to be opened without loading configurations until the
+ * first request actually needs them. Configurations are loaded once per JVM and are then shared by
+ * all subsequently allocated sdkBase instances across all threads, which means that each bind is
+ * only a selection of an already loaded configuration. The full set of configurations is still
+ * loaded on the first bind (the sdk does not load a single configuration by name, and both the
+ * -config: switch and X9ConfigSelector select from those already loaded), so any command that binds
+ * is not faster; the saving is limited to help and to command lines that fail validation before an
+ * sdkBase is allocated. The loaded state is reset when the batch environment is closed (since the
+ * sdk shutdown releases the configurations), which allows an sdk application to open the
+ * environment again. Environments that are not opened by X9UtilBatch (for example, an sdk
+ * application which has already loaded its own configurations) are not affected.
+ *
+ * @author X9Ware LLC. Copyright(c) 2012-2018 X9Ware LLC. All Rights Reserved. This is proprietary
+ *         software as developed and licensed by X9Ware LLC under the exclusive legal right of the
+ *         copyright holder. All licensees are provided the right to use the software only under
+ *         certain conditions, and are specifically restricted from other specific uses including
+ *         modification, sharing, reuse, redistribution, or reverse engineering.
+ */
+public final class X9UtilConfigLoader {
+
+	/*
+	 * Private.
+	 */
+	private static volatile boolean isLoadDeferred;
+	private static boolean isLoaded;
+
+	/**
+	 * Logger instance.
+	 */
+	private static final Logger LOGGER = LoggerFactory.getLogger(X9UtilConfigLoader.class);
+
+	/**
+	 * X9UtilConfigLoader Constructor is private (static class).
+	 */
+	private X9UtilConfigLoader() {
+	}
+
+	/**
+	 * Defer the loading of configurations until they are first needed, unless they have already
+	 * been loaded within this JVM.
+	 */
+	public static synchronized void deferLoad() {
+		if (!isLoaded) {
+			isLoadDeferred = true;
+			LOGGER.info("configuration load deferred until first bind");
+		}
+	}
+
+	/**
+	 * Load the configurations when a deferred load is pending. This is invoked for each sdkBase
+	 * allocation and only acquires the lock when the load has not yet been performed.
+	 */
+	public static void loadWhenNeeded() {
+		if (isLoadDeferred) {
+			synchronized (X9UtilConfigLoader.class) {
+				if (isLoadDeferred) {
+					final long startTime = System.currentTimeMillis();
+					X9SdkRoot.loadXmlConfigurationFiles();
+					isLoaded = true;
+					isLoadDeferred = false;
+					LOGGER.info("configurations loaded elapsed({})",
+							X9Task.formatElapsedSeconds(startTime));
+				}
+			}
+		}
+	}
+
+	/**
+	 * Reset the loaded state when the batch environment has been closed.
+	 */
+	public static synchronized void reset() {
+		isLoaded = false;
+		isLoadDeferred = false;
+	}
+
+}
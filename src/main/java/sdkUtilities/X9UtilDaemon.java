@@ -0,0 +1,546 @@
+package sdkUtilities;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.AclEntry;
+import java.nio.file.attribute.AclEntryPermission;
+import java.nio.file.attribute.AclEntryType;
+import java.nio.file.attribute.AclFileAttributeView;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slf4j.MDC;
+
+import com.x9ware.actions.X9Exception;
+import com.x9ware.apacheIO.FilenameUtils;
+import com.x9ware.tools.X9CommandLine;
+import com.x9ware.tools.X9FileUtils;
+import com.x9ware.tools.X9Numeric;
+import com.x9ware.tools.X9Task;
+
+/**
+ * X9UtilDaemon runs x9utilities as a long running service within a single JVM, where the batch
+ * environment (client license and xml configuration files) has been opened once and is then reused
+ * for all subsequent requests. Each request is a complete x9utilities command line, which is
+ * received either over a local (loopback) socket or as a command file that is dropped into a spool
+ * folder. Requests are provided with one command line argument per line, which allows file names to
+ * contain embedded blanks. Socket requests must be authenticated, since any local process can
+ * connect to the loopback port. A random shared secret is generated at startup and written to a
+ * token file which is readable only by the owner (0600 where posix permissions are supported, and
+ * otherwise an access control list which grants access only to the owner), and each socket client
+ * must send that token as its first line. Spooled requests rely instead on the permissions of the
+ * spool folder, which should be writable only by the daemon owner. Requests are executed
+ * concurrently on a bounded pool of threads, and each request is logged with its own request number
+ * (which is also assigned to the logging MDC) and posts its own exit status. Socket clients receive
+ * the exit status as the response line, while spooled requests have their exit status written to a
+ * companion status file. A request that consists solely of "shutdown" will stop the daemon once all
+ * active requests have completed.
+ *
+ * @author X9Ware LLC. Copyright(c) 2012-2018 X9Ware LLC. All Rights Reserved. This is proprietary
+ *         software as developed and licensed by X9Ware LLC under the exclusive legal right of the
+ *         copyright holder. All licensees are provided the right to use the software only under
+ *         certain conditions, and are specifically restricted from other specific uses including
+ *         modification, sharing, reuse, redistribution, or reverse engineering.
+ */
+public final class X9UtilDaemon {
+
+	/*
+	 * Private.
+	 */
+	private final X9UtilBatch x9utilBatch;
+	private final X9UtilWorkUnit workUnit;
+	private final CountDownLatch shutdownLatch = new CountDownLatch(1);
+	private final AtomicInteger requestCounter = new AtomicInteger();
+	private final AtomicInteger requestsAborted = new AtomicInteger();
+	private ExecutorService executorService;
+	private volatile ServerSocket serverSocket;
+	private byte[] socketToken;
+	private File tokenFile;
+
+	/*
+	 * Constants.
+	 */
+	public static final String SWITCH_PORT = "port";
+	public static final String SWITCH_SPOOL = "spool";
+	public static final String SWITCH_TOKEN = "token";
+	public static final String MDC_REQUEST = "x9utilRequest";
+	public static final String SHUTDOWN_REQUEST = "shutdown";
+	public static final String RESPONSE_PREFIX = "exitStatus=";
+	private static final String COMMAND_EXTENSION = "cmd";
+	private static final String RUNNING_EXTENSION = "run";
+	private static final String DONE_EXTENSION = "done";
+	private static final String STATUS_EXTENSION = "status";
+	private static final int SOCKET_BACKLOG = 50;
+	private static final int SOCKET_READ_TIMEOUT = 30000;
+	private static final long SPOOL_POLL_MILLISECONDS = 1000;
+	private static final long SHUTDOWN_WAIT_MINUTES = 60;
+	private static final int TOKEN_BYTES = 32;
+	private static final String TOKEN_FILE_PREFIX = ".x9utilDaemon_";
+	private static final String TOKEN_FILE_SUFFIX = ".token";
+	private static final Set<PosixFilePermission> OWNER_READ_WRITE = PosixFilePermissions
+			.fromString("rw-------");
+
+	/**
+	 * Logger instance.
+	 */
+	private static final Logger LOGGER = LoggerFactory.getLogger(X9UtilDaemon.class);
+
+	/**
+	 * X9UtilDaemon Constructor.
+	 *
+	 * @param x9util_Batch
+	 *            batch environment which has already been opened
+	 * @param work_Unit
+	 *            work unit for the daemon command line
+	 */
+	public X9UtilDaemon(final X9UtilBatch x9util_Batch, final X9UtilWorkUnit work_Unit) {
+		x9utilBatch = x9util_Batch;
+		workUnit = work_Unit;
+	}
+
+	/**
+	 * Run the daemon until a shutdown request has been received.
+	 *
+	 * @return exit status
+	 */
+	public int run() {
+		/*
+		 * Get the socket port and spool folder; at least one of them must be provided.
+		 */
+		final String portValue = workUnit.getCommandSwitchValue(SWITCH_PORT);
+		final int port = StringUtils.isBlank(portValue) ? 0 : X9Numeric.toInt(portValue);
+		if (port < 0 || port > 65535) {
+			throw X9Exception.abort("port({}) invalid", portValue);
+		}
+		final String spoolValue = workUnit.getCommandSwitchValue(SWITCH_SPOOL);
+		final File spoolFolder = StringUtils.isBlank(spoolValue) ? null : new File(spoolValue);
+		if (spoolFolder != null && !spoolFolder.isDirectory()) {
+			throw X9Exception.abort("spool folder not found({})", spoolFolder);
+		}
+		if (spoolFolder != null) {
+			warnWhenSpoolFolderShared(spoolFolder);
+		}
+		if (port == 0 && spoolFolder == null) {
+			throw X9Exception.abort("daemon requires -port: and/or -spool:");
+		}
+
+		/*
+		 * Allocate the bounded pool which runs the requests.
+		 */
+		final int threadCount = Math.max(1, workUnit.getThreadCount());
+		executorService = Executors.newFixedThreadPool(threadCount);
+		LOGGER.info("daemon started threadCount({}) port({}) spoolFolder({})", threadCount, port,
+				spoolFolder);
+
+		try {
+			/*
+			 * Start the socket listener when a port has been assigned.
+			 */
+			if (port > 0) {
+				writeTokenFile(port);
+				serverSocket = new ServerSocket(port, SOCKET_BACKLOG,
+						InetAddress.getLoopbackAddress());
+				final Thread listenerThread = new Thread(this::acceptConnections,
+						"X9UtilDaemonListener");
+				listenerThread.setDaemon(true);
+				listenerThread.start();
+			}
+
+			/*
+			 * Poll the spool folder (or simply wait) until shutdown has been requested.
+			 */
+			while (!shutdownLatch.await(SPOOL_POLL_MILLISECONDS, TimeUnit.MILLISECONDS)) {
+				if (spoolFolder != null) {
+					scheduleSpoolFiles(spoolFolder);
+				}
+			}
+		} catch (final InterruptedException ex) {
+			Thread.currentThread().interrupt();
+		} catch (final IOException ex) {
+			throw X9Exception.abort(ex);
+		} finally {
+			/*
+			 * Stop accepting new requests and wait for active requests to complete.
+			 */
+			closeServerSocket();
+			executorService.shutdown();
+			try {
+				executorService.awaitTermination(SHUTDOWN_WAIT_MINUTES, TimeUnit.MINUTES);
+			} catch (final InterruptedException ex) {
+				Thread.currentThread().interrupt();
+			}
+			deleteTokenFile();
+		}
+
+		/*
+		 * Log completion statistics.
+		 */
+		LOGGER.info("daemon completed requests({}) requestsAborted({})", requestCounter.get(),
+				requestsAborted.get());
+		return X9UtilBatch.EXIT_STATUS_ZERO;
+	}
+
+	/**
+	 * Accept socket connections until the server socket has been closed. Each connection is
+	 * handed to the request pool, which reads the command line and writes the exit status.
+	 */
+	private void acceptConnections() {
+		while (shutdownLatch.getCount() > 0) {
+			try {
+				final Socket socket = serverSocket.accept();
+				try {
+					executorService.execute(() -> processSocketRequest(socket));
+				} catch (final RejectedExecutionException ex) {
+					/*
+					 * The request pool has been shut down after this connection was accepted.
+					 */
+					LOGGER.warn("connection rejected during shutdown");
+					socket.close();
+				}
+			} catch (final SocketException ex) {
+				/*
+				 * The server socket has been closed as part of shutdown.
+				 */
+				break;
+			} catch (final Exception ex) {
+				LOGGER.error("accept exception", ex);
+			}
+		}
+	}
+
+	/**
+	 * Process a single socket request. The first line must be the shared secret from the token
+	 * file, which is required before the request is accepted. The command line arguments are then
+	 * read one per line until an empty line or end of stream, and the exit status is then returned
+	 * as the response.
+	 *
+	 * @param socket
+	 *            connected client socket
+	 */
+	private void processSocketRequest(final Socket socket) {
+		try (final Socket clientSocket = socket;
+				final BufferedReader reader = new BufferedReader(new InputStreamReader(
+						clientSocket.getInputStream(), StandardCharsets.UTF_8));
+				final BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(
+						clientSocket.getOutputStream(), StandardCharsets.UTF_8))) {
+			/*
+			 * Reject the request when the shared secret is not provided.
+			 */
+			clientSocket.setSoTimeout(SOCKET_READ_TIMEOUT);
+			if (!isTokenValid(reader.readLine())) {
+				LOGGER.warn("socket request rejected; invalid token remotePort({})",
+						clientSocket.getPort());
+				writer.write(RESPONSE_PREFIX + X9UtilBatch.EXIT_STATUS_ABORTED);
+				writer.newLine();
+				writer.flush();
+				return;
+			}
+
+			/*
+			 * Read the command line arguments.
+			 */
+			final List<String> args = new ArrayList<>();
+			String line;
+			while ((line = reader.readLine()) != null && StringUtils.isNotEmpty(line)) {
+				args.add(line);
+			}
+
+			/*
+			 * Run the request and respond with the exit status.
+			 */
+			final int exitStatus = executeRequest(args, "socket");
+			writer.write(RESPONSE_PREFIX + exitStatus);
+			writer.newLine();
+			writer.flush();
+		} catch (final Exception ex) {
+			LOGGER.error("socket request exception", ex);
+		}
+	}
+
+	/**
+	 * Schedule all command files which are currently present within the spool folder. Each command
+	 * file is claimed by renaming it before it is scheduled, which ensures it is run only once.
+	 *
+	 * @param spoolFolder
+	 *            spool folder
+	 */
+	private void scheduleSpoolFiles(final File spoolFolder) {
+		final File[] files = spoolFolder.listFiles((dir, name) -> StringUtils
+				.equalsIgnoreCase(FilenameUtils.getExtension(name), COMMAND_EXTENSION));
+		if (files == null || files.length == 0) {
+			return;
+		}
+
+		Arrays.sort(files, Comparator.comparingLong(File::lastModified));
+		for (final File commandFile : files) {
+			final File runningFile = getCompanionFile(commandFile, RUNNING_EXTENSION);
+			if (commandFile.renameTo(runningFile)) {
+				executorService.execute(() -> processSpoolRequest(runningFile));
+			}
+		}
+	}
+
+	/**
+	 * Process a single spooled request. The command line arguments are read one per line from the
+	 * claimed command file, and the exit status is then written to the companion status file.
+	 *
+	 * @param runningFile
+	 *            claimed command file
+	 */
+	private void processSpoolRequest(final File runningFile) {
+		try {
+			/*
+			 * Read the command line arguments.
+			 */
+			final List<String> args = new ArrayList<>();
+			for (final String line : Files.readAllLines(runningFile.toPath(),
+					StandardCharsets.UTF_8)) {
+				if (StringUtils.isNotBlank(line)) {
+					args.add(line.trim());
+				}
+			}
+
+			/*
+			 * Run the request, post the exit status, and then mark the command file as done.
+			 */
+			final int exitStatus = executeRequest(args, runningFile.getName());
+			Files.write(getCompanionFile(runningFile, STATUS_EXTENSION).toPath(),
+					(RESPONSE_PREFIX + exitStatus + System.lineSeparator())
+							.getBytes(StandardCharsets.UTF_8));
+			final File doneFile = getCompanionFile(runningFile, DONE_EXTENSION);
+			if (doneFile.exists()) {
+				X9FileUtils.delete(doneFile);
+			}
+			if (!runningFile.renameTo(doneFile)) {
+				LOGGER.warn("unable to rename runningFile({})", runningFile);
+			}
+		} catch (final Exception ex) {
+			LOGGER.error("spool request exception runningFile({})", runningFile, ex);
+		}
+	}
+
+	/**
+	 * Execute a single request against the shared batch environment. The request number is
+	 * assigned to the logging MDC and the current thread is named for the request number while it
+	 * is active, which identifies all log lines for the request that are written on this thread.
+	 *
+	 * @param args
+	 *            command line arguments
+	 * @param source
+	 *            request source for logging purposes
+	 * @return exit status for this request
+	 */
+	private int executeRequest(final List<String> args, final String source) {
+		/*
+		 * Stop the daemon when this is a shutdown request.
+		 */
+		if (args.size() == 1 && StringUtils.equalsIgnoreCase(args.get(0), SHUTDOWN_REQUEST)) {
+			LOGGER.info("shutdown requested source({})", source);
+			shutdownLatch.countDown();
+			closeServerSocket();
+			return X9UtilBatch.EXIT_STATUS_ZERO;
+		}
+
+		/*
+		 * Run the command line under its own request number.
+		 */
+		final int requestNumber = requestCounter.incrementAndGet();
+		final Thread thread = Thread.currentThread();
+		final String threadName = thread.getName();
+		final String requestName = "request-" + requestNumber;
+		thread.setName(requestName);
+		MDC.put(MDC_REQUEST, requestName);
+		final long startTime = System.currentTimeMillis();
+		int exitStatus = X9UtilBatch.EXIT_STATUS_ABORTED;
+		try {
+			LOGGER.info("requestNumber({}) started source({})", requestNumber, source);
+			if (args.isEmpty()) {
+				exitStatus = X9UtilBatch.EXIT_STATUS_INVALID_FUNCTION;
+			} else {
+				final X9UtilWorkResults workResults = x9utilBatch
+						.execute(new X9CommandLine(args.toArray(new String[args.size()])));
+				exitStatus = workResults.getExitStatus();
+			}
+		} catch (final Throwable t) {
+			LOGGER.error("requestNumber({}) exception", requestNumber, t);
+		} finally {
+			if (exitStatus < 0) {
+				requestsAborted.incrementAndGet();
+			}
+			LOGGER.info("requestNumber({}) completed elapsed({}) exitStatus({})", requestNumber,
+					X9Task.formatElapsedSeconds(startTime), exitStatus);
+			MDC.remove(MDC_REQUEST);
+			thread.setName(threadName);
+		}
+		return exitStatus;
+	}
+
+	/**
+	 * Generate the shared secret for socket requests and write it to the token file, which is
+	 * created so that it can be read only by the owner. The token file defaults to a file within
+	 * the user home folder that is named for the port.
+	 *
+	 * @param port
+	 *            socket port
+	 * @throws IOException
+	 */
+	private void writeTokenFile(final int port) throws IOException {
+		/*
+		 * Generate a new random token for this run.
+		 */
+		final byte[] randomBytes = new byte[TOKEN_BYTES];
+		new SecureRandom().nextBytes(randomBytes);
+		final StringBuilder sb = new StringBuilder(TOKEN_BYTES * 2);
+		for (final byte b : randomBytes) {
+			sb.append(String.format(Locale.ROOT, "%02x", b & 0xff));
+		}
+		final String token = sb.toString();
+		socketToken = token.getBytes(StandardCharsets.UTF_8);
+
+		/*
+		 * Create the token file with owner only permissions before the token is written.
+		 */
+		final String tokenValue = workUnit.getCommandSwitchValue(SWITCH_TOKEN);
+		tokenFile = StringUtils.isBlank(tokenValue)
+				? new File(System.getProperty("user.home"),
+						TOKEN_FILE_PREFIX + port + TOKEN_FILE_SUFFIX)
+				: new File(tokenValue);
+		final Path tokenPath = tokenFile.toPath();
+		Files.deleteIfExists(tokenPath);
+		if (FileSystems.getDefault().supportedFileAttributeViews().contains("posix")) {
+			Files.createFile(tokenPath, PosixFilePermissions.asFileAttribute(OWNER_READ_WRITE));
+		} else {
+			Files.createFile(tokenPath);
+			restrictToOwner(tokenPath);
+		}
+		Files.write(tokenPath, (token + System.lineSeparator()).getBytes(StandardCharsets.UTF_8));
+		LOGGER.info("socket token written tokenFile({})", tokenFile);
+	}
+
+	/**
+	 * Restrict a file to its owner using an access control list, which is used on file systems
+	 * (such as Windows) that do not support posix permissions. All existing entries (including
+	 * those inherited from the folder) are replaced by a single entry for the owner.
+	 *
+	 * @param path
+	 *            file to be restricted
+	 * @throws IOException
+	 */
+	private static void restrictToOwner(final Path path) throws IOException {
+		final AclFileAttributeView aclView = Files.getFileAttributeView(path,
+				AclFileAttributeView.class);
+		if (aclView == null) {
+			throw X9Exception.abort("unable to restrict file({})", path);
+		}
+		final AclEntry ownerEntry = AclEntry.newBuilder().setType(AclEntryType.ALLOW)
+				.setPrincipal(aclView.getOwner())
+				.setPermissions(EnumSet.allOf(AclEntryPermission.class)).build();
+		aclView.setAcl(Collections.singletonList(ownerEntry));
+	}
+
+	/**
+	 * Delete the token file when it has been written.
+	 */
+	private void deleteTokenFile() {
+		if (tokenFile != null && tokenFile.exists() && !X9FileUtils.delete(tokenFile)) {
+			LOGGER.warn("unable to delete tokenFile({})", tokenFile);
+		}
+	}
+
+	/**
+	 * Determine if the token received from a socket client matches our shared secret, using a
+	 * comparison which does not vary in time based on the number of matching characters.
+	 *
+	 * @param token
+	 *            token received from the socket client
+	 * @return true if the token is valid
+	 */
+	private boolean isTokenValid(final String token) {
+		return token != null && socketToken != null && MessageDigest
+				.isEqual(socketToken, token.trim().getBytes(StandardCharsets.UTF_8));
+	}
+
+	/**
+	 * Warn when the spool folder can be written by other users, since any command file that is
+	 * dropped into the spool folder is run under the identity of the daemon.
+	 *
+	 * @param spoolFolder
+	 *            spool folder
+	 */
+	private static void warnWhenSpoolFolderShared(final File spoolFolder) {
+		if (FileSystems.getDefault().supportedFileAttributeViews().contains("posix")) {
+			try {
+				final Set<PosixFilePermission> permissions = Files
+						.getPosixFilePermissions(spoolFolder.toPath());
+				if (permissions.contains(PosixFilePermission.GROUP_WRITE)
+						|| permissions.contains(PosixFilePermission.OTHERS_WRITE)) {
+					LOGGER.warn("spool folder is writable by other users spoolFolder({}) "
+							+ "permissions({})", spoolFolder,
+							PosixFilePermissions.toString(permissions));
+				}
+			} catch (final IOException ex) {
+				LOGGER.warn("spool folder permissions not available({})", spoolFolder, ex);
+			}
+		}
+	}
+
+	/**
+	 * Close the server socket when it is open, which stops the listener thread.
+	 */
+	private synchronized void closeServerSocket() {
+		if (serverSocket != null && !serverSocket.isClosed()) {
+			try {
+				serverSocket.close();
+			} catch (final IOException ex) {
+				LOGGER.warn("server socket close exception", ex);
+			}
+		}
+	}
+
+	/**
+	 * Get a companion file within the spool folder which has the same base name as the command
+	 * file but with a different extension.
+	 *
+	 * @param file
+	 *            spool file
+	 * @param extension
+	 *            companion file extension
+	 * @return companion file
+	 */
+	private static File getCompanionFile(final File file, final String extension) {
+		return new File(file.getParentFile(),
+				FilenameUtils.getBaseName(file.getName()) + "." + extension);
+	}
+
+}
@@ -1,14 +1,27 @@
 package sdkUtilities;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
 import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Locale;
+import java.util.Set;
 
 import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.x9ware.actions.X9Exception;
+import com.x9ware.apacheIO.FilenameUtils;
 import com.x9ware.base.X9Object;
 import com.x9ware.base.X9Sdk;
 import com.x9ware.base.X9SdkBase;
@@ -52,6 +65,11 @@ public final class X9UtilExport implements X9ExportInterface {
 	 */
 	private final X9UtilWorkUnit workUnit;
 
+	/**
+	 * X9UtilMetrics instance which is shared by all threads of this work unit.
+	 */
+	private final X9UtilMetrics metrics;
+
 	/*
 	 * Private.
 	 */
@@ -63,6 +81,7 @@ public final class X9UtilExport implements X9ExportInterface {
 	private final boolean isXmlExport;
 	private final boolean isXmlFlat;
 	private final boolean isXmlHierarchical;
+	private final boolean isXmlStream;
 	private final boolean isMultiFile;
 	private final boolean isCsvExport;
 	private final boolean isItemExport;
@@ -86,6 +105,13 @@ public final class X9UtilExport implements X9ExportInterface {
 	private File inputFile;
 	private File outputFile;
 	private File baseImageFolder;
+	private boolean isImageExportSelected;
+
+	/*
+	 * Constants.
+	 */
+	private static final String FRAGMENT_SUFFIX = ".fragment";
+	private static final int FRAGMENT_BUFFER_SIZE = 64 * 1024;
 
 	/**
 	 * Decimal formatter.
@@ -103,11 +129,26 @@ public final class X9UtilExport implements X9ExportInterface {
 	 * @param work_Unit current work unit
 	 */
 	public X9UtilExport(final X9UtilWorkUnit work_Unit) {
+		this(work_Unit, work_Unit.getNewSdkBase());
+	}
+
+	/**
+	 * X9UtilExport Constructor using an sdkBase which has already been bound to the x9
+	 * configuration, as used for concurrent multi-file export where the sdkBase is reused across
+	 * files.
+	 *
+	 * @param work_Unit
+	 *            current work unit
+	 * @param sdk_Base
+	 *            current sdkBase
+	 */
+	public X9UtilExport(final X9UtilWorkUnit work_Unit, final X9SdkBase sdk_Base) {
 		/*
 		 * Get switch values.
 		 */
 		workUnit = work_Unit;
-		sdkBase = workUnit.getNewSdkBase();
+		metrics = workUnit.getMetrics();
+		sdkBase = sdk_Base;
 		inputExtensions = workUnit.getCommandSwitchValue(X9UtilWorkUnit.SWITCH_EXTENSION_INPUT);
 		selectedRecordTypes = workUnit.getCommandSwitchValue(X9UtilWorkUnit.SWITCH_RECORD_TYPES);
 		isLoggingEnabled = workUnit.isCommandSwitchSet(X9UtilWorkUnit.SWITCH_LOGGING);
@@ -122,6 +163,7 @@ public final class X9UtilExport implements X9ExportInterface {
 		isXmlHierarchical = workUnit
 				.isCommandSwitchSet(X9UtilWorkUnit.SWITCH_XML_EXPORT_HIERARCHICAL);
 		isXmlExport = isXmlFlat || isXmlHierarchical;
+		isXmlStream = workUnit.isCommandSwitchSet(X9UtilWorkUnit.SWITCH_XML_EXPORT_STREAM);
 		isMultiFile = workUnit.isCommandSwitchSet(X9UtilWorkUnit.SWITCH_MULTI_FILE);
 		isCsvExport = workUnit.isCommandSwitchSet(X9UtilWorkUnit.SWITCH_CSV_EXPORT)
 				|| (!isItemExport && !isGroupExport && !isTiffTagExport);
@@ -161,6 +203,13 @@ public final class X9UtilExport implements X9ExportInterface {
 			throw X9Exception.abort("multiple export formats");
 		}
 
+		/*
+		 * Ensure that streaming is only requested for an xml export.
+		 */
+		if (isXmlStream && !isXmlExport) {
+			throw X9Exception.abort("streaming xml (xmls) requires xml export (xmlf or xmlh)");
+		}
+
 		/*
 		 * Ensure that we have input file extensions for multi-export.
 		 */
@@ -192,41 +241,7 @@ public final class X9UtilExport implements X9ExportInterface {
 		/*
 		 * Get the record types which are user selected and otherwise default to all.
 		 */
-		if (StringUtils.isBlank(selectedRecordTypes)
-				|| StringUtils.equals(selectedRecordTypes, "all")) {
-			/*
-			 * Select all record types.
-			 */
-			Arrays.fill(isRecordTypeSelected, true);
-		} else if (StringUtils.equals(selectedRecordTypes, "items")) {
-			/*
-			 * Select only item records (as a convenience) when generically identified. This can be
-			 * helpful when users are exporting against a very large number of files. In that case,
-			 * dropping the header and trailer records can reduce the size of the output file.
-			 */
-			for (int rt = 0, n = isRecordTypeSelected.length; rt < n; rt++) {
-				final boolean isItemRecord = (rt >= X9.CHECK_DETAIL && rt <= X9.IMAGE_VIEW_DATA)
-						|| rt == X9.CREDIT || rt == X9.CREDIT_RECONCILIATION;
-				isRecordTypeSelected[rt] = isItemRecord;
-			}
-		} else {
-			/*
-			 * Set selected record types.
-			 */
-			final String[] recordTypes = StringUtils.split(selectedRecordTypes, '|');
-			for (final String rt : recordTypes) {
-				if (StringUtils.isNumeric(rt)) {
-					final int type = X9Numeric.toInt(rt);
-					if (type >= 1 && type <= X9.HIGHEST_RECORD_TYPE) {
-						isRecordTypeSelected[type] = true;
-					} else {
-						throw X9Exception.abort("recordType({}) out of bounds", type);
-					}
-				} else {
-					throw X9Exception.abort("recordType({}) not numeric", rt);
-				}
-			}
-		}
+		setSelectedRecordTypes();
 
 		/*
 		 * Create an sdk instance and then bind to an x9 configuration.
@@ -240,6 +255,11 @@ public final class X9UtilExport implements X9ExportInterface {
 		X9ExportTotals x9exportTotals = null;
 		final X9TotalsXml x9totalsXml = new X9TotalsXml();
 		try {
+			/*
+			 * The sdk performs the reading, parsing, and writing for the export, which is timed
+			 * here as a single stage.
+			 */
+			final long stageTimer = metrics.startTimer();
 			if (isMultiFile) {
 				/*
 				 * Export from multiple x9 files to a single csv with optional image folder.
@@ -256,20 +276,34 @@ public final class X9UtilExport implements X9ExportInterface {
 				final long totalByteCount = X9FileUtils.calculateTotalBytes(fileList);
 
 				/*
-				 * Run the multi-export to csv with optional images.
+				 * Run the multi-export to csv with optional images. This is done concurrently
+				 * only when explicitly requested by the threads switch, and otherwise remains
+				 * a sequential export using the sdk.
 				 */
-				final X9ExportMulti x9exportMulti = new X9ExportMulti(sdkBase, this);
-				x9exportMulti.setLoggingEnabled(isLoggingEnabled);
-				x9exportTotals = x9exportMulti.export(fileList, outputFile, baseImageFolder,
-						totalByteCount);
+				if (isConcurrentExport(fileList)) {
+					x9exportTotals = exportConcurrently(fileList, workUnit.getThreadCount());
+				} else {
+					final X9ExportMulti x9exportMulti = new X9ExportMulti(sdkBase, this);
+					x9exportMulti.setLoggingEnabled(isLoggingEnabled);
+					x9exportTotals = x9exportMulti.export(fileList, outputFile, baseImageFolder,
+							totalByteCount);
+				}
 			} else if (isXmlExport) {
 				/*
-				 * Export from x9 to xml with optional images.
+				 * Export from x9 to xml with optional images, using our streaming xml format when
+				 * requested.
 				 */
-				final X9ExportToXml x9exportToXml = new X9ExportToXml(sdkBase, this);
-				x9exportToXml.setLoggingEnabled(isLoggingEnabled);
-				x9exportTotals = x9exportToXml.exportFromFile(inputFile, outputFile,
-						baseImageFolder);
+				if (isXmlStream) {
+					final X9UtilExportXml x9utilExportXml = new X9UtilExportXml(sdkBase, this);
+					x9utilExportXml.setLoggingEnabled(isLoggingEnabled);
+					x9exportTotals = x9utilExportXml.exportFromFile(inputFile, outputFile,
+							baseImageFolder);
+				} else {
+					final X9ExportToXml x9exportToXml = new X9ExportToXml(sdkBase, this);
+					x9exportToXml.setLoggingEnabled(isLoggingEnabled);
+					x9exportTotals = x9exportToXml.exportFromFile(inputFile, outputFile,
+							baseImageFolder);
+				}
 			} else {
 				/*
 				 * Export from a single x9 to csv with optional images.
@@ -282,6 +316,7 @@ public final class X9UtilExport implements X9ExportInterface {
 					throw X9Exception.abort(ex);
 				}
 			}
+			metrics.recordLatency(X9UtilMetrics.STAGE_EXPORT, stageTimer);
 
 			/*
 			 * Abort when there was no input and awe (abort when empty) was enabled.
@@ -361,6 +396,273 @@ public final class X9UtilExport implements X9ExportInterface {
 		return X9UtilBatch.EXIT_STATUS_ZERO;
 	}
 
+	/**
+	 * Export a single x9 file as part of a concurrent multi-file export, where the csv is written
+	 * to the fragment file for the entry and results are posted to the entry. This method is
+	 * invoked from a worker thread and uses an sdkBase which has already been bound to the x9
+	 * configuration. Images are written to the per file subfolder that is created within the image
+	 * folder, exactly as for a sequential multi-file export.
+	 *
+	 * @param exportEntry
+	 *            export entry for the file to be exported
+	 */
+	public void exportToEntry(final X9UtilExportEntry exportEntry) {
+		/*
+		 * Get the files for this entry. Column headings are written to every fragment, and are
+		 * then retained only from the first fragment which is appended to the output csv.
+		 */
+		inputFile = exportEntry.getInputFile();
+		baseImageFolder = workUnit.imageFolder;
+		setSelectedRecordTypes();
+
+		/*
+		 * Export from this x9 file to the csv fragment with optional images.
+		 */
+		sdk = X9SdkFactory.getSdk(sdkBase);
+		final X9ExportTotals x9exportTotals;
+		try (final X9CsvWriter csvWriter = new X9CsvWriter(exportEntry.getFragmentFile());
+				final X9ExportFile x9exportFile = new X9ExportFile(sdk, csvWriter, this)) {
+			x9exportFile.setLoggingEnabled(isLoggingEnabled);
+			x9exportTotals = x9exportFile.exportFromFile(inputFile, baseImageFolder);
+		} catch (final Exception ex) {
+			throw X9Exception.abort(ex);
+		}
+
+		/*
+		 * Post our results to the entry.
+		 */
+		if (x9exportTotals == null) {
+			throw X9Exception.abort("export totals not available for file({})", inputFile);
+		}
+		exportEntry.setResults(x9exportTotals);
+		LOGGER.info("file({}) exported; inputRecords({}) outputCount({}) images({})", inputFile,
+				x9exportTotals.inputCount, x9exportTotals.outputCount, x9exportTotals.imageCount);
+	}
+
+	/**
+	 * Determine if a multi-file export should be run concurrently. This must be explicitly
+	 * requested using the threads switch, since the sequential sdk export otherwise remains our
+	 * default. Each file is then exported by X9ExportFile against the same base image folder as for
+	 * X9ExportMulti, where the sdk creates a subfolder for each input file that in turn contains a
+	 * subfolder for each bundle. Files with the same base name (from different input subfolders)
+	 * would be written to the same image subfolder, which is sequential when run by X9ExportMulti
+	 * but would be interleaved here, so those exports also remain sequential.
+	 *
+	 * @param fileList
+	 *            list of files to be exported
+	 * @return true if the export is to be run concurrently
+	 */
+	private boolean isConcurrentExport(final List<X9File> fileList) {
+		/*
+		 * Run sequentially unless the threads switch is present and allows multiple threads.
+		 */
+		if (!workUnit.isCommandSwitchSet(X9UtilWorkUnit.SWITCH_THREADS)
+				|| workUnit.getThreadCount() <= 1) {
+			return false;
+		}
+
+		/*
+		 * Run sequentially when images are exported and image subfolders would be shared.
+		 */
+		if (isImageExportSelected) {
+			final Set<String> baseNames = new HashSet<>();
+			for (final File file : fileList) {
+				final String baseName = FilenameUtils.getBaseName(file.getName());
+				if (!baseNames.add(baseName.toLowerCase(Locale.ROOT))) {
+					LOGGER.info("concurrent export bypassed; duplicate baseName({})", baseName);
+					return false;
+				}
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Export all files concurrently, where each file is exported by a worker task to its own csv
+	 * fragment. The fragments are then appended to the output csv in the original file list
+	 * sequence, which produces the same output as a sequential multi-file export.
+	 *
+	 * @param fileList
+	 *            list of files to be exported
+	 * @param maximumThreadCount
+	 *            maximum thread count
+	 * @return accumulated export totals across all files
+	 */
+	private X9ExportTotals exportConcurrently(final List<X9File> fileList,
+			final int maximumThreadCount) {
+		/*
+		 * Create an entry for each file, with the csv fragments allocated alongside the output.
+		 */
+		final List<X9UtilExportEntry> entryList = new ArrayList<>(fileList.size());
+		for (int i = 0, n = fileList.size(); i < n; i++) {
+			final File fragmentFile = new File(outputFile.toString() + "." + (i + 1)
+					+ FRAGMENT_SUFFIX);
+			entryList.add(new X9UtilExportEntry(fileList.get(i), fragmentFile));
+		}
+
+		/*
+		 * Export all files using our task monitor and then append the fragments to our output.
+		 */
+		LOGGER.info("concurrent multi-file export started; fileCount({}) maximumThreadCount({})",
+				entryList.size(), maximumThreadCount);
+		try {
+			X9UtilMultiFileMonitor.runAllEntries(workUnit, entryList, maximumThreadCount,
+					ExportTask::new);
+			return appendFragments(entryList);
+		} finally {
+			/*
+			 * Delete all fragments, including those which were left behind by aborted files.
+			 */
+			for (final X9UtilExportEntry entry : entryList) {
+				try {
+					Files.deleteIfExists(entry.getFragmentFile().toPath());
+				} catch (final Exception ex) {
+					LOGGER.warn("fragment({}) not deleted", entry.getFragmentFile(), ex);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Append the csv fragments to the output csv in the original file list sequence and accumulate
+	 * the export totals across all files. Fragments for aborted files are not appended and the
+	 * export is then aborted, after all other fragments have been written to the output. Column
+	 * headings are taken from the first fragment that is appended, which is independent of which
+	 * files have aborted, and are skipped for all subsequent fragments.
+	 *
+	 * @param entryList
+	 *            list of exported entries in file list sequence
+	 * @return accumulated export totals
+	 */
+	private X9ExportTotals appendFragments(final List<X9UtilExportEntry> entryList) {
+		final X9ExportTotals x9exportTotals = new X9ExportTotals();
+		int filesAborted = 0;
+		boolean isFirstFragment = true;
+		try (final OutputStream outputStream = new BufferedOutputStream(
+				new FileOutputStream(outputFile))) {
+			for (final X9UtilExportEntry entry : entryList) {
+				if (entry.isAborted()) {
+					filesAborted++;
+					LOGGER.error("file({}) aborted({})", entry.getInputFile(),
+							entry.getAbortMessage());
+				} else {
+					/*
+					 * Append this fragment and accumulate its totals.
+					 */
+					appendFragment(entry.getFragmentFile(), outputStream,
+							isItemExportWithColumnHeaders && !isFirstFragment);
+					isFirstFragment = false;
+					final X9ExportTotals fileTotals = entry.getExportTotals();
+					x9exportTotals.inputCount += fileTotals.inputCount;
+					x9exportTotals.outputCount += fileTotals.outputCount;
+					x9exportTotals.debitCount += fileTotals.debitCount;
+					x9exportTotals.debitAmount = x9exportTotals.debitAmount
+							.add(fileTotals.debitAmount);
+					x9exportTotals.creditCount += fileTotals.creditCount;
+					x9exportTotals.creditAmount = x9exportTotals.creditAmount
+							.add(fileTotals.creditAmount);
+					x9exportTotals.imageCount += fileTotals.imageCount;
+				}
+			}
+		} catch (final Exception ex) {
+			throw X9Exception.abort(ex);
+		}
+
+		/*
+		 * Abort when any files could not be exported.
+		 */
+		LOGGER.info("concurrent multi-file export finished; files({}) filesAborted({})",
+				entryList.size(), filesAborted);
+		if (filesAborted > 0) {
+			throw X9Exception.abort("multi-file export filesAborted({})", filesAborted);
+		}
+		return x9exportTotals;
+	}
+
+	/**
+	 * Append a single csv fragment to the output csv, optionally skipping its first row.
+	 *
+	 * @param fragmentFile
+	 *            csv fragment file
+	 * @param outputStream
+	 *            output csv stream
+	 * @param isFirstRowSkipped
+	 *            true if the first row (column headings) is to be skipped
+	 * @throws IOException
+	 */
+	private static void appendFragment(final File fragmentFile, final OutputStream outputStream,
+			final boolean isFirstRowSkipped) throws IOException {
+		try (final InputStream inputStream = new BufferedInputStream(
+				new FileInputStream(fragmentFile))) {
+			if (isFirstRowSkipped) {
+				int nextByte = inputStream.read();
+				while (nextByte >= 0 && nextByte != '\n') {
+					nextByte = inputStream.read();
+				}
+			}
+			final byte[] buffer = new byte[FRAGMENT_BUFFER_SIZE];
+			int length;
+			while ((length = inputStream.read(buffer)) > 0) {
+				outputStream.write(buffer, 0, length);
+			}
+		}
+	}
+
+	/**
+	 * Set the record types which are user selected and otherwise default to all.
+	 */
+	private void setSelectedRecordTypes() {
+		if (StringUtils.isBlank(selectedRecordTypes)
+				|| StringUtils.equals(selectedRecordTypes, "all")) {
+			/*
+			 * Select all record types.
+			 */
+			Arrays.fill(isRecordTypeSelected, true);
+		} else if (StringUtils.equals(selectedRecordTypes, "items")) {
+			/*
+			 * Select only item records (as a convenience) when generically identified. This can be
+			 * helpful when users are exporting against a very large number of files. In that case,
+			 * dropping the header and trailer records can reduce the size of the output file.
+			 */
+			for (int rt = 0, n = isRecordTypeSelected.length; rt < n; rt++) {
+				final boolean isItemRecord = (rt >= X9.CHECK_DETAIL && rt <= X9.IMAGE_VIEW_DATA)
+						|| rt == X9.CREDIT || rt == X9.CREDIT_RECONCILIATION;
+				isRecordTypeSelected[rt] = isItemRecord;
+			}
+		} else {
+			/*
+			 * Set selected record types.
+			 */
+			final String[] recordTypes = StringUtils.split(selectedRecordTypes, '|');
+			for (final String rt : recordTypes) {
+				if (StringUtils.isNumeric(rt)) {
+					final int type = X9Numeric.toInt(rt);
+					if (type >= 1 && type <= X9.HIGHEST_RECORD_TYPE) {
+						isRecordTypeSelected[type] = true;
+					} else {
+						throw X9Exception.abort("recordType({}) out of bounds", type);
+					}
+				} else {
+					throw X9Exception.abort("recordType({}) not numeric", rt);
+				}
+			}
+		}
+
+		/*
+		 * Images are only exported when the image view data record is selected, since the image
+		 * file names (or embedded base64 images) are otherwise never written to the output. This
+		 * allows the sdk to bypass image extraction, conversion, and writing entirely for exports
+		 * that are limited to other record types. Item export and tiff tag export are excluded,
+		 * since they reference images from the item rows and not from the type 52 records.
+		 */
+		isImageExportSelected = isImageExport && (isItemExport || isTiffTagExport
+				|| isRecordTypeSelected[X9.IMAGE_VIEW_DATA]);
+		if (isImageExport && !isImageExportSelected) {
+			LOGGER.info("image export bypassed since recordType({}) not selected",
+					X9.IMAGE_VIEW_DATA);
+		}
+	}
+
 	@Override
 	public boolean isConfigAuto() {
 		return workUnit.isBindConfigurationAuto();
@@ -368,8 +670,21 @@ public final class X9UtilExport implements X9ExportInterface {
 
 	@Override
 	public boolean isRecordSelected(final X9Object x9o) {
-		final int recordType = x9o.x9ObjType;
-		return recordType < isRecordTypeSelected.length ? isRecordTypeSelected[recordType] : false;
+		return isRecordTypeSelected(x9o.x9ObjType);
+	}
+
+	/**
+	 * Determine if a record type has been selected for export, which allows a record to be
+	 * bypassed before an x9object has been created.
+	 *
+	 * @param recordType
+	 *            record type
+	 * @return true if selected otherwise false
+	 */
+	public boolean isRecordTypeSelected(final int recordType) {
+		return recordType >= 0 && recordType < isRecordTypeSelected.length
+				? isRecordTypeSelected[recordType]
+				: false;
 	}
 
 	@Override
@@ -394,7 +709,7 @@ public final class X9UtilExport implements X9ExportInterface {
 
 	@Override
 	public boolean isImageExport() {
-		return isImageExport;
+		return isImageExportSelected;
 	}
 
 	@Override
@@ -499,4 +814,43 @@ public final class X9UtilExport implements X9ExportInterface {
 		return isDecimalPointsInAmounts;
 	}
 
+	/**
+	 * ExportTask exports a series of files as initiated from a worker task. Each worker allocates
+	 * and binds its own sdkBase, which is then reused for all files that are assigned to that
+	 * worker.
+	 */
+	private final class ExportTask implements X9UtilMultiFileTask<X9UtilExportEntry> {
+
+		/*
+		 * Private.
+		 */
+		private final X9SdkBase workerSdkBase = workUnit.getNewSdkBase();
+		private boolean isConfigurationBound;
+
+		@Override
+		public boolean processEntry(final X9UtilExportEntry entry) {
+			/*
+			 * Bind once for this worker; auto bind is otherwise applied by the export itself.
+			 */
+			if (!isConfigurationBound) {
+				workUnit.bindToCommandLineConfiguration(workerSdkBase);
+				isConfigurationBound = true;
+			}
+
+			/*
+			 * Export using our bound sdkBase.
+			 */
+			final X9UtilExport x9utilExport = new X9UtilExport(workUnit, workerSdkBase);
+			x9utilExport.exportToEntry(entry);
+			return true;
+		}
+
+		@Override
+		public void abortEntry(final X9UtilExportEntry entry, final Exception ex) {
+			entry.setAborted(ex.toString());
+			LOGGER.error("file({}) exception", entry.getInputFile(), ex);
+		}
+
+	}
+
 }
@@ -65,6 +65,11 @@ public final class X9UtilExportCsv {
 	 */
 	private final X9UtilWorkUnit workUnit;
 
+	/**
+	 * X9UtilMetrics instance which is shared by all threads of this work unit.
+	 */
+	private final X9UtilMetrics metrics;
+
 	/*
 	 * Private.
 	 */
@@ -98,6 +103,7 @@ public final class X9UtilExportCsv {
 	 */
 	public X9UtilExportCsv(final X9UtilWorkUnit work_Unit) {
 		workUnit = work_Unit;
+		metrics = workUnit.getMetrics();
 		sdkBase = workUnit.getNewSdkBase();
 		x9trailerManager = new X9TrailerManager937(sdkBase); // accumulate input file totals
 		isLoggingEnabled = workUnit.isCommandSwitchSet(X9UtilWorkUnit.SWITCH_LOGGING);
@@ -827,6 +833,7 @@ public final class X9UtilExportCsv {
 				 * Store all x9objects on the heap.
 				 */
 				recordCount++;
+				metrics.recordRead(sdkObject.getDataByteArray());
 				final X9Object x9o = sdkIO.createAndStoreX9Object();
 
 				if (x9o.isItem()) {
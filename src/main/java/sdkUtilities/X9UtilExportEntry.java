@@ -0,0 +1,110 @@
+package sdkUtilities;
+
+import java.io.File;
+
+import com.x9ware.export.X9ExportTotals;
+
+/**
+ * X9UtilExportEntry defines a single x9 file to be exported as part of a concurrent multi-file
+ * export, along with the results of that export as posted by the worker task. Each file is
+ * exported to its own csv fragment, which allows the fragments to be appended to the output csv in
+ * the original file list sequence once all concurrent exports have completed.
+ *
+ * @author X9Ware LLC. Copyright(c) 2012-2018 X9Ware LLC. All Rights Reserved. This is proprietary
+ *         software as developed and licensed by X9Ware LLC under the exclusive legal right of the
+ *         copyright holder. All licensees are provided the right to use the software only under
+ *         certain conditions, and are specifically restricted from other specific uses including
+ *         modification, sharing, reuse, redistribution, or reverse engineering.
+ */
+public final class X9UtilExportEntry {
+
+	/*
+	 * Private.
+	 */
+	private final File inputFile;
+	private final File fragmentFile;
+	private X9ExportTotals exportTotals;
+	private String abortMessage = "";
+	private int exitStatus = X9UtilBatch.EXIT_STATUS_ABORTED;
+
+	/**
+	 * X9UtilExportEntry Constructor.
+	 *
+	 * @param input_File
+	 *            x9 input file
+	 * @param fragment_File
+	 *            csv fragment file
+	 */
+	public X9UtilExportEntry(final File input_File, final File fragment_File) {
+		inputFile = input_File;
+		fragmentFile = fragment_File;
+	}
+
+	/**
+	 * Get the x9 input file.
+	 *
+	 * @return input file
+	 */
+	public File getInputFile() {
+		return inputFile;
+	}
+
+	/**
+	 * Get the csv fragment file.
+	 *
+	 * @return fragment file
+	 */
+	public File getFragmentFile() {
+		return fragmentFile;
+	}
+
+	/**
+	 * Set the export results for this file.
+	 *
+	 * @param export_Totals
+	 *            export totals
+	 */
+	public void setResults(final X9ExportTotals export_Totals) {
+		exportTotals = export_Totals;
+		exitStatus = X9UtilBatch.EXIT_STATUS_ZERO;
+	}
+
+	/**
+	 * Mark this file as aborted.
+	 *
+	 * @param abort_Message
+	 *            abort message
+	 */
+	public void setAborted(final String abort_Message) {
+		abortMessage = abort_Message;
+		exitStatus = X9UtilBatch.EXIT_STATUS_ABORTED;
+	}
+
+	/**
+	 * Determine if export was aborted for this file.
+	 *
+	 * @return true or false
+	 */
+	public boolean isAborted() {
+		return exitStatus < 0;
+	}
+
+	/**
+	 * Get the abort message.
+	 *
+	 * @return abort message
+	 */
+	public String getAbortMessage() {
+		return abortMessage;
+	}
+
+	/**
+	 * Get the export totals.
+	 *
+	 * @return export totals or null when not available
+	 */
+	public X9ExportTotals getExportTotals() {
+		return exportTotals;
+	}
+
+}
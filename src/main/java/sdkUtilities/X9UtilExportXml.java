@@ -0,0 +1,627 @@
+package sdkUtilities;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Base64;
+
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.x9ware.actions.X9Exception;
+import com.x9ware.apacheIO.FilenameUtils;
+import com.x9ware.base.X9FileReader;
+import com.x9ware.base.X9Object;
+import com.x9ware.base.X9Sdk;
+import com.x9ware.base.X9SdkBase;
+import com.x9ware.base.X9SdkFactory;
+import com.x9ware.base.X9SdkIO;
+import com.x9ware.base.X9SdkObject;
+import com.x9ware.config.X9ConfigSelector;
+import com.x9ware.core.X9;
+import com.x9ware.core.X9Reader;
+import com.x9ware.elements.X9C;
+import com.x9ware.export.X9ExportImages;
+import com.x9ware.export.X9ExportTotals;
+import com.x9ware.fields.X9Field;
+import com.x9ware.fields.X9Walk;
+import com.x9ware.tools.X9Decimal;
+import com.x9ware.tools.X9FileIO;
+import com.x9ware.tools.X9FileUtils;
+import com.x9ware.tools.X9Folder;
+import com.x9ware.types.X9Type25;
+import com.x9ware.types.X9Type31;
+import com.x9ware.types.X9Type61;
+import com.x9ware.types.X9Type62;
+
+/**
+ * X9UtilExportXml exports an x9 file to our streaming xml format using a StAX writer. This is a
+ * separate document format from that which is written by X9ExportToXml: the root element is
+ * x9stream, each record is written as a record element with its type and record number, and each
+ * field is written as a field element with its index and name. The flat (xmlf) and hierarchical
+ * (xmlh) switches determine whether cash letter, bundle, and item elements are opened and closed
+ * from the header and trailer records, and the selection is identified by the format attribute of
+ * the root element. The input file is read as a stream and each record is written as it is read,
+ * so memory is independent of the file size. Images that are embedded as base64 (i64 or i64mime)
+ * are encoded and written in fixed size chunks, so an encoded image is never held as a string.
+ * Field values can contain control characters which are not allowed in xml 1.0, and each of those
+ * is replaced with a space so the document remains well formed.
+ * Images that are exported to the image folder are written in their native tif format to a bundle
+ * subfolder within a subfolder for the input file, where relative image names (ir) are relative to
+ * the folder of the xml output file. Record and image selection is taken from X9UtilExport, which
+ * implements the same export interface that is otherwise used to direct X9ExportToXml. Records
+ * whose type is not selected are bypassed as soon as they are read, before an x9object has been
+ * created, unless they are headers, trailers, or items that are needed for the hierarchical
+ * elements and the export totals.
+ *
+ * @author X9Ware LLC. Copyright(c) 2012-2018 X9Ware LLC. All Rights Reserved. This is proprietary
+ *         software as developed and licensed by X9Ware LLC under the exclusive legal right of the
+ *         copyright holder. All licensees are provided the right to use the software only under
+ *         certain conditions, and are specifically restricted from other specific uses including
+ *         modification, sharing, reuse, redistribution, or reverse engineering.
+ */
+public final class X9UtilExportXml {
+
+	/*
+	 * Private.
+	 */
+	private final X9SdkBase sdkBase;
+	private final X9UtilExport x9utilExport;
+	private final X9Walk x9walk;
+	private final boolean isHierarchical;
+	private final boolean isIncludeEmptyFields;
+	private final boolean isImageExport;
+	private final char imageExportDirective;
+	private final X9ExportTotals x9exportTotals = new X9ExportTotals();
+	private XMLStreamWriter xmlWriter;
+	private File xmlFolder;
+	private File fileImageFolder;
+	private boolean isLoggingEnabled;
+	private int depth;
+	private int recordNumber;
+	private int bundleRecordNumber;
+	private boolean isCashLetterOpen;
+	private boolean isBundleOpen;
+	private boolean isItemOpen;
+
+	/*
+	 * Constants.
+	 */
+	private static final String ENCODING = StandardCharsets.UTF_8.name();
+	private static final String X9STREAM = "x9stream";
+	private static final String CASH_LETTER = "cashLetter";
+	private static final String BUNDLE = "bundle";
+	private static final String ITEM = "item";
+	private static final String RECORD = "record";
+	private static final String FIELD = "field";
+	private static final String IMAGE = "image";
+	private static final String NEW_LINE = "\n";
+	private static final String INDENT = "\t";
+	private static final String MIME_LINE_SEPARATOR = "\r\n";
+	private static final int BASE64_CHUNK_BYTES = 3 * 1024;
+	private static final int MIME_LINE_BYTES = 57;
+	private static final char XML_REPLACEMENT_CHARACTER = ' ';
+
+	/**
+	 * Logger instance.
+	 */
+	private static final Logger LOGGER = LoggerFactory.getLogger(X9UtilExportXml.class);
+
+	/**
+	 * X9UtilExportXml Constructor.
+	 *
+	 * @param sdk_Base
+	 *            sdkBase which has been bound to the x9 configuration
+	 * @param x9util_Export
+	 *            export instance which directs record and image selection
+	 */
+	public X9UtilExportXml(final X9SdkBase sdk_Base, final X9UtilExport x9util_Export) {
+		sdkBase = sdk_Base;
+		x9utilExport = x9util_Export;
+		x9walk = new X9Walk(sdkBase);
+		isHierarchical = x9utilExport.isXmlFormatHierarchical();
+		isIncludeEmptyFields = x9utilExport.isXmlIncludeEmptyFields();
+		isImageExport = x9utilExport.isImageExport();
+		imageExportDirective = x9utilExport.getImageExportDirective();
+
+		/*
+		 * Images are written as they exist within the x9 file, without conversion.
+		 */
+		if (isImageExport && !isImageBase64()
+				&& !StringUtils.equals(x9utilExport.getImageExportFormat(), X9C.TIF)) {
+			throw X9Exception.abort("streaming xml export does not support imageFormat({})",
+					x9utilExport.getImageExportFormat());
+		}
+	}
+
+	/**
+	 * Set logging enabled.
+	 *
+	 * @param isLogging_Enabled
+	 *            true if each record is to be logged otherwise false
+	 */
+	public void setLoggingEnabled(final boolean isLogging_Enabled) {
+		isLoggingEnabled = isLogging_Enabled;
+	}
+
+	/**
+	 * Export an x9 input file to an xml output file with optional images.
+	 *
+	 * @param inputFile
+	 *            x9 input file
+	 * @param outputFile
+	 *            xml output file
+	 * @param imageFolder
+	 *            base image folder
+	 * @return export totals
+	 */
+	public X9ExportTotals exportFromFile(final File inputFile, final File outputFile,
+			final File imageFolder) {
+		/*
+		 * Bind to the configuration for this file when auto bind is active.
+		 */
+		if (x9utilExport.isConfigAuto()) {
+			X9ConfigSelector.autoBindToConfiguration(sdkBase, inputFile);
+		}
+
+		/*
+		 * Images are written to a subfolder for this input file, where relative image names are
+		 * relative to the folder of the xml output file.
+		 */
+		xmlFolder = outputFile.getAbsoluteFile().getParentFile();
+		if (isImageExport && !isImageBase64()) {
+			fileImageFolder = new File(imageFolder,
+					FilenameUtils.getBaseName(inputFile.toString()));
+			X9Folder.createFolderWhenNeeded(fileImageFolder);
+		}
+
+		/*
+		 * Read the x9 input stream and write each record as it is read.
+		 */
+		final X9Sdk sdk = X9SdkFactory.getSdk(sdkBase);
+		try (final InputStream inputStream = new BufferedInputStream(
+				new FileInputStream(inputFile));
+				final X9FileReader x9fileReader = X9FileReader.getNewStreamReader(inputStream);
+				final X9SdkIO sdkIO = sdk.getSdkIO();
+				final X9Reader x9reader = sdkIO.openInputReader(x9fileReader);
+				final OutputStream outputStream = new BufferedOutputStream(
+						new FileOutputStream(outputFile))) {
+			xmlWriter = XMLOutputFactory.newInstance().createXMLStreamWriter(outputStream,
+					ENCODING);
+			try {
+				xmlWriter.writeStartDocument(ENCODING, "1.0");
+				startElement(X9STREAM);
+				xmlWriter.writeAttribute("format", isHierarchical ? "hierarchical" : "flat");
+				xmlWriter.writeAttribute("name", inputFile.toString());
+				X9SdkObject sdkObject;
+				while ((sdkObject = sdkIO.readNext()) != null) {
+					recordNumber++;
+					x9exportTotals.inputCount++;
+					if (isRecordNeeded(sdkObject.getRecordType())) {
+						exportRecord(x9reader, sdkIO.createX9Object());
+					}
+				}
+				closeItem();
+				closeBundle();
+				closeCashLetter();
+				endElement();
+				xmlWriter.writeCharacters(NEW_LINE);
+				xmlWriter.writeEndDocument();
+			} finally {
+				xmlWriter.close();
+			}
+		} catch (final Exception ex) {
+			throw X9Exception.abort(ex);
+		}
+
+		/*
+		 * Log and return our totals.
+		 */
+		LOGGER.info("streaming xml export finished; inputRecords({}) outputCount({}) images({})",
+				x9exportTotals.inputCount, x9exportTotals.outputCount, x9exportTotals.imageCount);
+		return x9exportTotals;
+	}
+
+	/**
+	 * Determine if the current record is needed, which is when it is selected for export or when it
+	 * is a header, trailer, or item record that opens or closes hierarchical elements or is
+	 * accumulated into the export totals. All other records are bypassed without being parsed.
+	 *
+	 * @param recordType
+	 *            current record type
+	 * @return true if needed otherwise false
+	 */
+	private boolean isRecordNeeded(final int recordType) {
+		switch (recordType) {
+
+			case X9.CASH_LETTER_HEADER:
+			case X9.BUNDLE_HEADER:
+			case X9.CHECK_DETAIL:
+			case X9.RETURN_DETAIL:
+			case X9.CREDIT_RECONCILIATION:
+			case X9.CREDIT:
+			case X9.BUNDLE_TRAILER:
+			case X9.CASH_LETTER_TRAILER:
+			case X9.FILE_CONTROL_TRAILER: {
+				return true;
+			}
+
+			default: {
+				return x9utilExport.isRecordTypeSelected(recordType);
+			}
+		}
+	}
+
+	/**
+	 * Export the current record, which first opens or closes the hierarchical elements as
+	 * determined by the record type.
+	 *
+	 * @param x9reader
+	 *            current x9reader
+	 * @param x9o
+	 *            current x9object
+	 * @throws XMLStreamException
+	 */
+	private void exportRecord(final X9Reader x9reader, final X9Object x9o)
+			throws XMLStreamException {
+		/*
+		 * Log when enabled via a command line switch.
+		 */
+		if (isLoggingEnabled) {
+			LOGGER.info("x9 recordNumber({}) content({})", recordNumber, new String(x9o.x9ObjData));
+		}
+
+		/*
+		 * Open hierarchical elements from header records and accumulate item totals.
+		 */
+		final int recordType = x9o.x9ObjType;
+		switch (recordType) {
+
+			case X9.CASH_LETTER_HEADER: {
+				closeItem();
+				closeBundle();
+				closeCashLetter();
+				isCashLetterOpen = openElement(CASH_LETTER);
+				break;
+			}
+
+			case X9.BUNDLE_HEADER: {
+				closeItem();
+				closeBundle();
+				bundleRecordNumber = recordNumber;
+				isBundleOpen = openElement(BUNDLE);
+				break;
+			}
+
+			case X9.CHECK_DETAIL: {
+				x9exportTotals.debitCount++;
+				final X9Type25 t25 = new X9Type25(sdkBase, x9o.x9ObjData);
+				x9exportTotals.debitAmount = x9exportTotals.debitAmount
+						.add(X9Decimal.getAsAmount(t25.amount));
+				openItem();
+				break;
+			}
+
+			case X9.RETURN_DETAIL: {
+				x9exportTotals.debitCount++;
+				final X9Type31 t31 = new X9Type31(sdkBase, x9o.x9ObjData);
+				x9exportTotals.debitAmount = x9exportTotals.debitAmount
+						.add(X9Decimal.getAsAmount(t31.amount));
+				openItem();
+				break;
+			}
+
+			case X9.CREDIT_RECONCILIATION: {
+				x9exportTotals.creditCount++;
+				final X9Type61 t61 = new X9Type61(x9o);
+				x9exportTotals.creditAmount = x9exportTotals.creditAmount
+						.add(X9Decimal.getAsAmount(t61.amount));
+				openItem();
+				break;
+			}
+
+			case X9.CREDIT: {
+				x9exportTotals.creditCount++;
+				final X9Type62 t62 = new X9Type62(sdkBase, x9o.x9ObjData);
+				x9exportTotals.creditAmount = x9exportTotals.creditAmount
+						.add(X9Decimal.getAsAmount(t62.amount));
+				openItem();
+				break;
+			}
+
+			case X9.BUNDLE_TRAILER: {
+				closeItem();
+				break;
+			}
+
+			case X9.CASH_LETTER_TRAILER: {
+				closeItem();
+				closeBundle();
+				break;
+			}
+
+			case X9.FILE_CONTROL_TRAILER: {
+				closeItem();
+				closeBundle();
+				closeCashLetter();
+				break;
+			}
+
+			default: {
+				break;
+			}
+		}
+
+		/*
+		 * Write this record when selected.
+		 */
+		if (x9utilExport.isRecordSelected(x9o)) {
+			writeRecord(x9reader, x9o);
+		}
+
+		/*
+		 * Close hierarchical elements following their trailer records.
+		 */
+		if (recordType == X9.BUNDLE_TRAILER) {
+			closeBundle();
+		} else if (recordType == X9.CASH_LETTER_TRAILER) {
+			closeCashLetter();
+		}
+	}
+
+	/**
+	 * Write the current record with all of its fields and an optional image.
+	 *
+	 * @param x9reader
+	 *            current x9reader
+	 * @param x9o
+	 *            current x9object
+	 * @throws XMLStreamException
+	 */
+	private void writeRecord(final X9Reader x9reader, final X9Object x9o)
+			throws XMLStreamException {
+		/*
+		 * Write the record element.
+		 */
+		x9exportTotals.outputCount++;
+		startElement(RECORD);
+		xmlWriter.writeAttribute("type", Integer.toString(x9o.x9ObjType));
+		xmlWriter.writeAttribute("number", Integer.toString(recordNumber));
+
+		/*
+		 * Write all non-binary fields, where image data is written separately.
+		 */
+		for (final X9Field x9field : x9walk.getFieldArray(x9o)) {
+			if (!x9field.isBinaryField()) {
+				final String value = x9field.getValueTrimmedToUpper(x9o);
+				if (isIncludeEmptyFields || StringUtils.isNotBlank(value)) {
+					startElement(FIELD);
+					xmlWriter.writeAttribute("index", Integer.toString(x9field.getFieldIndex()));
+					xmlWriter.writeAttribute("name", x9field.getName());
+					xmlWriter.writeCharacters(getXmlText(value));
+					endLeafElement();
+				}
+			}
+		}
+
+		/*
+		 * Write the image for image view data records.
+		 */
+		if (isImageExport && x9o.isRecordType(X9.IMAGE_VIEW_DATA)) {
+			final byte[] tiffArray = x9reader.getImageBuffer();
+			if (tiffArray != null && tiffArray.length > 0) {
+				writeImage(tiffArray);
+			}
+		}
+		endElement();
+	}
+
+	/**
+	 * Write the current image either as base64 within the xml or to an external image file.
+	 *
+	 * @param tiffArray
+	 *            current image
+	 * @throws XMLStreamException
+	 */
+	private void writeImage(final byte[] tiffArray) throws XMLStreamException {
+		x9exportTotals.imageCount++;
+		startElement(IMAGE);
+		if (isImageBase64()) {
+			/*
+			 * Encode and write in chunks, which for mime are the individual lines.
+			 */
+			final boolean isMime = imageExportDirective == X9ExportImages.IMAGE_BASE64_MIME;
+			final Base64.Encoder encoder = isMime ? Base64.getMimeEncoder()
+					: Base64.getEncoder();
+			final int chunkSize = isMime ? MIME_LINE_BYTES : BASE64_CHUNK_BYTES;
+			xmlWriter.writeAttribute("encoding", isMime ? "base64mime" : "base64");
+			for (int offset = 0; offset < tiffArray.length; offset += chunkSize) {
+				if (isMime && offset > 0) {
+					xmlWriter.writeCharacters(MIME_LINE_SEPARATOR);
+				}
+				final byte[] encoded = encoder.encode(Arrays.copyOfRange(tiffArray, offset,
+						Math.min(offset + chunkSize, tiffArray.length)));
+				xmlWriter.writeCharacters(new String(encoded, StandardCharsets.US_ASCII));
+			}
+		} else {
+			/*
+			 * Write the image to the folder for the current bundle.
+			 */
+			final File bundleFolder = new File(fileImageFolder,
+					Integer.toString(bundleRecordNumber));
+			X9Folder.createFolderWhenNeeded(bundleFolder);
+			final File imageFile = new File(bundleFolder, recordNumber + "." + X9C.TIF);
+			X9FileIO.writeFile(tiffArray, imageFile);
+			xmlWriter.writeAttribute("file",
+					imageExportDirective == X9ExportImages.IMAGE_EXPORT_RELATIVE
+							? getRelativeName(imageFile)
+							: X9FileUtils.normalize(imageFile.toString()));
+		}
+		endLeafElement();
+	}
+
+	/**
+	 * Get the name of an image file relative to the folder of the xml output file, which includes
+	 * the input file and bundle subfolders. Forward slashes are used so the name is independent of
+	 * the platform on which the xml is later read.
+	 *
+	 * @param imageFile
+	 *            image file
+	 * @return relative image file name
+	 */
+	private String getRelativeName(final File imageFile) {
+		return FilenameUtils.separatorsToUnix(xmlFolder.toPath()
+				.relativize(imageFile.getAbsoluteFile().toPath()).toString());
+	}
+
+	/**
+	 * Get a field value as xml text, where characters which are not allowed in xml 1.0 (control
+	 * characters other than tab, line feed, and carriage return) are replaced. The value is
+	 * returned as is when no replacement is needed, which is expected for nearly all fields.
+	 *
+	 * @param value
+	 *            field value
+	 * @return xml text
+	 */
+	private static String getXmlText(final String value) {
+		char[] text = null;
+		for (int i = 0, n = value.length(); i < n; i++) {
+			final char c = value.charAt(i);
+			if (!isXmlCharacter(c)) {
+				if (text == null) {
+					text = value.toCharArray();
+				}
+				text[i] = XML_REPLACEMENT_CHARACTER;
+			}
+		}
+		return text == null ? value : new String(text);
+	}
+
+	/**
+	 * Determine if a character is allowed in xml 1.0 text.
+	 *
+	 * @param c
+	 *            character
+	 * @return true or false
+	 */
+	private static boolean isXmlCharacter(final char c) {
+		return c >= 0x20 ? c != 0xFFFE && c != 0xFFFF : c == '\t' || c == '\n' || c == '\r';
+	}
+
+	/**
+	 * Determine if images are embedded as base64.
+	 *
+	 * @return true or false
+	 */
+	private boolean isImageBase64() {
+		return imageExportDirective == X9ExportImages.IMAGE_BASE64_BASIC
+				|| imageExportDirective == X9ExportImages.IMAGE_BASE64_MIME;
+	}
+
+	/**
+	 * Open a new item element, which closes the current item.
+	 *
+	 * @throws XMLStreamException
+	 */
+	private void openItem() throws XMLStreamException {
+		closeItem();
+		isItemOpen = openElement(ITEM);
+	}
+
+	/**
+	 * Open a hierarchical element when the hierarchical format has been selected.
+	 *
+	 * @param name
+	 *            element name
+	 * @return true if the element was opened
+	 * @throws XMLStreamException
+	 */
+	private boolean openElement(final String name) throws XMLStreamException {
+		if (isHierarchical) {
+			startElement(name);
+		}
+		return isHierarchical;
+	}
+
+	/**
+	 * Close the current item element when open.
+	 *
+	 * @throws XMLStreamException
+	 */
+	private void closeItem() throws XMLStreamException {
+		if (isItemOpen) {
+			isItemOpen = false;
+			endElement();
+		}
+	}
+
+	/**
+	 * Close the current bundle element when open.
+	 *
+	 * @throws XMLStreamException
+	 */
+	private void closeBundle() throws XMLStreamException {
+		if (isBundleOpen) {
+			isBundleOpen = false;
+			endElement();
+		}
+	}
+
+	/**
+	 * Close the current cash letter element when open.
+	 *
+	 * @throws XMLStreamException
+	 */
+	private void closeCashLetter() throws XMLStreamException {
+		if (isCashLetterOpen) {
+			isCashLetterOpen = false;
+			endElement();
+		}
+	}
+
+	/**
+	 * Start a new element on a new indented line.
+	 *
+	 * @param name
+	 *            element name
+	 * @throws XMLStreamException
+	 */
+	private void startElement(final String name) throws XMLStreamException {
+		xmlWriter.writeCharacters(NEW_LINE + StringUtils.repeat(INDENT, depth));
+		xmlWriter.writeStartElement(name);
+		depth++;
+	}
+
+	/**
+	 * End the current element on a new indented line.
+	 *
+	 * @throws XMLStreamException
+	 */
+	private void endElement() throws XMLStreamException {
+		depth--;
+		xmlWriter.writeCharacters(NEW_LINE + StringUtils.repeat(INDENT, depth));
+		xmlWriter.writeEndElement();
+	}
+
+	/**
+	 * End the current element on the same line, which is used for elements with text content.
+	 *
+	 * @throws XMLStreamException
+	 */
+	private void endLeafElement() throws XMLStreamException {
+		depth--;
+		xmlWriter.writeEndElement();
+	}
+
+}
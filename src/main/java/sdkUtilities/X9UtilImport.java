@@ -1,12 +1,16 @@
 package sdkUtilities;
 
 import java.io.File;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
 
 import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.x9ware.actions.X9Exception;
+import com.x9ware.apacheIO.FilenameUtils;
 import com.x9ware.base.X9Sdk;
 import com.x9ware.base.X9SdkBase;
 import com.x9ware.base.X9SdkFactory;
@@ -14,14 +18,21 @@ import com.x9ware.base.X9SdkIO;
 import com.x9ware.base.X9SdkObject;
 import com.x9ware.core.X9;
 import com.x9ware.core.X9TotalsXml;
+import com.x9ware.elements.X9C;
 import com.x9ware.imaging.X9ImageMode;
 import com.x9ware.tools.X9CsvReader;
+import com.x9ware.tools.X9CsvWriter;
+import com.x9ware.tools.X9File;
 import com.x9ware.tools.X9FileUtils;
+import com.x9ware.tools.X9Folder;
+import com.x9ware.tools.X9Numeric;
 import com.x9ware.tools.X9TempFile;
 import com.x9ware.validate.X9TrailerManager;
 
 /**
- * X9UtilImport is part of our utilities package which reads a csv and writes an x9 file.
+ * X9UtilImport is part of our utilities package which reads a csv and writes an x9 file. When
+ * running multi-file, all csv files within the input folder are imported concurrently to the output
+ * folder, and a single consolidated summary is written to that output folder on completion.
  *
  * @author X9Ware LLC. Copyright(c) 2012-2018 X9Ware LLC. All Rights Reserved. This is proprietary
  *         software as developed and licensed by X9Ware LLC under the exclusive legal right of the
@@ -41,6 +52,11 @@ public final class X9UtilImport {
 	 */
 	private final X9UtilWorkUnit workUnit;
 
+	/**
+	 * X9UtilMetrics instance which is shared by all threads of this work unit.
+	 */
+	private final X9UtilMetrics metrics;
+
 	/*
 	 * Private.
 	 */
@@ -59,6 +75,10 @@ public final class X9UtilImport {
 	 * Constants.
 	 */
 	private static final char COMMA = ',';
+	private static final String IMPORT_SUMMARY_FILE = "importSummary.csv";
+	private static final String ABORTED = "Aborted";
+	private static final String SUMMARY = "summary";
+	private static final String TOTALS = "totals";
 
 	/**
 	 * Logger instance.
@@ -71,8 +91,22 @@ public final class X9UtilImport {
 	 * @param work_Unit current work unit
 	 */
 	public X9UtilImport(final X9UtilWorkUnit work_Unit) {
+		this(work_Unit, work_Unit.getNewSdkBase());
+	}
+
+	/**
+	 * X9UtilImport Constructor using an sdkBase which has already been bound to the x9
+	 * configuration, as used for multi-file import where the sdkBase is reused across files.
+	 *
+	 * @param work_Unit
+	 *            current work unit
+	 * @param sdk_Base
+	 *            current sdkBase
+	 */
+	public X9UtilImport(final X9UtilWorkUnit work_Unit, final X9SdkBase sdk_Base) {
 		workUnit = work_Unit;
-		sdkBase = workUnit.getNewSdkBase();
+		metrics = workUnit.getMetrics();
+		sdkBase = sdk_Base;
 		isLoggingEnabled = workUnit.isCommandSwitchSet(X9UtilWorkUnit.SWITCH_LOGGING);
 		isRepairTrailers = workUnit
 				.isCommandSwitchSet(X9UtilWorkUnit.SWITCH_REPLACE_TRAILER_TOTALS);
@@ -84,6 +118,13 @@ public final class X9UtilImport {
 	 * @return exit status
 	 */
 	public int process() {
+		/*
+		 * Import all csv files within the input folder when multi-file is selected.
+		 */
+		if (workUnit.isCommandSwitchSet(X9UtilWorkUnit.SWITCH_MULTI_FILE)) {
+			return processMultiFile();
+		}
+
 		/*
 		 * Get work unit files.
 		 */
@@ -171,6 +212,164 @@ public final class X9UtilImport {
 		return X9UtilBatch.EXIT_STATUS_ZERO;
 	}
 
+	/**
+	 * Import a single csv file as part of a multi-file import, where results are posted to the
+	 * provided entry instead of being written as summary totals. This method is invoked from a
+	 * worker thread and uses an sdkBase which has already been bound to the x9 configuration.
+	 *
+	 * @param importEntry
+	 *            import entry for the file to be imported
+	 */
+	public void importToEntry(final X9UtilImportEntry importEntry) {
+		/*
+		 * Get the files for this entry.
+		 */
+		csvInputFile = importEntry.getInputFile();
+		final X9TempFile x9tempFile = X9UtilWorkUnit
+				.getTempFileInstance(importEntry.getOutputFile());
+		x9outputFile = x9tempFile.getTemp();
+		imageFolder = workUnit.imageFolder;
+
+		/*
+		 * Set image enabled and repair trailers as for a single file import.
+		 */
+		sdk = X9SdkFactory.getSdk(sdkBase);
+		sdkBase.setImageIeEnabled(true);
+		sdkBase.setRepairTrailers(isRepairTrailers);
+
+		/*
+		 * Import to x9 and rename on successful completion.
+		 */
+		try (final X9SdkIO sdkIO = sdk.getSdkIO()) {
+			processImport(sdkIO);
+		} catch (final Exception ex) {
+			throw X9Exception.abort(ex);
+		}
+		x9tempFile.renameTemp();
+
+		/*
+		 * Post our results to the entry.
+		 */
+		importEntry.setResults(inputCount, checkCount, creditCount, imageCount);
+		LOGGER.info("file({}) imported; input records({}) checks({}) credits({}) imageCount({})",
+				csvInputFile, inputCount, checkCount, creditCount, imageCount);
+	}
+
+	/**
+	 * Import all csv files within the input folder concurrently, where each is written to the
+	 * output folder using its relative path and base name, and then write a consolidated summary.
+	 *
+	 * @return exit status
+	 */
+	private int processMultiFile() {
+		/*
+		 * Verify the output and image folders.
+		 */
+		workUnit.verifyOutputIsFolder();
+		final File outputFolder = workUnit.outputFile;
+		if (workUnit.imageFolder != null
+				&& !X9FileUtils.existsWithPathTracing(workUnit.imageFolder)) {
+			throw X9Exception.abort("imageFolder notFound({})", workUnit.imageFolder);
+		}
+
+		/*
+		 * Get the list of files to be imported and create an entry for each. Output files retain
+		 * the relative folder structure of the input folder.
+		 */
+		final List<X9File> fileList = workUnit.getInputFileList();
+		final List<X9UtilImportEntry> entryList = new ArrayList<>(fileList.size());
+		final Path basePath = workUnit.inputFile.toPath();
+		for (final File file : fileList) {
+			final String relativeName = basePath.relativize(file.toPath()).toString();
+			final File outputFile = new File(outputFolder,
+					FilenameUtils.removeExtension(relativeName) + "." + X9C.X937);
+			X9Folder.createFolderWhenNeeded(outputFile.getParentFile());
+			entryList.add(new X9UtilImportEntry(file, outputFile));
+		}
+
+		/*
+		 * Import all files using our task monitor.
+		 */
+		final int maximumThreadCount = workUnit.getThreadCount();
+		LOGGER.info("multi-file import started; fileCount({}) maximumThreadCount({})",
+				entryList.size(), maximumThreadCount);
+		X9UtilMultiFileMonitor.runAllEntries(workUnit, entryList, maximumThreadCount,
+				ImportTask::new);
+
+		/*
+		 * Write the consolidated summary in our original file list sequence.
+		 */
+		final X9TempFile x9tempFile = X9UtilWorkUnit
+				.getTempFileInstance(new File(outputFolder, IMPORT_SUMMARY_FILE));
+		final int exitStatus = writeConsolidatedSummary(x9tempFile.getTemp(), entryList);
+		x9tempFile.renameTemp();
+		return exitStatus;
+	}
+
+	/**
+	 * Write the consolidated summary csv file, which contains a summary line for each file
+	 * followed by overall totals for all files.
+	 *
+	 * @param csvFile
+	 *            csv output file
+	 * @param entryList
+	 *            list of imported entries in file list sequence
+	 * @return overall exit status
+	 */
+	private int writeConsolidatedSummary(final File csvFile,
+			final List<X9UtilImportEntry> entryList) {
+		int exitStatus = X9UtilBatch.EXIT_STATUS_ZERO;
+		int totalRecords = 0;
+		int totalChecks = 0;
+		int totalCredits = 0;
+		int totalImages = 0;
+		int filesAborted = 0;
+		try (final X9CsvWriter csvWriter = new X9CsvWriter(csvFile)) {
+			/*
+			 * Write summary totals for each file and accumulate our overall totals.
+			 */
+			for (final X9UtilImportEntry entry : entryList) {
+				if (entry.isAborted()) {
+					filesAborted++;
+					exitStatus = X9UtilBatch.EXIT_STATUS_ABORTED;
+					csvWriter.putFromArray(new String[] { SUMMARY, entry.getInputFile().toString(),
+							entry.getOutputFile().toString(), ABORTED, entry.getAbortMessage() });
+				} else {
+					csvWriter.putFromArray(new String[] { SUMMARY, entry.getInputFile().toString(),
+							entry.getOutputFile().toString(),
+							Integer.toString(entry.getInputCount()),
+							Integer.toString(entry.getCheckCount()),
+							Integer.toString(entry.getCreditCount()),
+							Integer.toString(entry.getImageCount()) });
+					totalRecords += entry.getInputCount();
+					totalChecks += entry.getCheckCount();
+					totalCredits += entry.getCreditCount();
+					totalImages += entry.getImageCount();
+				}
+			}
+
+			/*
+			 * Write overall totals.
+			 */
+			csvWriter.putFromArray(new String[] { TOTALS, Integer.toString(entryList.size()),
+					Integer.toString(totalRecords), Integer.toString(totalChecks),
+					Integer.toString(totalCredits), Integer.toString(totalImages),
+					Integer.toString(filesAborted), Integer.toString(exitStatus) });
+		} catch (final Exception ex) {
+			throw X9Exception.abort(ex);
+		}
+
+		/*
+		 * Log and return the overall exit status.
+		 */
+		LOGGER.info(
+				"multi-file import finished; files({}) input records({}) checks({}) credits({}) "
+						+ "imageCount({}) filesAborted({}) exitStatus({})",
+				entryList.size(), totalRecords, totalChecks, totalCredits, totalImages,
+				filesAborted, exitStatus);
+		return exitStatus;
+	}
+
 	/**
 	 * File import processing with exception thrown on any errors.
 	 *
@@ -182,7 +381,8 @@ public final class X9UtilImport {
 		/*
 		 * Read our input file.
 		 */
-		try (X9CsvReader csvReader = sdkIO.openCsvInputFile(csvInputFile)) {
+		try (X9CsvReader csvReader = sdkIO.openCsvInputFile(csvInputFile);
+				final X9UtilImportImagePrefetch imagePrefetch = allocateImagePrefetch()) {
 			/*
 			 * Open our output file.
 			 */
@@ -209,6 +409,15 @@ public final class X9UtilImport {
 				final int recordNumber = sdkObject.getRecordNumber();
 				final int recordType = sdkObject.getRecordType();
 
+				/*
+				 * Advance the image prefetch window when enabled. Each sdkObject is created from
+				 * the next populated csv line, so the input count (and not the x9 record number)
+				 * is the csv line position which is tracked by the prefetch scanner.
+				 */
+				if (imagePrefetch != null) {
+					imagePrefetch.advance(inputCount);
+				}
+
 				/*
 				 * Log when enabled via a command line switch.
 				 */
@@ -242,18 +451,95 @@ public final class X9UtilImport {
 				}
 
 				/*
-				 * Create the output record from this sdkObject.
+				 * Create the output record from this sdkObject, which for image records loads the
+				 * external image with repair and resize applied when enabled.
 				 */
+				final long convertTimer = metrics.startTimer();
 				sdkIO.makeOutputRecordFromCsv(sdkObject);
+				if (recordType == X9.IMAGE_VIEW_DATA) {
+					metrics.recordLatency(X9UtilMetrics.IMAGE_CONVERT, convertTimer);
+					metrics.count(X9UtilMetrics.IMAGES_CONVERTED, 1);
+				}
 
 				/*
 				 * Write the x9.
 				 */
 				sdkIO.writeOutputFile(sdkObject);
+				metrics.recordWrite(sdkObject.getDataByteArray());
 			}
 		} catch (final Exception ex) {
 			throw X9Exception.abort(ex);
 		}
 	}
 
+	/**
+	 * Allocate and start the image prefetch facility when enabled by command line switch. The
+	 * switch value is the number of csv lines to be read ahead of the import, with a default when
+	 * not provided.
+	 *
+	 * @return image prefetch instance or null when not enabled
+	 */
+	private X9UtilImportImagePrefetch allocateImagePrefetch() {
+		if (!workUnit.isCommandSwitchSet(X9UtilWorkUnit.SWITCH_IMAGE_PREFETCH)) {
+			return null;
+		}
+
+		final String prefetchValue = workUnit
+				.getCommandSwitchValue(X9UtilWorkUnit.SWITCH_IMAGE_PREFETCH);
+		final int lookAheadLines;
+		if (StringUtils.isBlank(prefetchValue)) {
+			lookAheadLines = X9UtilImportImagePrefetch.DEFAULT_LOOK_AHEAD_LINES;
+		} else {
+			lookAheadLines = X9Numeric.toInt(prefetchValue);
+			if (lookAheadLines <= 0) {
+				throw X9Exception.abort("prefetch({}) not numeric", prefetchValue);
+			}
+		}
+
+		final X9UtilImportImagePrefetch imagePrefetch = new X9UtilImportImagePrefetch(
+				csvInputFile, imageFolder, lookAheadLines);
+		imagePrefetch.start();
+		return imagePrefetch;
+	}
+
+	/**
+	 * ImportTask imports a series of files as initiated from a worker task. Each worker allocates
+	 * its own sdkBase, which is bound once and then reused for all files that are assigned to that
+	 * worker (unless auto bind requires that each file be examined).
+	 */
+	private final class ImportTask implements X9UtilMultiFileTask<X9UtilImportEntry> {
+
+		/*
+		 * Private.
+		 */
+		private final X9SdkBase workerSdkBase = workUnit.getNewSdkBase();
+		private boolean isConfigurationBound;
+
+		@Override
+		public boolean processEntry(final X9UtilImportEntry entry) {
+			/*
+			 * Bind once for this worker, unless auto bind requires that each file be examined.
+			 */
+			if (!isConfigurationBound || workUnit.isBindConfigurationAuto()) {
+				workUnit.autoBindToCommandLineConfiguration(workerSdkBase, entry.getInputFile());
+				isConfigurationBound = true;
+			}
+
+			/*
+			 * Release all sdkBase storage from the prior file and import using our bound sdkBase.
+			 */
+			workerSdkBase.systemReset();
+			final X9UtilImport x9utilImport = new X9UtilImport(workUnit, workerSdkBase);
+			x9utilImport.importToEntry(entry);
+			return true;
+		}
+
+		@Override
+		public void abortEntry(final X9UtilImportEntry entry, final Exception ex) {
+			entry.setAborted(ex.toString());
+			LOGGER.error("file({}) exception", entry.getInputFile(), ex);
+		}
+
+	}
+
 }
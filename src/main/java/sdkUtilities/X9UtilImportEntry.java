@@ -0,0 +1,157 @@
+package sdkUtilities;
+
+import java.io.File;
+
+/**
+ * X9UtilImportEntry defines a single csv file to be imported as part of a multi-file import, along
+ * with the results of that import as posted by the worker task. Results are retained here which
+ * allows a single consolidated summary to be written in the original file list sequence once all
+ * concurrent imports have completed.
+ *
+ * @author X9Ware LLC. Copyright(c) 2012-2018 X9Ware LLC. All Rights Reserved. This is proprietary
+ *         software as developed and licensed by X9Ware LLC under the exclusive legal right of the
+ *         copyright holder. All licensees are provided the right to use the software only under
+ *         certain conditions, and are specifically restricted from other specific uses including
+ *         modification, sharing, reuse, redistribution, or reverse engineering.
+ */
+public final class X9UtilImportEntry {
+
+	/*
+	 * Private.
+	 */
+	private final File inputFile;
+	private final File outputFile;
+	private int inputCount;
+	private int checkCount;
+	private int creditCount;
+	private int imageCount;
+	private String abortMessage = "";
+	private int exitStatus = X9UtilBatch.EXIT_STATUS_ABORTED;
+
+	/**
+	 * X9UtilImportEntry Constructor.
+	 *
+	 * @param input_File
+	 *            csv input file
+	 * @param output_File
+	 *            x9 output file
+	 */
+	public X9UtilImportEntry(final File input_File, final File output_File) {
+		inputFile = input_File;
+		outputFile = output_File;
+	}
+
+	/**
+	 * Get the csv input file.
+	 *
+	 * @return input file
+	 */
+	public File getInputFile() {
+		return inputFile;
+	}
+
+	/**
+	 * Get the x9 output file.
+	 *
+	 * @return output file
+	 */
+	public File getOutputFile() {
+		return outputFile;
+	}
+
+	/**
+	 * Set the import results for this file.
+	 *
+	 * @param input_Count
+	 *            input record count
+	 * @param check_Count
+	 *            check count
+	 * @param credit_Count
+	 *            credit count
+	 * @param image_Count
+	 *            image count
+	 */
+	public void setResults(final int input_Count, final int check_Count, final int credit_Count,
+			final int image_Count) {
+		inputCount = input_Count;
+		checkCount = check_Count;
+		creditCount = credit_Count;
+		imageCount = image_Count;
+		exitStatus = X9UtilBatch.EXIT_STATUS_ZERO;
+	}
+
+	/**
+	 * Mark this file as aborted.
+	 *
+	 * @param abort_Message
+	 *            abort message
+	 */
+	public void setAborted(final String abort_Message) {
+		abortMessage = abort_Message;
+		exitStatus = X9UtilBatch.EXIT_STATUS_ABORTED;
+	}
+
+	/**
+	 * Determine if import was aborted for this file.
+	 *
+	 * @return true or false
+	 */
+	public boolean isAborted() {
+		return exitStatus < 0;
+	}
+
+	/**
+	 * Get the abort message.
+	 *
+	 * @return abort message
+	 */
+	public String getAbortMessage() {
+		return abortMessage;
+	}
+
+	/**
+	 * Get the input record count.
+	 *
+	 * @return input record count
+	 */
+	public int getInputCount() {
+		return inputCount;
+	}
+
+	/**
+	 * Get the check count.
+	 *
+	 * @return check count
+	 */
+	public int getCheckCount() {
+		return checkCount;
+	}
+
+	/**
+	 * Get the credit count.
+	 *
+	 * @return credit count
+	 */
+	public int getCreditCount() {
+		return creditCount;
+	}
+
+	/**
+	 * Get the image count.
+	 *
+	 * @return image count
+	 */
+	public int getImageCount() {
+		return imageCount;
+	}
+
+	/**
+	 * Get the exit status.
+	 *
+	 * @return exit status
+	 */
+	public int getExitStatus() {
+		return exitStatus;
+	}
+
+}
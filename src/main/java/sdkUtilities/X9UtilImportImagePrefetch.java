@@ -0,0 +1,213 @@
+package sdkUtilities;
+
+import java.io.File;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.x9ware.apacheIO.FilenameUtils;
+import com.x9ware.tools.X9CsvLine;
+import com.x9ware.tools.X9CsvReader;
+import com.x9ware.tools.X9FileUtils;
+
+/**
+ * X9UtilImportImagePrefetch reads ahead the external images which are referenced by upcoming type
+ * 52 csv lines during import. A background scanner reads the same csv file independently of sdkIO
+ * and schedules each referenced image to be read by a small pool of threads, while staying within
+ * a bounded window of csv lines ahead of the import thread. Images are read in full so that they
+ * are resident within the operating system file cache when sdkIO then loads them, which removes
+ * image folder latency from the import thread. Image references are identified on type 52 lines as
+ * those fields which have an image file extension, with relative names resolved against the image
+ * folder. Prefetch is strictly advisory; any image that cannot be read here is ignored and will be
+ * reported by sdkIO when the record is actually imported.
+ *
+ * @author X9Ware LLC. Copyright(c) 2012-2018 X9Ware LLC. All Rights Reserved. This is proprietary
+ *         software as developed and licensed by X9Ware LLC under the exclusive legal right of the
+ *         copyright holder. All licensees are provided the right to use the software only under
+ *         certain conditions, and are specifically restricted from other specific uses including
+ *         modification, sharing, reuse, redistribution, or reverse engineering.
+ */
+public final class X9UtilImportImagePrefetch implements AutoCloseable {
+
+	/*
+	 * Private.
+	 */
+	private final File csvInputFile;
+	private final File imageFolder;
+	private final int lookAheadLines;
+	private final ExecutorService executorService;
+	private final Object windowLock = new Object();
+	private final AtomicInteger imagesRead = new AtomicInteger();
+	private final AtomicInteger imagesFailed = new AtomicInteger();
+	private int linesImported;
+	private volatile boolean isClosed;
+	private Thread scannerThread;
+
+	/*
+	 * Constants.
+	 */
+	public static final int DEFAULT_LOOK_AHEAD_LINES = 256;
+	private static final int PREFETCH_THREADS = 2;
+	private static final int READ_BUFFER_SIZE = 64 * 1024;
+	private static final String IMAGE_VIEW_DATA = "52";
+	private static final Set<String> IMAGE_EXTENSIONS = new HashSet<>(
+			Arrays.asList("tif", "tiff", "png", "jpg", "jpeg", "gif", "bmp"));
+
+	/**
+	 * Logger instance.
+	 */
+	private static final Logger LOGGER = LoggerFactory.getLogger(X9UtilImportImagePrefetch.class);
+
+	/**
+	 * X9UtilImportImagePrefetch Constructor.
+	 *
+	 * @param csvInput_File
+	 *            csv input file being imported
+	 * @param image_Folder
+	 *            image folder for relative image names or null
+	 * @param lookAhead_Lines
+	 *            number of csv lines to be read ahead of the import thread
+	 */
+	public X9UtilImportImagePrefetch(final File csvInput_File, final File image_Folder,
+			final int lookAhead_Lines) {
+		csvInputFile = csvInput_File;
+		imageFolder = image_Folder;
+		lookAheadLines = lookAhead_Lines;
+		executorService = Executors.newFixedThreadPool(PREFETCH_THREADS, runnable -> {
+			final Thread thread = new Thread(runnable, "X9UtilImportImagePrefetch");
+			thread.setDaemon(true);
+			return thread;
+		});
+	}
+
+	/**
+	 * Start the background scanner.
+	 */
+	public void start() {
+		scannerThread = new Thread(this::scanCsvFile, "X9UtilImportImageScanner");
+		scannerThread.setDaemon(true);
+		scannerThread.start();
+		LOGGER.info("image prefetch started csvInputFile({}) lookAheadLines({})", csvInputFile,
+				lookAheadLines);
+	}
+
+	/**
+	 * Advance the prefetch window to the csv line which is currently being imported. Lines are
+	 * positioned by their count of populated csv lines, which is the same for the import thread and
+	 * our scanner since sdkIO creates one csv input record for each populated csv line.
+	 *
+	 * @param lines_Imported
+	 *            number of populated csv lines which have been imported (including this line)
+	 */
+	public void advance(final int lines_Imported) {
+		synchronized (windowLock) {
+			linesImported = lines_Imported;
+			windowLock.notifyAll();
+		}
+	}
+
+	/**
+	 * Scan the csv file and schedule image reads, waiting whenever the scanner has moved beyond
+	 * the look ahead window.
+	 */
+	private void scanCsvFile() {
+		try (final X9CsvReader csvReader = new X9CsvReader(csvInputFile)) {
+			X9CsvLine csvLine;
+			int linesScanned = 0;
+			while (!isClosed && (csvLine = csvReader.getNextCsvLine()) != null) {
+				/*
+				 * Count populated lines and wait until this line is within the look ahead window.
+				 */
+				if (!csvLine.isPopulated()) {
+					continue;
+				}
+				linesScanned++;
+				synchronized (windowLock) {
+					while (!isClosed && linesScanned > linesImported + lookAheadLines) {
+						windowLock.wait();
+					}
+				}
+
+				/*
+				 * Schedule reads for images referenced by type 52 lines.
+				 */
+				final String[] record = csvLine.getCsvArray();
+				if (record != null && record.length > 1
+						&& StringUtils.equals(record[0], IMAGE_VIEW_DATA)) {
+					for (int i = 1; i < record.length; i++) {
+						scheduleReadWhenImage(record[i]);
+					}
+				}
+			}
+		} catch (final InterruptedException ex) {
+			Thread.currentThread().interrupt();
+		} catch (final Exception ex) {
+			LOGGER.warn("image prefetch scan ended", ex);
+		}
+	}
+
+	/**
+	 * Schedule a csv field to be read when it references an image file.
+	 *
+	 * @param fieldValue
+	 *            csv field value
+	 */
+	private void scheduleReadWhenImage(final String fieldValue) {
+		final String value = StringUtils.trim(fieldValue);
+		if (StringUtils.isNotBlank(value)
+				&& IMAGE_EXTENSIONS.contains(FilenameUtils.getExtension(value).toLowerCase())) {
+			final File imageFile = X9FileUtils.isFileNameAbsolute(value) || imageFolder == null
+					? new File(value)
+					: new File(imageFolder, value);
+			executorService.submit(() -> readImage(imageFile));
+		}
+	}
+
+	/**
+	 * Read an image file in full, with the content discarded.
+	 *
+	 * @param imageFile
+	 *            image file to be read
+	 */
+	private void readImage(final File imageFile) {
+		final byte[] readBuffer = new byte[READ_BUFFER_SIZE];
+		try (final InputStream inputStream = Files.newInputStream(imageFile.toPath())) {
+			while (inputStream.read(readBuffer) >= 0) {
+				continue;
+			}
+			imagesRead.incrementAndGet();
+		} catch (final Exception ex) {
+			imagesFailed.incrementAndGet();
+			if (LOGGER.isDebugEnabled()) {
+				LOGGER.debug("prefetch failed imageFile({})", imageFile, ex);
+			}
+		}
+	}
+
+	@Override
+	public void close() {
+		/*
+		 * Stop the scanner and discard pending reads once import has completed.
+		 */
+		isClosed = true;
+		synchronized (windowLock) {
+			windowLock.notifyAll();
+		}
+		if (scannerThread != null) {
+			scannerThread.interrupt();
+		}
+		executorService.shutdownNow();
+		LOGGER.info("image prefetch completed imagesRead({}) imagesFailed({})", imagesRead.get(),
+				imagesFailed.get());
+	}
+
+}
@@ -37,7 +37,9 @@ import com.x9ware.validate.X9TrailerManager;
 
 /**
  * X9UtilMake is part of our utilities package which runs make/generate on a batch basis. Input is
- * the CSV use case file, while output will be the x9.37 output file.
+ * the CSV use case file, while output will be the x9.37 output file. Make and generate exchange
+ * data through intermediate csv files which are uniquely named for each run (allowing concurrent
+ * runs to share the same temp folder) and are deleted once the output file has been written.
  *
  * @author X9Ware LLC. Copyright(c) 2012-2018 X9Ware LLC. All Rights Reserved. This is proprietary
  *         software as developed and licensed by X9Ware LLC under the exclusive legal right of the
@@ -57,6 +59,11 @@ public final class X9UtilMake {
 	 */
 	private final X9UtilWorkUnit workUnit;
 
+	/**
+	 * X9UtilMetrics instance which is shared by all threads of this work unit.
+	 */
+	private final X9UtilMetrics metrics;
+
 	/*
 	 * Private.
 	 */
@@ -71,8 +78,9 @@ public final class X9UtilMake {
 	/*
 	 * Constants.
 	 */
-	private static final String MAKE_INTERMEDIATE_FILE = "makeIntermediateFile.csv";
-	private static final String GENERATE_INTERMEDIATE_FILE = "generateIntermediateFile.csv";
+	private static final String MAKE_INTERMEDIATE_PREFIX = "makeIntermediateFile_";
+	private static final String GENERATE_INTERMEDIATE_PREFIX = "generateIntermediateFile_";
+	private static final String INTERMEDIATE_SUFFIX = ".csv";
 
 	/**
 	 * Logger instance.
@@ -86,6 +94,7 @@ public final class X9UtilMake {
 	 */
 	public X9UtilMake(final X9UtilWorkUnit work_Unit) {
 		workUnit = work_Unit;
+		metrics = workUnit.getMetrics();
 		sdkBase = workUnit.getNewSdkBase();
 	}
 
@@ -308,6 +317,8 @@ public final class X9UtilMake {
 		 * which sheet should be processed when there are multiple sheets.
 		 */
 		X9TrailerManager x9trailerManager = null;
+		File makeIntermediateFile = null;
+		File generateIntermediateFile = null;
 		final X9MakeReader x9makeReader = new X9MakeReader937(sdkBase);
 		try (final X9CsvReader csvReader = new X9CsvReader(csvFile)) {
 			/*
@@ -331,8 +342,8 @@ public final class X9UtilMake {
 			/*
 			 * Run make to create the items.
 			 */
-			final File makeIntermediateFile = new File(X9WorkFolder.getTempFolder(),
-					MAKE_INTERMEDIATE_FILE);
+			makeIntermediateFile = File.createTempFile(MAKE_INTERMEDIATE_PREFIX,
+					INTERMEDIATE_SUFFIX, X9WorkFolder.getTempFolder());
 			final X9MakeFile937 x9makeFile = new X9MakeFile937(sdkBase, x9makeReader, makeXml);
 			final List<String> fieldsWhichExceedMaxSize = x9makeFile.makeFile(makeIntermediateFile,
 					itemCount);
@@ -349,8 +360,8 @@ public final class X9UtilMake {
 			/*
 			 * Run generate to create the intermediate csv file.
 			 */
-			final File generateIntermediateFile = new File(X9WorkFolder.getTempFolder(),
-					GENERATE_INTERMEDIATE_FILE);
+			generateIntermediateFile = File.createTempFile(GENERATE_INTERMEDIATE_PREFIX,
+					INTERMEDIATE_SUFFIX, X9WorkFolder.getTempFolder());
 			final X9Generate937 x9generate937 = new X9Generate937(sdkBase, generateXml,
 					makeIntermediateFile, generateIntermediateFile);
 			final String generateErrorMessage = x9generate937.generateFile();
@@ -386,6 +397,12 @@ public final class X9UtilMake {
 			LOGGER.info(sdkIO.getSdkStatisticsMessage("import", outputFile));
 		} catch (final Exception ex) {
 			throw X9Exception.abort(ex);
+		} finally {
+			/*
+			 * Delete our intermediate files, which are specific to this run.
+			 */
+			deleteIntermediateFile(makeIntermediateFile);
+			deleteIntermediateFile(generateIntermediateFile);
 		}
 
 		/*
@@ -422,6 +439,7 @@ public final class X9UtilMake {
 					.getNextCsvInputRecord(X9ImageMode.IMPORT_IMAGE_FROM_EXTERNAL_FILE)) != null) {
 				sdkIO.makeOutputRecordFromCsv(sdkObject);
 				sdkIO.writeOutputFile(sdkObject);
+				metrics.recordWrite(sdkObject.getDataByteArray());
 			}
 
 			/*
@@ -435,4 +453,17 @@ public final class X9UtilMake {
 		}
 	}
 
+	/**
+	 * Delete an intermediate file when it has been allocated.
+	 *
+	 * @param intermediateFile
+	 *            intermediate file or null when not allocated
+	 */
+	private void deleteIntermediateFile(final File intermediateFile) {
+		if (intermediateFile != null && intermediateFile.exists()
+				&& !X9FileUtils.delete(intermediateFile)) {
+			LOGGER.warn("unable to delete intermediateFile({})", intermediateFile);
+		}
+	}
+
 }
@@ -76,6 +76,11 @@ public class X9UtilMerge {
 	 */
 	private final X9UtilWorkUnit workUnit;
 
+	/**
+	 * X9UtilMetrics instance which is shared by all threads of this work unit.
+	 */
+	private final X9UtilMetrics metrics;
+
 	/**
 	 * X9TrailerManager instance as assigned by our constructor.
 	 */
@@ -162,6 +167,7 @@ public class X9UtilMerge {
 		 * Initialize.
 		 */
 		workUnit = work_Unit;
+		metrics = workUnit.getMetrics();
 		sdkBase = workUnit.getNewSdkBase();
 		x9recordFields = sdkBase.getRecordFields();
 		x9trailerManager = new X9TrailerManager937(sdkBase);
@@ -771,7 +777,9 @@ public class X9UtilMerge {
 			/*
 			 * Get the first record so we can determine file attributes.
 			 */
+			long stageTimer = metrics.startTimer();
 			X9SdkObject sdkObject = sdkIO.readNext();
+			metrics.recordLatency(X9UtilMetrics.STAGE_READ, stageTimer);
 
 			/*
 			 * Always abort when the first record is not a file header.
@@ -823,9 +831,14 @@ public class X9UtilMerge {
 			 */
 			final X9TrailerManager937 trailerTotals = new X9TrailerManager937(sdkBase);
 			while (sdkObject != null) {
+				metrics.recordRead(sdkObject.getDataByteArray());
 				writeOutput(sdkIO, sdkObject, isFirstFile, isLastFile);
+				stageTimer = metrics.startTimer();
 				trailerTotals.accumulateAndPopulate(sdkObject);
+				metrics.recordLatency(X9UtilMetrics.STAGE_TRAILER, stageTimer);
+				stageTimer = metrics.startTimer();
 				sdkObject = sdkIO.readNext();
+				metrics.recordLatency(X9UtilMetrics.STAGE_READ, stageTimer);
 			}
 
 			/*
@@ -884,8 +897,10 @@ public class X9UtilMerge {
 		/*
 		 * Create the output record.
 		 */
+		long stageTimer = metrics.startTimer();
 		sdkObject.setUpdateType52ImageLengths(X9SdkIO.UPDATE_TYPE52_IMAGE_LENGTHS_DISABLED);
 		sdkIO.makeOutputRecord(sdkObject);
+		metrics.recordLatency(X9UtilMetrics.STAGE_PARSE, stageTimer);
 
 		/*
 		 * Get record type and record data.
@@ -1077,13 +1092,18 @@ public class X9UtilMerge {
 			/*
 			 * Accumulate and populate totals within the trailer records.
 			 */
+			stageTimer = metrics.startTimer();
 			x9trailerManager.accumulateAndPopulate(recordType, recordFormat, dataRecord);
+			metrics.recordLatency(X9UtilMetrics.STAGE_TRAILER, stageTimer);
 
 			/*
 			 * Update image lengths and write from the possibly modified data.
 			 */
+			stageTimer = metrics.startTimer();
 			sdkObject.setUpdateType52ImageLengths(X9SdkIO.UPDATE_TYPE52_IMAGE_LENGTHS_DISABLED);
 			sdkIO.writeOutputFileFromData(sdkObject, dataRecord);
+			metrics.recordLatency(X9UtilMetrics.STAGE_X9_WRITE, stageTimer);
+			metrics.recordWrite(dataRecord);
 
 			/*
 			 * Accumulate into our running hash code for the new file being created, after trailer
@@ -0,0 +1,531 @@
+package sdkUtilities;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.x9ware.tools.X9Numeric;
+
+/**
+ * X9UtilMetrics is a registry of run time metrics for a single work unit, which provides visibility
+ * into throughput while a function is running (where the summary totals are only available once it
+ * has completed). The registry contains counters (records and bytes read and written, images
+ * converted, images and csv lines written), latency histograms for individual stages (image
+ * conversions, image writes, matcher evaluation), and gauges which are sampled when reported (queue
+ * depths within multi-file functions). Metrics are enabled by the -metrics command line switch,
+ * with an optional reporting interval in seconds. When enabled, a structured log line is written at
+ * each interval with the current totals and the rates for that interval, and the final metrics are
+ * written to a json file that is located next to the summary totals. The -profile command line
+ * switch also enables recording, where latencies are recorded for the individual stages of a
+ * function (reading, parsing, trailer accumulation, x9 writing, csv writing, and image writes) and
+ * a breakdown of the time spent in each stage is logged when the work unit completes. When neither
+ * is enabled, all record methods return immediately and no reporting thread is started. All record
+ * methods are thread safe and are shared by all worker threads of the work unit. Histograms use
+ * power of two nanosecond buckets, so percentiles are reported as the upper bound of the bucket in
+ * which they fall.
+ *
+ * @author X9Ware LLC. Copyright(c) 2012-2018 X9Ware LLC. All Rights Reserved. This is proprietary
+ *         software as developed and licensed by X9Ware LLC under the exclusive legal right of the
+ *         copyright holder. All licensees are provided the right to use the software only under
+ *         certain conditions, and are specifically restricted from other specific uses including
+ *         modification, sharing, reuse, redistribution, or reverse engineering.
+ */
+public final class X9UtilMetrics implements AutoCloseable {
+
+	/*
+	 * Private.
+	 */
+	private final X9UtilWorkUnit workUnit;
+	private final boolean isEnabled;
+	private final boolean isProfileEnabled;
+	private final boolean isRecording;
+	private final long reportSeconds;
+	private final Map<String, LongAdder> counters = new ConcurrentHashMap<>();
+	private final Map<String, Histogram> histograms = new ConcurrentHashMap<>();
+	private final Map<String, LongSupplier> gauges = new ConcurrentHashMap<>();
+	private final Map<String, Long> lastReportedCounts = new HashMap<>();
+	private ScheduledExecutorService reportService;
+	private long startNanos;
+	private long lastReportNanos;
+
+	/*
+	 * Constants.
+	 */
+	public static final String SWITCH_METRICS = "metrics";
+	public static final String RECORDS_READ = "records.read";
+	public static final String BYTES_READ = "bytes.read";
+	public static final String RECORDS_WRITTEN = "records.written";
+	public static final String BYTES_WRITTEN = "bytes.written";
+	public static final String CSV_LINES_WRITTEN = "csv.lines.written";
+	public static final String IMAGES_WRITTEN = "images.written";
+	public static final String IMAGE_WRITE = "image.write";
+	public static final String IMAGES_CONVERTED = "images.converted";
+	public static final String IMAGE_CONVERT = "image.convert";
+	public static final String MATCHER_EVALUATION = "matcher.evaluation";
+	public static final String FILES_QUEUED = "files.queued";
+	public static final String STAGE_READ = "stage.read";
+	public static final String STAGE_PARSE = "stage.parse";
+	public static final String STAGE_TRAILER = "stage.trailer";
+	public static final String STAGE_X9_WRITE = "stage.x9.write";
+	public static final String STAGE_CSV_WRITE = "stage.csv.write";
+	public static final String STAGE_EXPORT = "stage.export";
+	private static final long DEFAULT_REPORT_SECONDS = 10;
+	private static final double NANOS_PER_SECOND = 1_000_000_000d;
+	private static final double NANOS_PER_MICRO = 1_000d;
+	private static final double NANOS_PER_MILLI = 1_000_000d;
+	private static final int PROFILE_NAME_WIDTH = 22;
+	private static final int PROFILE_COLUMN_WIDTH = 14;
+	private static final double[] PERCENTILES = { 0.50d, 0.95d, 0.99d };
+	private static final String[] PERCENTILE_NAMES = { "p50", "p95", "p99" };
+
+	/**
+	 * Logger instance.
+	 */
+	private static final Logger LOGGER = LoggerFactory.getLogger(X9UtilMetrics.class);
+
+	/**
+	 * X9UtilMetrics Constructor.
+	 *
+	 * @param work_Unit
+	 *            current work unit
+	 */
+	public X9UtilMetrics(final X9UtilWorkUnit work_Unit) {
+		workUnit = work_Unit;
+		isEnabled = workUnit.isCommandSwitchSet(SWITCH_METRICS);
+		isProfileEnabled = workUnit.isCommandSwitchSet(X9UtilWorkUnit.SWITCH_PROFILE);
+		isRecording = isEnabled || isProfileEnabled;
+		final String interval = workUnit.getCommandSwitchValue(SWITCH_METRICS);
+		final int seconds = StringUtils.isBlank(interval) ? 0 : X9Numeric.toInt(interval);
+		reportSeconds = seconds > 0 ? seconds : DEFAULT_REPORT_SECONDS;
+	}
+
+	/**
+	 * Determine if metrics are enabled.
+	 *
+	 * @return true or false
+	 */
+	public boolean isEnabled() {
+		return isEnabled;
+	}
+
+	/**
+	 * Start the periodic report when metrics are enabled.
+	 */
+	public void start() {
+		startNanos = System.nanoTime();
+		lastReportNanos = startNanos;
+		if (isEnabled) {
+			reportService = Executors.newSingleThreadScheduledExecutor(runnable -> {
+				final Thread thread = new Thread(runnable, "X9UtilMetrics");
+				thread.setDaemon(true);
+				return thread;
+			});
+			reportService.scheduleAtFixedRate(this::logReport, reportSeconds, reportSeconds,
+					TimeUnit.SECONDS);
+			LOGGER.info("metrics started reportSeconds({})", reportSeconds);
+		}
+	}
+
+	/**
+	 * Increment a counter.
+	 *
+	 * @param name
+	 *            counter name
+	 * @param delta
+	 *            increment value
+	 */
+	public void count(final String name, final long delta) {
+		if (isRecording) {
+			counters.computeIfAbsent(name, key -> new LongAdder()).add(delta);
+		}
+	}
+
+	/**
+	 * Record an x9 record that has been read.
+	 *
+	 * @param data
+	 *            record data
+	 */
+	public void recordRead(final byte[] data) {
+		if (isRecording) {
+			count(RECORDS_READ, 1);
+			count(BYTES_READ, data == null ? 0 : data.length);
+		}
+	}
+
+	/**
+	 * Record an x9 record that has been written.
+	 *
+	 * @param data
+	 *            record data
+	 */
+	public void recordWrite(final byte[] data) {
+		if (isRecording) {
+			count(RECORDS_WRITTEN, 1);
+			count(BYTES_WRITTEN, data == null ? 0 : data.length);
+		}
+	}
+
+	/**
+	 * Get a start time for a latency measurement, which is zero when recording is disabled.
+	 *
+	 * @return start time in nanoseconds
+	 */
+	public long startTimer() {
+		return isRecording ? System.nanoTime() : 0;
+	}
+
+	/**
+	 * Record the latency of a stage from a start time obtained from startTimer().
+	 *
+	 * @param name
+	 *            stage name
+	 * @param timerStart
+	 *            start time in nanoseconds
+	 */
+	public void recordLatency(final String name, final long timerStart) {
+		if (isRecording) {
+			histograms.computeIfAbsent(name, key -> new Histogram())
+					.record(System.nanoTime() - timerStart);
+		}
+	}
+
+	/**
+	 * Register a gauge which is sampled each time the metrics are reported.
+	 *
+	 * @param name
+	 *            gauge name
+	 * @param supplier
+	 *            gauge value supplier
+	 */
+	public void registerGauge(final String name, final LongSupplier supplier) {
+		if (isEnabled) {
+			gauges.put(name, supplier);
+		}
+	}
+
+	@Override
+	public void close() {
+		/*
+		 * Stop the periodic report and then write the final report and json file.
+		 */
+		if (reportService != null) {
+			reportService.shutdownNow();
+			reportService = null;
+			logReport();
+			writeJsonFile(workUnit.makeMetricsFile());
+		}
+
+		/*
+		 * Log the stage breakdown when profiling.
+		 */
+		if (isProfileEnabled) {
+			logProfile();
+		}
+	}
+
+	/**
+	 * Log the profile breakdown table, listing the call count, total time, average time, and
+	 * percentage of the elapsed time for each recorded latency. Time which is not attributed to any
+	 * latency is reported as other. Latencies that are recorded from worker threads can overlap, in
+	 * which case their total exceeds the elapsed time and other is reported as zero.
+	 */
+	private void logProfile() {
+		/*
+		 * Log the heading lines.
+		 */
+		final long elapsedNanos = Math.max(1, System.nanoTime() - startNanos);
+		LOGGER.info("profile function({}) elapsed({} ms)", workUnit.utilFunctionName,
+				formatDecimal(elapsedNanos / NANOS_PER_MILLI));
+		LOGGER.info("{}", formatProfileLine("stage", "calls", "total ms", "avg us", "pct"));
+
+		/*
+		 * Log each latency which has been recorded.
+		 */
+		long recordedNanos = 0;
+		for (final Entry<String, Histogram> entry : new TreeMap<>(histograms).entrySet()) {
+			final Histogram histogram = entry.getValue();
+			final long nanos = histogram.getTotal();
+			recordedNanos += nanos;
+			LOGGER.info("{}", formatProfileLine(entry.getKey(),
+					Long.toString(histogram.getCount()), formatDecimal(nanos / NANOS_PER_MILLI),
+					formatDecimal(histogram.getMean() / NANOS_PER_MICRO),
+					formatDecimal(nanos * 100d / elapsedNanos) + "%"));
+		}
+
+		/*
+		 * Log the remaining time which was not attributed to a latency.
+		 */
+		final long otherNanos = Math.max(0, elapsedNanos - recordedNanos);
+		LOGGER.info("{}", formatProfileLine("other", "",
+				formatDecimal(otherNanos / NANOS_PER_MILLI), "",
+				formatDecimal(otherNanos * 100d / elapsedNanos) + "%"));
+	}
+
+	/**
+	 * Format a profile breakdown table line.
+	 *
+	 * @param name
+	 *            latency name
+	 * @param calls
+	 *            call count
+	 * @param total
+	 *            total time
+	 * @param average
+	 *            average time
+	 * @param percent
+	 *            percent of elapsed time
+	 * @return formatted line
+	 */
+	private static String formatProfileLine(final String name, final String calls,
+			final String total, final String average, final String percent) {
+		return StringUtils.rightPad(name, PROFILE_NAME_WIDTH)
+				+ StringUtils.leftPad(calls, PROFILE_COLUMN_WIDTH)
+				+ StringUtils.leftPad(total, PROFILE_COLUMN_WIDTH)
+				+ StringUtils.leftPad(average, PROFILE_COLUMN_WIDTH)
+				+ StringUtils.leftPad(percent, PROFILE_COLUMN_WIDTH);
+	}
+
+	/**
+	 * Log the current metrics as a single structured log line, with counter rates computed over
+	 * the interval since the previous report.
+	 */
+	private synchronized void logReport() {
+		final long now = System.nanoTime();
+		final double intervalSeconds = Math.max(1, now - lastReportNanos) / NANOS_PER_SECOND;
+		lastReportNanos = now;
+		final StringBuilder sb = new StringBuilder("metrics function(")
+				.append(workUnit.utilFunctionName).append(") elapsed(")
+				.append(formatDecimal((now - startNanos) / NANOS_PER_SECOND)).append(')');
+
+		/*
+		 * Counters with their rate for this interval.
+		 */
+		for (final Entry<String, LongAdder> entry : new TreeMap<>(counters).entrySet()) {
+			final long count = entry.getValue().sum();
+			final Long lastCount = lastReportedCounts.put(entry.getKey(), count);
+			final double rate = (count - (lastCount == null ? 0 : lastCount)) / intervalSeconds;
+			sb.append(' ').append(entry.getKey()).append('(').append(count).append(") ")
+					.append(entry.getKey()).append("/sec(").append(formatDecimal(rate))
+					.append(')');
+		}
+
+		/*
+		 * Gauges.
+		 */
+		for (final Entry<String, LongSupplier> entry : new TreeMap<>(gauges).entrySet()) {
+			sb.append(' ').append(entry.getKey()).append('(')
+					.append(entry.getValue().getAsLong()).append(')');
+		}
+
+		/*
+		 * Latency percentiles in microseconds.
+		 */
+		for (final Entry<String, Histogram> entry : new TreeMap<>(histograms).entrySet()) {
+			final Histogram histogram = entry.getValue();
+			sb.append(' ').append(entry.getKey()).append(".count(").append(histogram.getCount())
+					.append(')');
+			for (int i = 0; i < PERCENTILES.length; i++) {
+				sb.append(' ').append(entry.getKey()).append('.').append(PERCENTILE_NAMES[i])
+						.append("us(")
+						.append(formatDecimal(histogram.getPercentile(PERCENTILES[i])
+								/ NANOS_PER_MICRO))
+						.append(')');
+			}
+		}
+
+		LOGGER.info(sb.toString());
+	}
+
+	/**
+	 * Write the final metrics to a json file.
+	 *
+	 * @param jsonFile
+	 *            json output file or null when no output file can be determined
+	 */
+	private void writeJsonFile(final File jsonFile) {
+		if (jsonFile == null) {
+			return;
+		}
+
+		final double elapsedSeconds = Math.max(1, System.nanoTime() - startNanos)
+				/ NANOS_PER_SECOND;
+		final StringBuilder sb = new StringBuilder(1024);
+		sb.append("{\n  \"function\": \"").append(workUnit.utilFunctionName)
+				.append("\",\n  \"elapsedSeconds\": ").append(formatDecimal(elapsedSeconds));
+
+		/*
+		 * Counters with their overall rates.
+		 */
+		sb.append(",\n  \"counters\": {");
+		String separator = "\n";
+		for (final Entry<String, LongAdder> entry : new TreeMap<>(counters).entrySet()) {
+			final long count = entry.getValue().sum();
+			sb.append(separator).append("    \"").append(entry.getKey())
+					.append("\": { \"total\": ").append(count).append(", \"perSecond\": ")
+					.append(formatDecimal(count / elapsedSeconds)).append(" }");
+			separator = ",\n";
+		}
+		sb.append("\n  }");
+
+		/*
+		 * Gauges as sampled at completion.
+		 */
+		sb.append(",\n  \"gauges\": {");
+		separator = "\n";
+		for (final Entry<String, LongSupplier> entry : new TreeMap<>(gauges).entrySet()) {
+			sb.append(separator).append("    \"").append(entry.getKey()).append("\": ")
+					.append(entry.getValue().getAsLong());
+			separator = ",\n";
+		}
+		sb.append("\n  }");
+
+		/*
+		 * Latency histograms in microseconds.
+		 */
+		sb.append(",\n  \"latencies\": {");
+		separator = "\n";
+		for (final Entry<String, Histogram> entry : new TreeMap<>(histograms).entrySet()) {
+			final Histogram histogram = entry.getValue();
+			sb.append(separator).append("    \"").append(entry.getKey())
+					.append("\": { \"count\": ").append(histogram.getCount())
+					.append(", \"meanMicros\": ")
+					.append(formatDecimal(histogram.getMean() / NANOS_PER_MICRO));
+			for (int i = 0; i < PERCENTILES.length; i++) {
+				sb.append(", \"").append(PERCENTILE_NAMES[i]).append("Micros\": ")
+						.append(formatDecimal(
+								histogram.getPercentile(PERCENTILES[i]) / NANOS_PER_MICRO));
+			}
+			sb.append(", \"maxMicros\": ")
+					.append(formatDecimal(histogram.getMax() / NANOS_PER_MICRO)).append(" }");
+			separator = ",\n";
+		}
+		sb.append("\n  }\n}\n");
+
+		try {
+			Files.write(jsonFile.toPath(), sb.toString().getBytes(StandardCharsets.UTF_8));
+			LOGGER.info("metrics written jsonFile({})", jsonFile);
+		} catch (final Exception ex) {
+			LOGGER.warn("unable to write metrics jsonFile({})", jsonFile, ex);
+		}
+	}
+
+	/**
+	 * Format a decimal value with two decimal places. The root locale is used so the decimal
+	 * separator is always a period, which is required for the json metrics file.
+	 *
+	 * @param value
+	 *            value to be formatted
+	 * @return formatted value
+	 */
+	private static String formatDecimal(final double value) {
+		return String.format(Locale.ROOT, "%.2f", value);
+	}
+
+	/**
+	 * Histogram accumulates latency values into power of two nanosecond buckets.
+	 */
+	private static final class Histogram {
+
+		/*
+		 * Private.
+		 */
+		private final AtomicLongArray buckets = new AtomicLongArray(Long.SIZE);
+		private final LongAdder count = new LongAdder();
+		private final LongAdder total = new LongAdder();
+		private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+		/**
+		 * Record a single latency value.
+		 *
+		 * @param nanos
+		 *            latency in nanoseconds
+		 */
+		private void record(final long nanos) {
+			final long value = Math.max(0, nanos);
+			buckets.incrementAndGet(Long.SIZE - 1 - Long.numberOfLeadingZeros(value | 1));
+			count.increment();
+			total.add(value);
+			max.accumulate(value);
+		}
+
+		/**
+		 * Get the number of recorded values.
+		 *
+		 * @return count
+		 */
+		private long getCount() {
+			return count.sum();
+		}
+
+		/**
+		 * Get the total of the recorded values.
+		 *
+		 * @return total in nanoseconds
+		 */
+		private long getTotal() {
+			return total.sum();
+		}
+
+		/**
+		 * Get the mean of the recorded values.
+		 *
+		 * @return mean in nanoseconds
+		 */
+		private double getMean() {
+			final long n = count.sum();
+			return n == 0 ? 0 : (double) total.sum() / n;
+		}
+
+		/**
+		 * Get the maximum recorded value.
+		 *
+		 * @return maximum in nanoseconds
+		 */
+		private double getMax() {
+			return max.get();
+		}
+
+		/**
+		 * Get the upper bound of the bucket which contains the requested percentile.
+		 *
+		 * @param percentile
+		 *            percentile as a fraction
+		 * @return percentile upper bound in nanoseconds
+		 */
+		private double getPercentile(final double percentile) {
+			final long n = count.sum();
+			if (n == 0) {
+				return 0;
+			}
+			final long target = (long) Math.ceil(n * percentile);
+			long cumulative = 0;
+			for (int i = 0; i < buckets.length(); i++) {
+				cumulative += buckets.get(i);
+				if (cumulative >= target) {
+					return Math.min(Math.pow(2, i + 1), getMax());
+				}
+			}
+			return getMax();
+		}
+
+	}
+
+}
@@ -0,0 +1,137 @@
+package sdkUtilities;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.Supplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.x9ware.actions.X9Exception;
+import com.x9ware.tools.X9CountDownLatch;
+import com.x9ware.tools.X9TaskMonitor;
+import com.x9ware.tools.X9TaskWorker;
+import com.x9ware.tools.X9Thread;
+
+/**
+ * X9UtilMultiFileMonitor directs multi-file activities against a series of one or more entries,
+ * and is shared by those functions which process a folder of files concurrently. Entries are placed
+ * on a shared queue which is continuously drained by a bounded set of threads, so that no thread
+ * waits on the slowest file of a batch before it starts the next file. Each thread allocates its
+ * own function specific task, which is reused for all entries drained by that thread and posts
+ * results to the entry for each file. Each entry is run under its own task monitor, which retains
+ * all monitor safety checks (including thread cpu time) on a per-file basis. Results are then
+ * consolidated by the invoking function on completion, in the original entry list sequence.
+ *
+ * @param <T>
+ *            entry type
+ *
+ * @author X9Ware LLC. Copyright(c) 2012-2018 X9Ware LLC. All Rights Reserved. This is proprietary
+ *         software as developed and licensed by X9Ware LLC under the exclusive legal right of the
+ *         copyright holder. All licensees are provided the right to use the software only under
+ *         certain conditions, and are specifically restricted from other specific uses including
+ *         modification, sharing, reuse, redistribution, or reverse engineering.
+ */
+public final class X9UtilMultiFileMonitor<T> extends X9TaskMonitor<T> {
+
+	/*
+	 * Private.
+	 */
+	private final X9UtilMultiFileTask<T> task;
+
+	/**
+	 * Logger instance.
+	 */
+	private static final Logger LOGGER = LoggerFactory.getLogger(X9UtilMultiFileMonitor.class);
+
+	/**
+	 * X9UtilMultiFileMonitor Constructor.
+	 *
+	 * @param multiFile_Task
+	 *            function specific task for the draining thread
+	 */
+	public X9UtilMultiFileMonitor(final X9UtilMultiFileTask<T> multiFile_Task) {
+		super(1);
+		task = multiFile_Task;
+	}
+
+	@Override
+	public X9TaskWorker<T> allocateNewWorkerInstance(final List<T> workerList) {
+		return new X9UtilMultiFileWorker<>(this, workerList, task);
+	}
+
+	/**
+	 * Run background threads which drain a shared queue until all entries have been processed.
+	 * Entries are taken from the queue in their original list sequence.
+	 *
+	 * @param <T>
+	 *            entry type
+	 * @param workUnit
+	 *            current work unit
+	 * @param entryList
+	 *            list of entries to be processed
+	 * @param maximumThreadCount
+	 *            maximum thread count
+	 * @param taskFactory
+	 *            factory which allocates a new task for each thread
+	 */
+	public static <T> void runAllEntries(final X9UtilWorkUnit workUnit, final List<T> entryList,
+			final int maximumThreadCount, final Supplier<X9UtilMultiFileTask<T>> taskFactory) {
+		/*
+		 * Build a shared queue of all entries to be processed.
+		 */
+		final Queue<T> entryQueue = new ConcurrentLinkedQueue<>(entryList);
+		workUnit.getMetrics().registerGauge(X9UtilMetrics.FILES_QUEUED, entryQueue::size);
+
+		/*
+		 * Start a bounded set of threads which continuously drain the queue.
+		 */
+		final int threadCount = Math.max(1, Math.min(maximumThreadCount, entryList.size()));
+		try {
+			final X9CountDownLatch waitLatch = new X9CountDownLatch(threadCount);
+			for (int i = 0; i < threadCount; i++) {
+				X9Thread.startAndPost(() -> drainEntryQueue(entryQueue, taskFactory.get()),
+						waitLatch);
+			}
+			waitLatch.await();
+		} catch (final Exception ex) {
+			throw X9Exception.abort(ex);
+		}
+
+		/*
+		 * Log completion statistics.
+		 */
+		LOGGER.info("all tasks completed; threadCount({}) totalEntries({})", threadCount,
+				entryList.size());
+	}
+
+	/**
+	 * Drain the shared entry queue from a background thread, processing one entry at a time under
+	 * its own task monitor until the queue is empty. An entry which cannot be run is posted to the
+	 * task as aborted, so the remaining entries continue to be processed by this thread.
+	 *
+	 * @param <T>
+	 *            entry type
+	 * @param entryQueue
+	 *            shared queue of entries to be processed
+	 * @param task
+	 *            function specific task for this thread
+	 */
+	private static <T> void drainEntryQueue(final Queue<T> entryQueue,
+			final X9UtilMultiFileTask<T> task) {
+		T entry;
+		while ((entry = entryQueue.poll()) != null) {
+			try {
+				final List<T> workerList = new ArrayList<>(1);
+				workerList.add(entry);
+				final X9UtilMultiFileMonitor<T> taskMonitor = new X9UtilMultiFileMonitor<>(task);
+				taskMonitor.runWaitLog(workerList);
+			} catch (final Exception ex) {
+				task.abortEntry(entry, ex);
+			}
+		}
+	}
+
+}
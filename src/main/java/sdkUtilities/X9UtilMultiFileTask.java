@@ -0,0 +1,42 @@
+package sdkUtilities;
+
+/**
+ * X9UtilMultiFileTask defines the function specific processing for a single entry within a
+ * multi-file run that is directed by X9UtilMultiFileMonitor. A new task instance is allocated for
+ * each worker thread, which allows a task to retain resources (such as a bound sdkBase) that are
+ * reused across all entries that are assigned to that worker.
+ *
+ * @param <T>
+ *            entry type
+ *
+ * @author X9Ware LLC. Copyright(c) 2012-2018 X9Ware LLC. All Rights Reserved. This is proprietary
+ *         software as developed and licensed by X9Ware LLC under the exclusive legal right of the
+ *         copyright holder. All licensees are provided the right to use the software only under
+ *         certain conditions, and are specifically restricted from other specific uses including
+ *         modification, sharing, reuse, redistribution, or reverse engineering.
+ */
+public interface X9UtilMultiFileTask<T> {
+
+	/**
+	 * Process a single entry and post the results to that entry.
+	 *
+	 * @param entry
+	 *            entry to be processed
+	 * @return true for meaningful work performed
+	 * @throws Exception
+	 */
+	boolean processEntry(final T entry) throws Exception;
+
+	/**
+	 * Post an exception to an entry which could not be processed. This allows the aborted entry
+	 * to be included in the consolidated results without preventing the remaining entries from
+	 * being processed.
+	 *
+	 * @param entry
+	 *            entry which was aborted
+	 * @param ex
+	 *            exception which was thrown
+	 */
+	void abortEntry(final T entry, final Exception ex);
+
+}
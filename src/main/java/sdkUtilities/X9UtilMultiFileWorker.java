@@ -0,0 +1,60 @@
+package sdkUtilities;
+
+import java.util.List;
+
+import com.x9ware.tools.X9TaskMonitor;
+import com.x9ware.tools.X9TaskWorker;
+
+/**
+ * X9UtilMultiFileWorker processes a series of entries as initiated from a worker task, using the
+ * function specific task which has been allocated for this worker. Each entry is processed within
+ * a try so that an aborted entry is posted to the consolidated results and does not prevent the
+ * remaining entries from being processed.
+ *
+ * @param <T>
+ *            entry type
+ *
+ * @author X9Ware LLC. Copyright(c) 2012-2018 X9Ware LLC. All Rights Reserved. This is proprietary
+ *         software as developed and licensed by X9Ware LLC under the exclusive legal right of the
+ *         copyright holder. All licensees are provided the right to use the software only under
+ *         certain conditions, and are specifically restricted from other specific uses including
+ *         modification, sharing, reuse, redistribution, or reverse engineering.
+ */
+public final class X9UtilMultiFileWorker<T> extends X9TaskWorker<T> {
+
+	/*
+	 * Private.
+	 */
+	private final X9UtilMultiFileTask<T> task;
+
+	/**
+	 * X9UtilMultiFileWorker Constructor.
+	 *
+	 * @param task_Monitor
+	 *            associated task monitor for call backs
+	 * @param workerList
+	 *            list of entries to be processed
+	 * @param multiFile_Task
+	 *            function specific task for this worker
+	 */
+	public X9UtilMultiFileWorker(final X9TaskMonitor<T> task_Monitor, final List<T> workerList,
+			final X9UtilMultiFileTask<T> multiFile_Task) {
+		super(task_Monitor, workerList);
+		task = multiFile_Task;
+	}
+
+	@Override
+	public boolean processOneEntry(final T entry) {
+		try {
+			return task.processEntry(entry);
+		} catch (final Exception ex) {
+			task.abortEntry(entry, ex);
+		}
+
+		/*
+		 * Return true for meaningful work performed.
+		 */
+		return true;
+	}
+
+}
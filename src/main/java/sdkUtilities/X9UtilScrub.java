@@ -2,7 +2,14 @@ package sdkUtilities;
 
 import java.io.File;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -10,15 +17,23 @@ import org.slf4j.LoggerFactory;
 import com.x9ware.actions.X9Exception;
 import com.x9ware.apacheIO.FilenameUtils;
 import com.x9ware.beans.X9ScrubBean;
+import com.x9ware.create.X9Scrub;
 import com.x9ware.create.X9ScrubXml;
+import com.x9ware.options.X9Options;
+import com.x9ware.toolbox.X9RandomizedList;
+import com.x9ware.tools.X9CountDownLatch;
 import com.x9ware.tools.X9CsvWriter;
 import com.x9ware.tools.X9File;
-import com.x9ware.tools.X9Task;
+import com.x9ware.tools.X9FileUtils;
+import com.x9ware.tools.X9Thread;
 
 /**
  * X9UtilScrub is part of our utilities package which scrubs the contents of an x9 file (both x9 and
  * image components) to remove proprietary and confidential information. A summary of scrubbed field
- * actions is written to an output text file.
+ * actions is written to an output text file, in input file sequence, once all files have been
+ * scrubbed. When running multi-file, files are scheduled largest first onto a bounded set of
+ * threads which continuously drain the queue until all files have been scrubbed, so that no thread
+ * sits idle while another is still working on a large file.
  *
  * @author X9Ware LLC. Copyright(c) 2012-2018 X9Ware LLC. All Rights Reserved. This is proprietary
  *         software as developed and licensed by X9Ware LLC under the exclusive legal right of the
@@ -38,14 +53,9 @@ public final class X9UtilScrub {
 	 */
 	private final X9ScrubXml x9scrubXml = new X9ScrubXml();
 	private final int maximumThreadCount;
-	private final int maximumFilesPerIteration;
 	private final boolean isLoggingEnabled;
 	private X9CsvWriter csvWriter;
-
-	/*
-	 * Constants.
-	 */
-	private static final int MAXIMUM_FILES_PER_THREAD = 5;
+	private X9RandomizedList useCaseList;
 
 	/**
 	 * Logger instance.
@@ -61,8 +71,6 @@ public final class X9UtilScrub {
 		workUnit = work_Unit;
 		isLoggingEnabled = workUnit.isCommandSwitchSet(X9UtilWorkUnit.SWITCH_LOGGING);
 		maximumThreadCount = workUnit.getThreadCount();
-		maximumFilesPerIteration = X9Task.getSuggestedConcurrentThreads()
-				* MAXIMUM_FILES_PER_THREAD;
 		final X9ScrubBean scrubBean = x9scrubXml.loadScrubConfiguration(workUnit.secondaryFile);
 
 		/*
@@ -80,6 +88,7 @@ public final class X9UtilScrub {
 	 */
 	public int process() {
 		int exitStatus = X9UtilBatch.EXIT_STATUS_ABORTED;
+		useCaseList = loadUseCaseList();
 		try (final X9CsvWriter csv_Writer = new X9CsvWriter(workUnit.resultsFile)) {
 			csvWriter = csv_Writer;
 			exitStatus = allocateMonitorAndRunThreads(workUnit.getInputFileList(),
@@ -90,6 +99,53 @@ public final class X9UtilScrub {
 		return exitStatus;
 	}
 
+	/**
+	 * Load and validate the use case file as a randomized list. This is done once for the entire
+	 * run and the resulting list is then shared across all files being scrubbed, which avoids
+	 * parsing the same use case file for each individual file.
+	 *
+	 * @return use case list
+	 */
+	private X9RandomizedList loadUseCaseList() {
+		/*
+		 * Get the use case file. We allow the file name defined in the xml definition to be
+		 * relative or absolute.
+		 */
+		final X9ScrubBean.ScrubAttr scrubAttr = x9scrubXml.getAttr();
+		final String useCaseName = scrubAttr.useCaseFileName;
+		final File useCaseFile = X9FileUtils.appendFolderWhenNotAbsolute(useCaseName,
+				X9Options.getuseCaseFolder());
+
+		if (!X9FileUtils.existsWithPathTracing(useCaseFile)) {
+			throw X9Exception.abort("useCaseFile notFound({})", useCaseFile);
+		}
+
+		/*
+		 * Allocate and validate the random list.
+		 */
+		final X9RandomizedList randomUseCaseList = new X9RandomizedList(workUnit.getNewSdkBase(),
+				useCaseFile, X9Scrub.SCRUB_VALUES_PER_LINE,
+				X9Scrub.NUMBER_OF_LONGS_PER_LINE_IS_ZERO);
+
+		if (!randomUseCaseList.isValidList()) {
+			throw X9Exception.abort("useCase file format is invalid at lineNumber({}) content({})",
+					randomUseCaseList.getInvalidLineNumber(),
+					randomUseCaseList.getInvalidContent());
+		}
+
+		final int useCaseCount = randomUseCaseList.getNumberOfEntries();
+		if (useCaseCount == 0) {
+			throw X9Exception.abort("useCase file is empty");
+		}
+
+		/*
+		 * Set the list for sequential retrieval.
+		 */
+		randomUseCaseList.setSequentialRetrieval();
+		LOGGER.info("useCaseFile({}) loaded useCaseCount({})", useCaseFile, useCaseCount);
+		return randomUseCaseList;
+	}
+
 	/**
 	 * Allocate our task monitor and run background threads.
 	 *
@@ -120,48 +176,130 @@ public final class X9UtilScrub {
 			final File outputFile = workUnit.isCommandSwitchSet(X9UtilWorkUnit.SWITCH_MULTI_FILE)
 					? new File(outputFileOrFolder, FilenameUtils.getName(inputFile.toString()))
 					: outputFileOrFolder;
-			entryWorkingList.add(new X9UtilScrubEntry(workUnit, x9scrubXml, inputFile, outputFile));
+			entryWorkingList.add(new X9UtilScrubEntry(workUnit, x9scrubXml, useCaseList,
+					inputFile, outputFile));
 		}
 
 		/*
-		 * Scrub all files.
+		 * Order the files largest first. Scheduling the longest running files first minimizes the
+		 * time at the end of the run where only a single thread is still active. The original list
+		 * is retained in input sequence for our summary.
 		 */
-		int exitStatus = 0;
-		int iterationCount = 0;
-		if (entryWorkingList.size() > 0) {
-			/*
-			 * Build a list of all files to be scrubbed during this iteration. The list size is
-			 * limited for several reasons. First is that it keeps the thread cpu time from becoming
-			 * too excessive, which could trigger the monitor to falsely attempt to interrupt the
-			 * thread. Second is that if any thread unexpectedly aborts, then as least we minimize
-			 * the number of files that will not be processed due to the exception.
-			 */
-			iterationCount++;
-			int count = 0;
-			final List<X9UtilScrubEntry> entryList = new ArrayList<>();
-			while (count < maximumFilesPerIteration && entryWorkingList.size() > 0) {
-				count++; // count and pull from the end to improve efficiency
-				entryList.add(entryWorkingList.remove(entryWorkingList.size() - 1));
-			}
+		final List<X9UtilScrubEntry> entryScheduleList = new ArrayList<>(entryWorkingList);
+		Collections.sort(entryScheduleList, Comparator
+				.comparingLong((final X9UtilScrubEntry entry) -> entry.getInputFile().length())
+				.reversed());
+		final Queue<X9UtilScrubEntry> entryQueue = new ConcurrentLinkedQueue<>(entryScheduleList);
+		workUnit.getMetrics().registerGauge(X9UtilMetrics.FILES_QUEUED, entryQueue::size);
 
-			/*
-			 * Allocate our task monitor and run background threads.
-			 */
-			final X9UtilScrubMonitor taskMonitor = new X9UtilScrubMonitor(maximumThreadCount,
-					workUnit, csvWriter);
-			exitStatus = Math.max(taskMonitor.runWaitLog(entryList), exitStatus);
+		/*
+		 * Start a bounded set of threads which continuously drain the queue. Each file is run under
+		 * its own task monitor, which retains all monitor safety checks (including thread cpu time)
+		 * on a per-file basis, while threads never wait on other files to be completed.
+		 */
+		final int threadCount = Math.max(1, Math.min(maximumThreadCount, totalEntries));
+		final AtomicInteger exitStatus = new AtomicInteger(X9UtilBatch.EXIT_STATUS_ZERO);
+		final AtomicInteger filesAborted = new AtomicInteger();
+		try {
+			final X9CountDownLatch waitLatch = new X9CountDownLatch(threadCount);
+			for (int i = 0; i < threadCount; i++) {
+				X9Thread.startAndPost(
+						() -> drainEntryQueue(entryQueue, exitStatus, filesAborted), waitLatch);
+			}
+			waitLatch.await();
+		} catch (final Exception ex) {
+			throw X9Exception.abort(ex);
 		}
 
 		/*
-		 * Log iteration statistics.
+		 * Log completion statistics.
 		 */
-		LOGGER.info("all tasks completed; iterationCount({}) totalEntries({}) exitStatus({})",
-				iterationCount, totalEntries, exitStatus);
+		LOGGER.info(
+				"all tasks completed; threadCount({}) totalEntries({}) filesAborted({}) "
+						+ "exitStatus({})",
+				threadCount, totalEntries, filesAborted.get(), exitStatus.get());
 
 		/*
-		 * Return maximum exit status.
+		 * Write summary actions for all files in their original input sequence.
 		 */
-		return exitStatus;
+		writeSummaryActions(entryWorkingList);
+
+		/*
+		 * Return the aborted exit status when any file was aborted, and otherwise return the
+		 * maximum exit status across all files.
+		 */
+		return filesAborted.get() > 0 ? X9UtilBatch.EXIT_STATUS_ABORTED : exitStatus.get();
+	}
+
+	/**
+	 * Drain the shared entry queue from a background thread, scrubbing one file at a time until the
+	 * queue is empty. Exceptions (and aborted exit statuses) are logged and counted so that the
+	 * remaining files continue to be processed by this thread, and are then reflected in the
+	 * overall exit status once all files have been processed.
+	 *
+	 * @param entryQueue
+	 *            shared queue of files to be scrubbed
+	 * @param exitStatus
+	 *            maximum exit status across all files
+	 * @param filesAborted
+	 *            number of files which were aborted
+	 */
+	private void drainEntryQueue(final Queue<X9UtilScrubEntry> entryQueue,
+			final AtomicInteger exitStatus, final AtomicInteger filesAborted) {
+		X9UtilScrubEntry scrubEntry;
+		while ((scrubEntry = entryQueue.poll()) != null) {
+			try {
+				final List<X9UtilScrubEntry> entryList = new ArrayList<>(1);
+				entryList.add(scrubEntry);
+				final X9UtilScrubMonitor taskMonitor = new X9UtilScrubMonitor(1, workUnit);
+				final int fileExitStatus = taskMonitor.runWaitLog(entryList);
+				if (fileExitStatus < 0) {
+					filesAborted.incrementAndGet();
+					LOGGER.error("file({}) aborted exitStatus({})", scrubEntry.getInputFile(),
+							fileExitStatus);
+				} else {
+					exitStatus.accumulateAndGet(fileExitStatus, Math::max);
+				}
+			} catch (final Exception ex) {
+				filesAborted.incrementAndGet();
+				LOGGER.error("file({}) exception", scrubEntry.getInputFile(), ex);
+			}
+		}
+	}
+
+	/**
+	 * Write summary actions for all successfully scrubbed files to the output csv file. This is
+	 * done from a single thread after all workers have completed, which keeps the csv output in
+	 * input file sequence and removes the need for workers to share the csv writer.
+	 *
+	 * @param entryList
+	 *            list of scrub entries in input file sequence
+	 */
+	private void writeSummaryActions(final List<X9UtilScrubEntry> entryList) {
+		try {
+			for (final X9UtilScrubEntry scrubEntry : entryList) {
+				final Map<String, Integer> actionTally = scrubEntry.getActionTally();
+				if (actionTally != null) {
+					csvWriter.startNewLine();
+					csvWriter.addField(scrubEntry.getInputFile().toString());
+					csvWriter.addField(scrubEntry.getOutputFile().toString());
+					csvWriter.write();
+
+					for (final Entry<String, Integer> entry : actionTally.entrySet()) {
+						csvWriter.startNewLine();
+						csvWriter.addField(entry.getKey());
+						csvWriter.addField(Integer.toString(entry.getValue()));
+						csvWriter.write();
+					}
+
+					csvWriter.startNewLine();
+					csvWriter.addField("end");
+					csvWriter.write();
+				}
+			}
+		} catch (final Exception ex) {
+			throw X9Exception.abort(ex);
+		}
 	}
 
 }
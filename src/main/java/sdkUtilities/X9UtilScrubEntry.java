@@ -1,11 +1,20 @@
 package sdkUtilities;
 
 import java.io.File;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import com.x9ware.create.X9ScrubXml;
+import com.x9ware.toolbox.X9RandomizedList;
+import com.x9ware.tools.X9TallyMap;
 
 /**
- * X9UtilScrubEntry defines the attributes of a single file to be scrubbed.
+ * X9UtilScrubEntry defines the attributes of a single file to be scrubbed, along with the scrub
+ * actions as posted by the worker task. Actions are retained as an immutable snapshot, which allows
+ * summaries for all files to be written by a single thread once all concurrent scrubs complete.
  *
  * @author X9Ware LLC. Copyright(c) 2012-2018 X9Ware LLC. All Rights Reserved. This is proprietary
  *         software as developed and licensed by X9Ware LLC under the exclusive legal right of the
@@ -24,8 +33,10 @@ public final class X9UtilScrubEntry {
 	 * Private.
 	 */
 	private final X9ScrubXml scrubXml;
+	private final X9RandomizedList useCaseList;
 	private final File inputFile;
 	private final File outputFile;
+	private Map<String, Integer> actionTally;
 
 	/**
 	 * X9UtilScrubEntry Constructor.
@@ -34,15 +45,18 @@ public final class X9UtilScrubEntry {
 	 *            current work unit
 	 * @param scrub_Xml
 	 *            scrub xml definition to be applied
+	 * @param useCase_List
+	 *            use case list which is shared across all files
 	 * @param input_File
 	 *            current input file
 	 * @param output_File
 	 *            current output file
 	 */
 	public X9UtilScrubEntry(final X9UtilWorkUnit work_Unit, final X9ScrubXml scrub_Xml,
-			final File input_File, final File output_File) {
+			final X9RandomizedList useCase_List, final File input_File, final File output_File) {
 		workUnit = work_Unit;
 		scrubXml = scrub_Xml;
+		useCaseList = useCase_List;
 		inputFile = input_File;
 		outputFile = output_File;
 	}
@@ -65,6 +79,15 @@ public final class X9UtilScrubEntry {
 		return scrubXml;
 	}
 
+	/**
+	 * Get the use case list which is shared across all files.
+	 *
+	 * @return use case list
+	 */
+	public X9RandomizedList getUseCaseList() {
+		return useCaseList;
+	}
+
 	/**
 	 * Get the assigned input file.
 	 *
@@ -83,4 +106,27 @@ public final class X9UtilScrubEntry {
 		return outputFile;
 	}
 
+	/**
+	 * Set the scrub actions as an immutable snapshot of the scrub tally map.
+	 *
+	 * @param x9tallyMap
+	 *            scrub actions tally map
+	 */
+	public void setActionTally(final X9TallyMap x9tallyMap) {
+		final Map<String, Integer> tally = new TreeMap<>();
+		for (final Entry<String, AtomicInteger> entry : x9tallyMap.entrySet()) {
+			tally.put(entry.getKey(), entry.getValue().get());
+		}
+		actionTally = Collections.unmodifiableMap(tally);
+	}
+
+	/**
+	 * Get the scrub actions.
+	 *
+	 * @return scrub actions or null when this file was not successfully scrubbed
+	 */
+	public Map<String, Integer> getActionTally() {
+		return actionTally;
+	}
+
 }
@@ -3,7 +3,6 @@ package sdkUtilities;
 import java.util.List;
 
 import com.x9ware.base.X9SdkBase;
-import com.x9ware.tools.X9CsvWriter;
 import com.x9ware.tools.X9TaskMonitor;
 import com.x9ware.tools.X9TaskWorker;
 
@@ -26,7 +25,6 @@ public final class X9UtilScrubMonitor extends X9TaskMonitor<X9UtilScrubEntry> {
 	 * Private.
 	 */
 	private final X9UtilWorkUnit workUnit;
-	private final X9CsvWriter csvWriter;
 
 	/**
 	 * X9UtilScrubMonitor Constructor.
@@ -35,14 +33,10 @@ public final class X9UtilScrubMonitor extends X9TaskMonitor<X9UtilScrubEntry> {
 	 *            maximum thread count
 	 * @param work_Unit
 	 *            current work unit
-	 * @param csv_Writer
-	 *            common csv writer
 	 */
-	public X9UtilScrubMonitor(final int maximumThreadCount, final X9UtilWorkUnit work_Unit,
-			final X9CsvWriter csv_Writer) {
+	public X9UtilScrubMonitor(final int maximumThreadCount, final X9UtilWorkUnit work_Unit) {
 		super(maximumThreadCount);
 		workUnit = work_Unit;
-		csvWriter = csv_Writer;
 	}
 
 	@Override
@@ -57,7 +51,7 @@ public final class X9UtilScrubMonitor extends X9TaskMonitor<X9UtilScrubEntry> {
 		/*
 		 * Allocate and return a new scrub worker which will process a series of files.
 		 */
-		return new X9UtilScrubWorker(sdkBase, this, workerList, csvWriter);
+		return new X9UtilScrubWorker(sdkBase, this, workerList);
 	}
 
 }
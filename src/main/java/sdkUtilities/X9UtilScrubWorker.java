@@ -1,10 +1,7 @@
 package sdkUtilities;
 
 import java.io.File;
-import java.io.IOException;
 import java.util.List;
-import java.util.Map.Entry;
-import java.util.concurrent.atomic.AtomicInteger;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -16,16 +13,12 @@ import com.x9ware.base.X9SdkBase;
 import com.x9ware.base.X9SdkFactory;
 import com.x9ware.base.X9SdkIO;
 import com.x9ware.base.X9SdkObject;
-import com.x9ware.beans.X9ScrubBean;
 import com.x9ware.core.X9Reader;
 import com.x9ware.core.X9TotalsXml;
 import com.x9ware.create.X9Scrub;
 import com.x9ware.create.X9Scrub937;
 import com.x9ware.create.X9ScrubXml;
-import com.x9ware.options.X9Options;
 import com.x9ware.toolbox.X9RandomizedList;
-import com.x9ware.tools.X9CsvWriter;
-import com.x9ware.tools.X9FileUtils;
 import com.x9ware.tools.X9TallyMap;
 import com.x9ware.tools.X9TaskMonitor;
 import com.x9ware.tools.X9TaskWorker;
@@ -52,9 +45,9 @@ public class X9UtilScrubWorker extends X9TaskWorker<X9UtilScrubEntry> {
 	/*
 	 * Private.
 	 */
-	private final X9CsvWriter csvWriter;
 	private X9UtilWorkUnit workUnit;
 	private X9ScrubXml scrubXml;
+	private X9RandomizedList useCaseList;
 	private File inputFile;
 	private File outputFile;
 	private boolean isLoggingEnabled;
@@ -73,15 +66,12 @@ public class X9UtilScrubWorker extends X9TaskWorker<X9UtilScrubEntry> {
 	 *            associated task monitor for call backs
 	 * @param scrubList
 	 *            entry list to be scrubbed
-	 * @param csv_Writer
-	 *            common csv writer
 	 */
 	public X9UtilScrubWorker(final X9SdkBase sdk_Base,
-			final X9TaskMonitor<X9UtilScrubEntry> monitor, final List<X9UtilScrubEntry> scrubList,
-			final X9CsvWriter csv_Writer) {
+			final X9TaskMonitor<X9UtilScrubEntry> monitor,
+			final List<X9UtilScrubEntry> scrubList) {
 		super(monitor, scrubList);
 		sdkBase = sdk_Base;
-		csvWriter = csv_Writer;
 	}
 
 	@Override
@@ -93,6 +83,7 @@ public class X9UtilScrubWorker extends X9TaskWorker<X9UtilScrubEntry> {
 		inputFile = scrubEntry.getInputFile();
 		outputFile = scrubEntry.getOutputFile();
 		scrubXml = scrubEntry.getScrubXml();
+		useCaseList = scrubEntry.getUseCaseList();
 		isLoggingEnabled = workUnit.isCommandSwitchSet(X9UtilWorkUnit.SWITCH_LOGGING);
 
 		/*
@@ -101,9 +92,10 @@ public class X9UtilScrubWorker extends X9TaskWorker<X9UtilScrubEntry> {
 		final X9TempFile x9tempFile = X9UtilWorkUnit.getTempFileInstance(outputFile);
 
 		/*
-		 * Set the configuration name when provided; we otherwise default to file header.
+		 * Set the configuration name when provided; we otherwise default to the header of this
+		 * specific input file, which is needed when running multi-file.
 		 */
-		workUnit.autoBindToCommandLineConfiguration(sdkBase);
+		workUnit.autoBindToCommandLineConfiguration(sdkBase, inputFile);
 
 		/*
 		 * Our sdkBase is shared by all scrubs run from this same background thread. We now invoke
@@ -114,9 +106,10 @@ public class X9UtilScrubWorker extends X9TaskWorker<X9UtilScrubEntry> {
 		final X9Sdk sdk = X9SdkFactory.getSdk(sdkBase);
 		try (final X9SdkIO sdkIO = sdk.getSdkIO()) {
 			/*
-			 * Scrub processing.
+			 * Scrub processing, with the resulting actions posted to our entry.
 			 */
-			scrubOneFile(sdkIO, x9tempFile.getTemp(), x9trailerManager);
+			scrubEntry.setActionTally(
+					scrubOneFile(sdkIO, x9tempFile.getTemp(), x9trailerManager));
 		} catch (final Exception ex) {
 			/*
 			 * Set message when aborted.
@@ -169,46 +162,17 @@ public class X9UtilScrubWorker extends X9TaskWorker<X9UtilScrubEntry> {
 	 *            temp file to be written
 	 * @param x9trailerManager
 	 *            current trailer manager for file level totals
+	 * @return tally map of scrub actions
 	 * @throws Exception
 	 */
-	private void scrubOneFile(final X9SdkIO sdkIO, final File tempFile,
+	private X9TallyMap scrubOneFile(final X9SdkIO sdkIO, final File tempFile,
 			final X9TrailerManager x9trailerManager) throws Exception {
 		/*
-		 * Get the use case file and allocate a random list. We allow the file name defined in the
-		 * xml definition to be relative or absolute.
+		 * The use case list has been loaded and validated once for the entire run and is shared
+		 * across all files being scrubbed.
 		 */
-		final X9ScrubBean.ScrubAttr scrubAttr = scrubXml.getAttr();
-		final String useCaseName = scrubAttr.useCaseFileName;
-		final File useCaseFile = X9FileUtils.appendFolderWhenNotAbsolute(useCaseName,
-				X9Options.getuseCaseFolder());
-
-		if (!X9FileUtils.existsWithPathTracing(useCaseFile)) {
-			throw X9Exception.abort("useCaseFile notFound({})", useCaseFile);
-		}
-
-		final X9RandomizedList randomUseCaseList = new X9RandomizedList(sdkBase, useCaseFile,
-				X9Scrub.SCRUB_VALUES_PER_LINE, X9Scrub.NUMBER_OF_LONGS_PER_LINE_IS_ZERO);
-
-		final int useCaseCount = randomUseCaseList.getNumberOfEntries();
-		final boolean isRandomUseCaseListValid = randomUseCaseList.isValidList();
-
-		if (!isRandomUseCaseListValid) {
-			throw X9Exception.abort("useCase file format is invalid at lineNumber({}) content({})",
-					randomUseCaseList.getInvalidLineNumber(),
-					randomUseCaseList.getInvalidContent());
-		}
-
-		if (useCaseCount == 0) {
-			throw X9Exception.abort("useCase file is empty");
-		}
-
-		LOGGER.info("scrub with useCaseCount({}) inputFile({}) outputFile({})", useCaseCount,
-				inputFile, tempFile);
-
-		/*
-		 * Set the list for sequential retrieval.
-		 */
-		randomUseCaseList.setSequentialRetrieval();
+		LOGGER.info("scrub with useCaseCount({}) inputFile({}) outputFile({})",
+				useCaseList.getNumberOfEntries(), inputFile, tempFile);
 
 		/*
 		 * Open and read the x9 file to populate x9objects.
@@ -217,6 +181,7 @@ public class X9UtilScrubWorker extends X9TaskWorker<X9UtilScrubEntry> {
 			/*
 			 * Get first x9 record.
 			 */
+			final X9UtilMetrics metrics = workUnit.getMetrics();
 			X9SdkObject sdkObject = sdkIO.readNext();
 
 			/*
@@ -226,6 +191,7 @@ public class X9UtilScrubWorker extends X9TaskWorker<X9UtilScrubEntry> {
 				/*
 				 * Create and store a new x9object for this x9 record.
 				 */
+				metrics.recordRead(sdkObject.getDataByteArray());
 				final X9Object x9o = sdkIO.createAndStoreX9Object();
 
 				/*
@@ -259,40 +225,11 @@ public class X9UtilScrubWorker extends X9TaskWorker<X9UtilScrubEntry> {
 		sdkIO.openImageReader(inputFile);
 
 		/*
-		 * Scrub the file and write summary actions to our output csv file.
+		 * Scrub the file and return the summary actions.
 		 */
 		final X9Scrub x9scrub = new X9Scrub937(sdkBase, scrubXml);
 		x9scrub.scrubToFile(tempFile);
-		writeSummaryActions(x9scrub.getTallyMap());
-	}
-
-	/**
-	 * Write summary actions for a single file to the output csv writer.
-	 *
-	 * @param x9tallyMap
-	 *            current tally map of actions
-	 * @throws IOException
-	 */
-	private synchronized void writeSummaryActions(final X9TallyMap x9tallyMap) throws IOException {
-		/*
-		 * Walk the tree map and write the scrub actions csv to the output csv file. We must be
-		 * synchronized to ensure that our output csv lines remain together in the csv output.
-		 */
-		csvWriter.startNewLine();
-		csvWriter.addField(inputFile.toString());
-		csvWriter.addField(outputFile.toString());
-		csvWriter.write();
-
-		for (final Entry<String, AtomicInteger> entry : x9tallyMap.entrySet()) {
-			csvWriter.startNewLine();
-			csvWriter.addField(entry.getKey());
-			csvWriter.addField(Integer.toString(entry.getValue().get()));
-			csvWriter.write();
-		}
-
-		csvWriter.startNewLine();
-		csvWriter.addField("end");
-		csvWriter.write();
+		return x9scrub.getTallyMap();
 	}
 
 }
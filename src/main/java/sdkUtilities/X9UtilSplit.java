@@ -64,6 +64,11 @@ public final class X9UtilSplit {
 	 */
 	private final X9UtilWorkUnit workUnit;
 
+	/**
+	 * X9UtilMetrics instance which is shared by all threads of this work unit.
+	 */
+	private final X9UtilMetrics metrics;
+
 	/**
 	 * Tally of all swaps that were performed during this run.
 	 */
@@ -102,6 +107,7 @@ public final class X9UtilSplit {
 	 */
 	public X9UtilSplit(final X9UtilWorkUnit work_Unit) {
 		workUnit = work_Unit;
+		metrics = workUnit.getMetrics();
 		sdkBase = workUnit.getNewSdkBase();
 		x9walk = new X9Walk(sdkBase);
 		isLoggingEnabled = workUnit.isCommandSwitchSet(X9UtilWorkUnit.SWITCH_LOGGING);
@@ -810,7 +816,10 @@ public final class X9UtilSplit {
 			boolean isFieldValueMatched = false;
 			String matchCriteria = "";
 			for (final X9UtilSplitBean.Value value : fieldEntry.valueList) {
-				if (X9Matcher.isMatched(x9field, value.match, fieldValue)) {
+				final long matcherTimer = metrics.startTimer();
+				final boolean isMatched = X9Matcher.isMatched(x9field, value.match, fieldValue);
+				metrics.recordLatency(X9UtilMetrics.MATCHER_EVALUATION, matcherTimer);
+				if (isMatched) {
 					isFieldValueMatched = true;
 					matchCriteria = value.match;
 					break;
@@ -882,6 +891,7 @@ public final class X9UtilSplit {
 			 */
 
 			sdkIO.writeOutputFile(sdkObject);
+			metrics.recordWrite(sdkObject.getDataByteArray());
 
 			/*
 			 * Log if debugging.
@@ -987,6 +997,7 @@ public final class X9UtilSplit {
 				 * Store all x9objects on the heap.
 				 */
 				recordCount++;
+				metrics.recordRead(sdkObject.getDataByteArray());
 				final X9Object x9o = sdkIO.createAndStoreX9Object();
 
 				if (x9o.isItem()) {
@@ -0,0 +1,292 @@
+package sdkUtilities;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.x9ware.actions.X9Exception;
+import com.x9ware.apacheIO.FilenameUtils;
+import com.x9ware.tools.X9CommandLine;
+import com.x9ware.tools.X9FileUtils;
+import com.x9ware.tools.X9Folder;
+import com.x9ware.tools.X9Task;
+
+/**
+ * X9UtilTraining runs x9utilities in a training mode which is used to create a class data sharing
+ * (AppCDS) archive for subsequent launches. The JVM is started by the training launcher script with
+ * the loaded class list being recorded, and we then exercise every utilities function so that their
+ * classes (including the JAXB runtime and the xml beans used for parameter files) are loaded and
+ * recorded within that list. All classes of this package are first explicitly loaded and
+ * initialized, where the list is taken from the package itself (within either the jar or the class
+ * folder) so that it is never out of date as functions and their helper classes are added. This
+ * also covers functions which require parameter files that we do not have available here. Each of
+ * the functions which can be run against a single x9 sample file is then actually executed, which
+ * additionally records the sdk read, write, image, and jaxb classes that are only loaded at run
+ * time. Scrub and split are executed when their parameter files (scrub.xml and split.xml) are
+ * present in the training folder, and functions from the function table which were not executed are
+ * logged. All training output is written to a new time stamped subfolder of the training folder.
+ * The launcher script then creates the archive from the recorded class list, which the standard
+ * launcher script will use automatically when present. Failures of individual training functions
+ * are logged but do not fail the training run, since the purpose here is only to load classes and
+ * not to validate the sample file.
+ *
+ * @author X9Ware LLC. Copyright(c) 2012-2018 X9Ware LLC. All Rights Reserved. This is proprietary
+ *         software as developed and licensed by X9Ware LLC under the exclusive legal right of the
+ *         copyright holder. All licensees are provided the right to use the software only under
+ *         certain conditions, and are specifically restricted from other specific uses including
+ *         modification, sharing, reuse, redistribution, or reverse engineering.
+ */
+public final class X9UtilTraining {
+
+	/*
+	 * Private.
+	 */
+	private final X9UtilBatch x9utilBatch;
+	private final File trainingFolder;
+	private final File sampleFile;
+
+	/*
+	 * Constants.
+	 */
+	public static final String SWITCH_TRAIN = "train";
+	private static final String TRAINING_FOLDER_PATTERN = "'training_'yyyyMMdd_HHmmss";
+	private static final String SCRUB_PARAMETERS = "scrub.xml";
+	private static final String SPLIT_PARAMETERS = "split.xml";
+	private static final String CLASS_SUFFIX = ".class";
+
+	/**
+	 * Logger instance.
+	 */
+	private static final Logger LOGGER = LoggerFactory.getLogger(X9UtilTraining.class);
+
+	/**
+	 * X9UtilTraining Constructor.
+	 *
+	 * @param x9util_Batch
+	 *            batch environment which has already been opened
+	 * @param training_Folder
+	 *            folder where training output is written
+	 * @param sample_File
+	 *            sample x9 file which is used to exercise the functions or null
+	 */
+	public X9UtilTraining(final X9UtilBatch x9util_Batch, final File training_Folder,
+			final File sample_File) {
+		x9utilBatch = x9util_Batch;
+		trainingFolder = training_Folder;
+		sampleFile = sample_File;
+	}
+
+	/**
+	 * Run the training functions.
+	 *
+	 * @return exit status
+	 */
+	public int process() {
+		/*
+		 * Load and initialize all classes within this package.
+		 */
+		final long startTime = System.currentTimeMillis();
+		final List<String> classNames = getPackageClassNames();
+		for (final String className : classNames) {
+			try {
+				Class.forName(className, true, X9UtilTraining.class.getClassLoader());
+			} catch (final ClassNotFoundException ex) {
+				throw X9Exception.abort(ex);
+			}
+		}
+		LOGGER.info("training classes loaded count({})", classNames.size());
+
+		/*
+		 * Execute each function against the sample file when one has been provided.
+		 */
+		int functionsRun = 0;
+		int functionsFailed = 0;
+		if (sampleFile == null) {
+			LOGGER.warn("training sample file not provided; functions will not be executed");
+		} else if (!X9FileUtils.existsWithPathTracing(sampleFile)) {
+			throw X9Exception.abort("training sample file notFound({})", sampleFile);
+		} else {
+			final File outputFolder = new File(trainingFolder,
+					new SimpleDateFormat(TRAINING_FOLDER_PATTERN).format(new Date()));
+			X9Folder.createFolderWhenNeeded(outputFolder);
+			final List<String[]> commandLines = getTrainingCommandLines(outputFolder);
+			for (final String[] args : commandLines) {
+				final X9UtilWorkResults workResults = x9utilBatch.execute(new X9CommandLine(args));
+				functionsRun++;
+				if (workResults.getExitStatus() < 0) {
+					functionsFailed++;
+				}
+			}
+			logFunctionsNotExecuted(commandLines);
+		}
+
+		/*
+		 * Log completion statistics.
+		 */
+		LOGGER.info("training completed elapsed({}) functionsRun({}) functionsFailed({})",
+				X9Task.formatElapsedSeconds(startTime), functionsRun, functionsFailed);
+		return X9UtilBatch.EXIT_STATUS_ZERO;
+	}
+
+	/**
+	 * Get the training command lines, which are run in sequence since later functions use the
+	 * output of earlier functions.
+	 *
+	 * @param outputFolder
+	 *            output folder for this training run
+	 * @return list of command lines
+	 */
+	private List<String[]> getTrainingCommandLines(final File outputFolder) {
+		final String sample = sampleFile.toString();
+		final String translateCsv = new File(outputFolder, "translate.csv").toString();
+		final String translateImages = new File(outputFolder, "translate_IMAGES").toString();
+		final String exportCsv = new File(outputFolder, "export.csv").toString();
+		final String exportImages = new File(outputFolder, "export_IMAGES").toString();
+		final List<String[]> commandLines = new ArrayList<>();
+		commandLines.add(new String[] { "-translate", "-a", "-i", sample, translateCsv,
+				translateImages });
+		commandLines.add(new String[] { "-import", translateCsv,
+				new File(outputFolder, "import.x9").toString(), translateImages });
+		commandLines.add(new String[] { "-export", "-xf", "-i", sample, exportCsv,
+				exportImages });
+		commandLines.add(new String[] { "-export", "-xmlh", sample,
+				new File(outputFolder, "export.xml").toString() });
+		commandLines.add(new String[] { "-export", "-xmls", sample,
+				new File(outputFolder, "exportStream.xml").toString() });
+		commandLines.add(new String[] { "-validate", sample,
+				new File(outputFolder, "validate.csv").toString() });
+		commandLines.add(new String[] { "-compare", sample, sample,
+				new File(outputFolder, "compare.txt").toString() });
+		commandLines.add(new String[] { "-compare", "-items", sample, sample,
+				new File(outputFolder, "compareItems.txt").toString() });
+
+		/*
+		 * Merge two copies of the sample file, which are not renamed on completion.
+		 */
+		final String extension = FilenameUtils.getExtension(sample);
+		final File mergeFolder = new File(outputFolder, "merge_INPUT");
+		X9Folder.createFolderWhenNeeded(mergeFolder);
+		try {
+			Files.copy(sampleFile.toPath(), new File(mergeFolder, "merge1." + extension).toPath());
+			Files.copy(sampleFile.toPath(), new File(mergeFolder, "merge2." + extension).toPath());
+		} catch (final Exception ex) {
+			throw X9Exception.abort(ex);
+		}
+		commandLines.add(new String[] { "-merge", "-dnr", "-exti:" + extension,
+				mergeFolder.toString(), new File(outputFolder, "merge.x9").toString() });
+
+		/*
+		 * Scrub and split when their parameter files are present in the training folder.
+		 */
+		final File scrubParameters = new File(trainingFolder, SCRUB_PARAMETERS);
+		if (scrubParameters.exists()) {
+			commandLines.add(new String[] { "-scrub", sample, scrubParameters.toString(),
+					new File(outputFolder, "scrub.x9").toString(),
+					new File(outputFolder, "scrub.csv").toString() });
+		} else {
+			LOGGER.warn("scrub not trained; parameters notFound({})", scrubParameters);
+		}
+
+		final File splitParameters = new File(trainingFolder, SPLIT_PARAMETERS);
+		if (splitParameters.exists()) {
+			final File splitFolder = new File(outputFolder, "split_OUTPUT");
+			X9Folder.createFolderWhenNeeded(splitFolder);
+			commandLines.add(new String[] { "-split", sample, splitParameters.toString(),
+					splitFolder.toString(), new File(outputFolder, "split.csv").toString() });
+		} else {
+			LOGGER.warn("split not trained; parameters notFound({})", splitParameters);
+		}
+		return commandLines;
+	}
+
+	/**
+	 * Log those functions from the function table which have not been executed, since their
+	 * run time classes are then not included in the recorded class list.
+	 *
+	 * @param commandLines
+	 *            training command lines which have been executed
+	 */
+	private static void logFunctionsNotExecuted(final List<String[]> commandLines) {
+		final List<String> functionsNotExecuted = new ArrayList<>();
+		for (final String functionName : X9UtilWorkUnit.FUNCTION_NAMES) {
+			boolean isExecuted = false;
+			for (final String[] args : commandLines) {
+				isExecuted |= StringUtils.equalsIgnoreCase(args[0], "-" + functionName);
+			}
+			if (!isExecuted) {
+				functionsNotExecuted.add(functionName.toLowerCase());
+			}
+		}
+		LOGGER.info("training functionsNotExecuted({})",
+				StringUtils.join(functionsNotExecuted, '|'));
+	}
+
+	/**
+	 * Get the names of all classes within this package, including nested classes, from either the
+	 * jar or the class folder which contains this class.
+	 *
+	 * @return list of class names
+	 */
+	private static List<String> getPackageClassNames() {
+		final String packagePath = X9UtilTraining.class.getPackage().getName().replace('.', '/')
+				+ "/";
+		final List<String> classNames = new ArrayList<>();
+		try {
+			final File codeSource = new File(X9UtilTraining.class.getProtectionDomain()
+					.getCodeSource().getLocation().toURI());
+			if (codeSource.isDirectory()) {
+				/*
+				 * List the class files within the package folder.
+				 */
+				final File[] files = new File(codeSource, packagePath).listFiles();
+				if (files != null) {
+					for (final File file : files) {
+						addClassName(classNames, packagePath + file.getName());
+					}
+				}
+			} else {
+				/*
+				 * List the class entries within the package folder of the jar.
+				 */
+				try (final JarFile jarFile = new JarFile(codeSource)) {
+					final Enumeration<JarEntry> entries = jarFile.entries();
+					while (entries.hasMoreElements()) {
+						final String entryName = entries.nextElement().getName();
+						if (entryName.startsWith(packagePath)
+								&& entryName.indexOf('/', packagePath.length()) < 0) {
+							addClassName(classNames, entryName);
+						}
+					}
+				}
+			}
+		} catch (final Exception ex) {
+			throw X9Exception.abort(ex);
+		}
+		return classNames;
+	}
+
+	/**
+	 * Add a class name to the list when the provided path is a class file.
+	 *
+	 * @param classNames
+	 *            list of class names
+	 * @param path
+	 *            class file path within the jar or class folder
+	 */
+	private static void addClassName(final List<String> classNames, final String path) {
+		if (StringUtils.endsWith(path, CLASS_SUFFIX)) {
+			classNames.add(StringUtils.removeEnd(path, CLASS_SUFFIX).replace('/', '.'));
+		}
+	}
+
+}
@@ -85,6 +85,8 @@ public final class X9UtilTranslate {
 	private final boolean isLoggingEnabled;
 	private final boolean isWriteAddenda;
 	private final boolean isImageExportEnabled;
+	private final boolean isImageWriteThreaded;
+	private final X9UtilMetrics metrics;
 	private X9Sdk sdk;
 	private File x9inputFile;
 	private File csvOutputFile;
@@ -100,6 +102,7 @@ public final class X9UtilTranslate {
 	private int addendumCount;
 	private int imageCount;
 	private X9TrailerManager x9trailerManager;
+	private X9UtilTranslateImageWriter imageWriter;
 
 	/*
 	 * Constants.
@@ -122,6 +125,9 @@ public final class X9UtilTranslate {
 		isLoggingEnabled = workUnit.isCommandSwitchSet(X9UtilWorkUnit.SWITCH_LOGGING);
 		isWriteAddenda = workUnit.isCommandSwitchSet(X9UtilWorkUnit.SWITCH_WRITE_ADDENDA);
 		isImageExportEnabled = workUnit.isCommandSwitchSet(X9UtilWorkUnit.SWITCH_IMAGE_EXPORT);
+		isImageWriteThreaded = isImageExportEnabled
+				&& workUnit.isCommandSwitchSet(X9UtilWorkUnit.SWITCH_THREADS);
+		metrics = workUnit.getMetrics();
 	}
 
 	/**
@@ -160,13 +166,25 @@ public final class X9UtilTranslate {
 		 * Read x9 and write csv.
 		 */
 		final X9TotalsXml x9totalsXml = new X9TotalsXml();
-		try (final X9SdkIO sdkIO = sdk.getSdkIO()) {
+		try (final X9SdkIO sdkIO = sdk.getSdkIO();
+				final X9UtilTranslateImageWriter x9imageWriter = isImageWriteThreaded
+						? new X9UtilTranslateImageWriter(workUnit.getThreadCount(), metrics)
+						: null) {
 			/*
 			 * Translate processing.
 			 */
+			imageWriter = x9imageWriter;
 			sdkIO.setExportedFileNamesRelative(true);
 			processTranslate(sdkIO);
 
+			/*
+			 * Wait for images which are being written by the background threads, since all images
+			 * must be in place before the csv file is renamed.
+			 */
+			if (imageWriter != null) {
+				imageWriter.awaitCompletion();
+			}
+
 			/*
 			 * Write end as the very last row.
 			 */
@@ -263,11 +281,12 @@ public final class X9UtilTranslate {
 			String imageViewCreatorRouting = "";
 			String imageViewCreatorDate = "";
 			X9SdkObject sdkObject = null;
-			while ((sdkObject = sdkIO.readNext()) != null) {
+			while ((sdkObject = readNext(sdkIO)) != null) {
 				/*
 				 * Increment counter and get the record type and record number.
 				 */
 				inputCount++;
+				metrics.recordRead(sdkObject.getDataByteArray());
 				final int recordNumber = sdkObject.getRecordNumber();
 				final int recordType = sdkObject.getRecordType();
 				final String recordFormat = sdkObject.getRecordFormat();
@@ -283,8 +302,10 @@ public final class X9UtilTranslate {
 				/*
 				 * Accumulate and roll totals.
 				 */
+				final long stageTimer = metrics.startTimer();
 				x9trailerManager.accumulateAndRollTotals(recordType, recordFormat,
 						sdkObject.getDataByteArray());
+				metrics.recordLatency(X9UtilMetrics.STAGE_TRAILER, stageTimer);
 
 				/*
 				 * Start a new item and assign front/back image relative file names.
@@ -372,7 +393,9 @@ public final class X9UtilTranslate {
 						 * Build the t25 array which is our preferred flavor of the type 25 record.
 						 */
 						checkCount++;
+						final long parseTimer = metrics.startTimer();
 						final X9Type25 t25 = new X9Type25(sdkBase, sdkObject.getDataByteArray());
+						metrics.recordLatency(X9UtilMetrics.STAGE_PARSE, parseTimer);
 						final String[] a25 = new String[X9Writer.ITEM_IMAGE_BACK_NAME + 1];
 						a25[0] = "t25";
 						a25[X9Writer.ITEM_AMOUNT] = t25.amount;
@@ -636,11 +659,19 @@ public final class X9UtilTranslate {
 									imageFolder, imageFileName, lastBundleFolderWritten);
 
 							/*
-							 * Export this image to the external image file.
+							 * Export this image to the external image file, which is handed to the
+							 * background image writer when threads have been requested.
 							 */
 							imageCount++;
 							final File imageFile = new File(imageFolder, imageFileName);
-							X9FileIO.writeFile(tiffArray, imageFile);
+							if (imageWriter != null) {
+								imageWriter.submit(tiffArray, imageFile);
+							} else {
+								final long imageTimer = metrics.startTimer();
+								X9FileIO.writeFile(tiffArray, imageFile);
+								metrics.recordLatency(X9UtilMetrics.IMAGE_WRITE, imageTimer);
+								metrics.count(X9UtilMetrics.IMAGES_WRITTEN, 1);
+							}
 
 							/*
 							 * Write the image line for returns file. Note that this is not done for
@@ -734,11 +765,14 @@ public final class X9UtilTranslate {
 	 * @throws IOException
 	 */
 	private void writeItem(final X9SdkIO sdkIO, final X9SdkObject sdkObject) throws IOException {
+		final long stageTimer = metrics.startTimer();
 		final byte[] x9data = sdkObject.getDataByteArray();
 		final BigDecimal amount = sdkBase.getObjectManager().getAmount(x9data,
 				sdkObject.getRecordFormat());
 		sdkObject.setItemAmount(amount);
-		writeCsv(sdkIO, sdkObject.getCsvArray());
+		final String[] csvArray = sdkObject.getCsvArray();
+		metrics.recordLatency(X9UtilMetrics.STAGE_PARSE, stageTimer);
+		writeCsv(sdkIO, csvArray);
 	}
 
 	/**
@@ -754,10 +788,28 @@ public final class X9UtilTranslate {
 			throws IOException {
 		if (isWriteAddenda) {
 			addendumCount++;
-			writeCsv(sdkIO, sdkObject.getCsvArray());
+			final long stageTimer = metrics.startTimer();
+			final String[] csvArray = sdkObject.getCsvArray();
+			metrics.recordLatency(X9UtilMetrics.STAGE_PARSE, stageTimer);
+			writeCsv(sdkIO, csvArray);
 		}
 	}
 
+	/**
+	 * Read the next x9 record, which is timed when profiling is enabled.
+	 *
+	 * @param sdkIO
+	 *            current sdkIO
+	 * @return sdkObject or null at end of file
+	 * @throws Exception
+	 */
+	private X9SdkObject readNext(final X9SdkIO sdkIO) throws Exception {
+		final long stageTimer = metrics.startTimer();
+		final X9SdkObject sdkObject = sdkIO.readNext();
+		metrics.recordLatency(X9UtilMetrics.STAGE_READ, stageTimer);
+		return sdkObject;
+	}
+
 	/**
 	 * Write the current csv array to the csv output writer.
 	 *
@@ -772,7 +824,10 @@ public final class X9UtilTranslate {
 		 * Write the next csv line.
 		 */
 		writeCount++;
+		final long stageTimer = metrics.startTimer();
 		sdkIO.putCsvFromArray(csvArray);
+		metrics.recordLatency(X9UtilMetrics.STAGE_CSV_WRITE, stageTimer);
+		metrics.count(X9UtilMetrics.CSV_LINES_WRITTEN, 1);
 
 		/*
 		 * Log when enabled.
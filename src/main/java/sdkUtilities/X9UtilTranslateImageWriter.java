@@ -0,0 +1,157 @@
+package sdkUtilities;
+
+import java.io.File;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.x9ware.actions.X9Exception;
+import com.x9ware.tools.X9FileIO;
+
+/**
+ * X9UtilTranslateImageWriter writes the images which are exported by translate using a small pool
+ * of background threads, while the translate thread continues to read the x9 file and write the
+ * csv lines in their original order. The image file names and bundle folders are assigned by the
+ * translate thread before each image is submitted, so the csv content is identical to that which
+ * is created when images are written inline. The number of images which are waiting to be written
+ * is bounded, which limits the heap that is held by pending images when the image folder is slower
+ * than the x9 reader. The first write failure is retained and is thrown on the translate thread
+ * when the next image is submitted or when translate waits for all writes to complete, which must
+ * be done before the csv file is renamed on completion.
+ *
+ * @author X9Ware LLC. Copyright(c) 2012-2018 X9Ware LLC. All Rights Reserved. This is proprietary
+ *         software as developed and licensed by X9Ware LLC under the exclusive legal right of the
+ *         copyright holder. All licensees are provided the right to use the software only under
+ *         certain conditions, and are specifically restricted from other specific uses including
+ *         modification, sharing, reuse, redistribution, or reverse engineering.
+ */
+public final class X9UtilTranslateImageWriter implements AutoCloseable {
+
+	/*
+	 * Private.
+	 */
+	private final int threadCount;
+	private final X9UtilMetrics metrics;
+	private final ExecutorService executorService;
+	private final Semaphore pendingImages;
+	private final AtomicInteger imagesWritten = new AtomicInteger();
+	private final AtomicReference<Exception> firstFailure = new AtomicReference<>();
+
+	/*
+	 * Constants.
+	 */
+	private static final int PENDING_IMAGES_PER_THREAD = 64;
+
+	/**
+	 * Logger instance.
+	 */
+	private static final Logger LOGGER = LoggerFactory.getLogger(X9UtilTranslateImageWriter.class);
+
+	/**
+	 * X9UtilTranslateImageWriter Constructor.
+	 *
+	 * @param thread_Count
+	 *            number of background write threads
+	 * @param x9util_Metrics
+	 *            metrics registry for the current work unit
+	 */
+	public X9UtilTranslateImageWriter(final int thread_Count, final X9UtilMetrics x9util_Metrics) {
+		threadCount = Math.max(1, thread_Count);
+		metrics = x9util_Metrics;
+		pendingImages = new Semaphore(threadCount * PENDING_IMAGES_PER_THREAD);
+		executorService = Executors.newFixedThreadPool(threadCount, runnable -> {
+			final Thread thread = new Thread(runnable, "X9UtilTranslateImageWriter");
+			thread.setDaemon(true);
+			return thread;
+		});
+		LOGGER.info("image writer started threadCount({}) pendingLimit({})", threadCount,
+				threadCount * PENDING_IMAGES_PER_THREAD);
+	}
+
+	/**
+	 * Submit an image to be written by the background threads. The translate thread waits here
+	 * when the pending image limit has been reached.
+	 *
+	 * @param tiffArray
+	 *            image to be written
+	 * @param imageFile
+	 *            image file to be written
+	 * @throws InterruptedException
+	 */
+	public void submit(final byte[] tiffArray, final File imageFile) throws InterruptedException {
+		throwWhenFailed();
+		pendingImages.acquire();
+		try {
+			executorService.execute(() -> writeImage(tiffArray, imageFile));
+		} catch (final RuntimeException ex) {
+			pendingImages.release();
+			throw ex;
+		}
+	}
+
+	/**
+	 * Wait for all submitted images to be written and throw the first write failure when any.
+	 *
+	 * @throws InterruptedException
+	 */
+	public void awaitCompletion() throws InterruptedException {
+		executorService.shutdown();
+		while (!executorService.awaitTermination(1, TimeUnit.SECONDS)) {
+			LOGGER.info("image writer waiting pendingImages({})",
+					threadCount * PENDING_IMAGES_PER_THREAD - pendingImages.availablePermits());
+		}
+		throwWhenFailed();
+	}
+
+	/**
+	 * Write a single image, retaining the first failure for the translate thread.
+	 *
+	 * @param tiffArray
+	 *            image to be written
+	 * @param imageFile
+	 *            image file to be written
+	 */
+	private void writeImage(final byte[] tiffArray, final File imageFile) {
+		try {
+			if (firstFailure.get() == null) {
+				final long imageTimer = metrics.startTimer();
+				X9FileIO.writeFile(tiffArray, imageFile);
+				metrics.recordLatency(X9UtilMetrics.IMAGE_WRITE, imageTimer);
+				metrics.count(X9UtilMetrics.IMAGES_WRITTEN, 1);
+				imagesWritten.incrementAndGet();
+			}
+		} catch (final Exception ex) {
+			if (firstFailure.compareAndSet(null, ex)) {
+				LOGGER.error("image write failed imageFile({})", imageFile, ex);
+			}
+		} finally {
+			pendingImages.release();
+		}
+	}
+
+	/**
+	 * Throw the first write failure when one has occurred.
+	 */
+	private void throwWhenFailed() {
+		final Exception ex = firstFailure.get();
+		if (ex != null) {
+			throw X9Exception.abort(ex);
+		}
+	}
+
+	@Override
+	public void close() {
+		/*
+		 * Pending writes are discarded when translate has ended without awaiting completion.
+		 */
+		executorService.shutdownNow();
+		LOGGER.info("image writer completed imagesWritten({})", imagesWritten.get());
+	}
+
+}
@@ -62,6 +62,11 @@ public final class X9UtilUpdate {
 	 */
 	private final X9UtilWorkUnit workUnit;
 
+	/**
+	 * X9UtilMetrics instance which is shared by all threads of this work unit.
+	 */
+	private final X9UtilMetrics metrics;
+
 	/**
 	 * Map of x9 field swaps to be applied. The map key is the record dot field (eg, 1.4) and the
 	 * map value is a list of the match-replace entries to be applied.
@@ -124,6 +129,7 @@ public final class X9UtilUpdate {
 	 */
 	public X9UtilUpdate(final X9UtilWorkUnit work_Unit) {
 		workUnit = work_Unit;
+		metrics = workUnit.getMetrics();
 		sdkBase = workUnit.getNewSdkBase();
 		x9trailerManager = new X9TrailerManager937(sdkBase); // accumulate output file totals
 		x9walk = new X9Walk(sdkBase);
@@ -257,6 +263,8 @@ public final class X9UtilUpdate {
 		 * Read until end of file.
 		 */
 		while (sdkObject != null) {
+			metrics.recordRead(sdkObject.getDataByteArray());
+
 			/*
 			 * Create a new x9object for this x9 record.
 			 */
@@ -312,8 +320,10 @@ public final class X9UtilUpdate {
 						/*
 						 * Determine if this is a match.
 						 */
+						final long matcherTimer = metrics.startTimer();
 						final String swapValue = X9Matcher.match(x9field, matchString, inputValue,
 								newValue);
+						metrics.recordLatency(X9UtilMetrics.MATCHER_EVALUATION, matcherTimer);
 
 						/*
 						 * Apply the replacement when matched.
@@ -393,6 +403,7 @@ public final class X9UtilUpdate {
 			sdkObject.setDataByteArray(x9o.x9ObjData);
 			sdkObject.buildOutput();
 			sdkIO.writeOutputFile(sdkObject);
+			metrics.recordWrite(sdkObject.getDataByteArray());
 
 			/*
 			 * Get next record.
@@ -2,6 +2,7 @@ package sdkUtilities;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.List;
 
 import org.apache.commons.lang3.StringUtils;
@@ -23,6 +24,8 @@ import com.x9ware.core.X9TotalsXml;
 import com.x9ware.error.X9Error;
 import com.x9ware.error.X9ErrorCounters;
 import com.x9ware.error.X9ErrorManager;
+import com.x9ware.tools.X9CsvWriter;
+import com.x9ware.tools.X9File;
 import com.x9ware.tools.X9TempFile;
 import com.x9ware.validate.X9TrailerManager;
 import com.x9ware.validate.X9TrailerManager937;
@@ -33,7 +36,10 @@ import com.x9ware.validate.X9Validator;
 /**
  * X9UtilValidate is part of our utilities package which validates an x9 file (both x9 and image
  * components). The x9 specification can be selected via a command line switch and will be defaulted
- * to x9.37. Any identified errors are written to an output text file.
+ * to x9.37. Any identified errors are written to an output text file. When multi-file (-xm) is
+ * selected, all files within the input folder are validated concurrently (each with their own
+ * sdkBase) and the errors for all files are written to a single consolidated results file, which
+ * includes the file name as the first column and per-file summary totals.
  *
  * @author X9Ware LLC. Copyright(c) 2012-2018 X9Ware LLC. All Rights Reserved. This is proprietary
  *         software as developed and licensed by X9Ware LLC under the exclusive legal right of the
@@ -53,6 +59,11 @@ public final class X9UtilValidate {
 	 */
 	private final X9UtilWorkUnit workUnit;
 
+	/**
+	 * X9UtilMetrics instance which is shared by all threads of this work unit.
+	 */
+	private final X9UtilMetrics metrics;
+
 	/*
 	 * Private.
 	 */
@@ -66,11 +77,15 @@ public final class X9UtilValidate {
 	private int checkCount;
 	private int creditCount;
 	private X9TrailerManager x9trailerManager;
+	private X9UtilValidateEntry validateEntry;
 
 	/*
 	 * Constants.
 	 */
 	private static final String NONE = "None";
+	private static final String ABORTED = "Aborted";
+	private static final String SUMMARY = "summary";
+	private static final String TOTALS = "totals";
 	private static final int HIGHEST_FIELD_NUMBER = 999;
 
 	/**
@@ -84,8 +99,27 @@ public final class X9UtilValidate {
 	 * @param work_Unit current work unit
 	 */
 	public X9UtilValidate(final X9UtilWorkUnit work_Unit) {
+		/*
+		 * Multi-file does not need an sdkBase here, since each file is validated by a worker
+		 * using its own sdkBase.
+		 */
+		this(work_Unit,
+				work_Unit.isCommandSwitchSet(X9UtilWorkUnit.SWITCH_MULTI_FILE) ? null
+						: work_Unit.getNewSdkBase());
+	}
+
+	/**
+	 * X9UtilValidate Constructor for a single file within a multi-file validation.
+	 *
+	 * @param work_Unit
+	 *            current work unit
+	 * @param sdk_Base
+	 *            sdkBase to be used for this file
+	 */
+	public X9UtilValidate(final X9UtilWorkUnit work_Unit, final X9SdkBase sdk_Base) {
 		workUnit = work_Unit;
-		sdkBase = workUnit.getNewSdkBase();
+		metrics = workUnit.getMetrics();
+		sdkBase = sdk_Base;
 		isLoggingEnabled = workUnit.isCommandSwitchSet(X9UtilWorkUnit.SWITCH_LOGGING);
 	}
 
@@ -96,6 +130,13 @@ public final class X9UtilValidate {
 	 * @return exit status
 	 */
 	public int process() {
+		/*
+		 * Validate all files within the input folder when multi-file is selected.
+		 */
+		if (workUnit.isCommandSwitchSet(X9UtilWorkUnit.SWITCH_MULTI_FILE)) {
+			return processMultiFile();
+		}
+
 		/*
 		 * Get work unit files.
 		 */
@@ -169,6 +210,191 @@ public final class X9UtilValidate {
 		/*
 		 * Return status based on identified errors.
 		 */
+		return getExitStatusFromErrors();
+	}
+
+	/**
+	 * Validate a single file as part of a multi-file validation, where identified errors and file
+	 * level totals are posted to the provided entry instead of being written to an output file.
+	 * This method is invoked from a worker thread and uses the sdkBase for this instance.
+	 *
+	 * @param validate_Entry
+	 *            validate entry for the file to be validated
+	 */
+	public void validateToEntry(final X9UtilValidateEntry validate_Entry) {
+		/*
+		 * Get the file to be validated.
+		 */
+		validateEntry = validate_Entry;
+		x9inputFile = validateEntry.getInputFile();
+
+		/*
+		 * Set the configuration name when provided; we otherwise default to this file header.
+		 */
+		sdk = X9SdkFactory.getSdk(sdkBase);
+		workUnit.autoBindToCommandLineConfiguration(sdkBase, x9inputFile);
+
+		/*
+		 * Allocate helper instances.
+		 */
+		x9trailerManager = new X9TrailerManager937(sdkBase);
+
+		/*
+		 * Allocate sdkIO, open the x9 file, and run the validator.
+		 */
+		try (final X9SdkIO sdkIO = sdk.getSdkIO();
+				final X9Reader x9reader = sdkIO.openInputFile(x9inputFile)) {
+			runValidator(sdkIO, x9reader);
+		} catch (final Exception ex) {
+			throw X9Exception.abort(ex);
+		} finally {
+			/*
+			 * Release all sdkBase storage (since we loaded the file to the heap).
+			 */
+			sdkBase.systemReset();
+		}
+
+		/*
+		 * Post our results to the entry.
+		 */
+		validateEntry.setResults(inputCount, checkCount, creditCount, errorCount,
+				X9MessageManager.getSeverityAsString(errorSeverity), getExitStatusFromErrors());
+		LOGGER.info(
+				"file({}) validated; input records({}) checks({}) credits({}) errorCount({}) "
+						+ "errorSeverity({})",
+				x9inputFile, inputCount, checkCount, creditCount, errorCount,
+				X9MessageManager.getSeverityAsString(errorSeverity));
+	}
+
+	/**
+	 * Validate all files within the input folder concurrently and write their errors to a single
+	 * consolidated results csv file.
+	 *
+	 * @return exit status
+	 */
+	private int processMultiFile() {
+		/*
+		 * Get the list of files to be validated and create an entry for each.
+		 */
+		final List<X9File> fileList = workUnit.getInputFileList();
+		final List<X9UtilValidateEntry> entryList = new ArrayList<>(fileList.size());
+		for (final File file : fileList) {
+			entryList.add(new X9UtilValidateEntry(file));
+		}
+
+		/*
+		 * Validate all files using our task monitor.
+		 */
+		final int maximumThreadCount = workUnit.getThreadCount();
+		LOGGER.info("multi-file validate started; fileCount({}) maximumThreadCount({})",
+				entryList.size(), maximumThreadCount);
+		X9UtilMultiFileMonitor.runAllEntries(workUnit, entryList, maximumThreadCount,
+				ValidateTask::new);
+
+		/*
+		 * Write the consolidated results in our original file list sequence.
+		 */
+		final X9TempFile x9tempFile = X9UtilWorkUnit.getTempFileInstance(workUnit.resultsFile);
+		final int exitStatus = writeConsolidatedResults(x9tempFile.getTemp(), entryList);
+		x9tempFile.renameTemp();
+
+		/*
+		 * Return the highest exit status across all files (where aborts take precedence).
+		 */
+		return exitStatus;
+	}
+
+	/**
+	 * Write the consolidated results csv file, which contains the errors for each file (with the
+	 * file name as the first column), followed by summary totals for each file and then overall
+	 * totals for all files.
+	 *
+	 * @param csvFile
+	 *            csv output file
+	 * @param entryList
+	 *            list of validated entries in file list sequence
+	 * @return overall exit status
+	 */
+	private int writeConsolidatedResults(final File csvFile,
+			final List<X9UtilValidateEntry> entryList) {
+		int exitStatus = X9UtilBatch.EXIT_STATUS_ZERO;
+		int totalRecords = 0;
+		int totalChecks = 0;
+		int totalCredits = 0;
+		int totalErrors = 0;
+		int filesAborted = 0;
+		try (final X9CsvWriter csvWriter = new X9CsvWriter(csvFile)) {
+			/*
+			 * Write errors for each file.
+			 */
+			for (final X9UtilValidateEntry entry : entryList) {
+				final String fileName = entry.getInputFile().toString();
+				if (entry.isAborted()) {
+					csvWriter.putFromArray(new String[] { fileName, ABORTED,
+							entry.getAbortMessage() });
+				} else if (entry.getErrorLines().size() == 0) {
+					csvWriter.putFromArray(new String[] { fileName, NONE });
+				} else {
+					for (final String[] errorLine : entry.getErrorLines()) {
+						final String[] csvArray = new String[errorLine.length + 1];
+						csvArray[0] = fileName;
+						System.arraycopy(errorLine, 0, csvArray, 1, errorLine.length);
+						csvWriter.putFromArray(csvArray);
+					}
+				}
+			}
+
+			/*
+			 * Write summary totals for each file and accumulate our overall exit status.
+			 */
+			for (final X9UtilValidateEntry entry : entryList) {
+				csvWriter.putFromArray(new String[] { SUMMARY, entry.getInputFile().toString(),
+						Integer.toString(entry.getInputCount()),
+						Integer.toString(entry.getCheckCount()),
+						Integer.toString(entry.getCreditCount()),
+						Integer.toString(entry.getErrorCount()), entry.getErrorSeverity(),
+						Integer.toString(entry.getExitStatus()) });
+				totalRecords += entry.getInputCount();
+				totalChecks += entry.getCheckCount();
+				totalCredits += entry.getCreditCount();
+				totalErrors += entry.getErrorCount();
+				final int fileExitStatus = entry.getExitStatus();
+				if (fileExitStatus < 0) {
+					filesAborted++;
+					exitStatus = Math.min(exitStatus, fileExitStatus);
+				} else if (exitStatus >= 0) {
+					exitStatus = Math.max(exitStatus, fileExitStatus);
+				}
+			}
+
+			/*
+			 * Write overall totals.
+			 */
+			csvWriter.putFromArray(new String[] { TOTALS, Integer.toString(entryList.size()),
+					Integer.toString(totalRecords), Integer.toString(totalChecks),
+					Integer.toString(totalCredits), Integer.toString(totalErrors),
+					Integer.toString(filesAborted), Integer.toString(exitStatus) });
+		} catch (final Exception ex) {
+			throw X9Exception.abort(ex);
+		}
+
+		/*
+		 * Log and return the overall exit status.
+		 */
+		LOGGER.info(
+				"multi-file validate finished; files({}) input records({}) checks({}) credits({}) "
+						+ "errorCount({}) filesAborted({}) exitStatus({})",
+				entryList.size(), totalRecords, totalChecks, totalCredits, totalErrors,
+				filesAborted, exitStatus);
+		return exitStatus;
+	}
+
+	/**
+	 * Get the exit status based on the errors identified for the current sdkBase.
+	 *
+	 * @return exit status
+	 */
+	private int getExitStatusFromErrors() {
 		final X9ErrorCounters errorCounters = sdkBase.getErrorManager().getTotalErrors();
 		final int exitStatus;
 		if (errorCounters.getSevereCount() > 0) {
@@ -214,6 +440,7 @@ public final class X9UtilValidate {
 			 * Create and store a new x9object for this x9 record.
 			 */
 			inputCount++;
+			metrics.recordRead(sdkObject.getDataByteArray());
 			final X9Object x9o = sdkIO.createAndStoreX9Object();
 
 			/*
@@ -291,9 +518,10 @@ public final class X9UtilValidate {
 		}
 
 		/*
-		 * Write a none string when there are no errors.
+		 * Write a none string when there are no errors (which is deferred to the consolidated
+		 * results when we are validating as part of a multi-file request).
 		 */
-		if (errorCount == 0) {
+		if (errorCount == 0 && validateEntry == null) {
 			sdkIO.startCsvLine();
 			sdkIO.addAnotherCsvField(NONE);
 			sdkIO.writeCsvLine();
@@ -328,26 +556,60 @@ public final class X9UtilValidate {
 		}
 
 		/*
-		 * Write this error to the output csv file.
+		 * Build the csv array for this error.
 		 */
-		sdkIO.startCsvLine();
-		sdkIO.addAnotherCsvField(Integer.toString(x9error.getRecordNumber()));
-		sdkIO.addAnotherCsvField(Integer.toString(x9error.getRecordType()));
-		sdkIO.addAnotherCsvField(Integer.toString(fieldNumber));
-		sdkIO.addAnotherCsvField(x9error.getFieldName());
-		sdkIO.addAnotherCsvField(x9error.getErrorName());
-		sdkIO.addAnotherCsvField(X9MessageManager.getSeverityAsString(x9error.getSeverity()));
+		final List<String> errorFields = new ArrayList<>();
+		errorFields.add(Integer.toString(x9error.getRecordNumber()));
+		errorFields.add(Integer.toString(x9error.getRecordType()));
+		errorFields.add(Integer.toString(fieldNumber));
+		errorFields.add(x9error.getFieldName());
+		errorFields.add(x9error.getErrorName());
+		errorFields.add(X9MessageManager.getSeverityAsString(x9error.getSeverity()));
 
 		final String errorMessage = x9error.getCollectiveText();
-		sdkIO.addAnotherCsvField(errorMessage);
+		errorFields.add(errorMessage);
 
 		final String errorComments = x9error.getComments();
 		if (StringUtils.isNotBlank(errorComments)
 				&& StringUtils.equals(errorMessage, errorComments)) {
-			sdkIO.addAnotherCsvField(errorComments);
+			errorFields.add(errorComments);
+		}
+
+		/*
+		 * Post this error to our entry for multi-file or write to the output csv file.
+		 */
+		if (validateEntry == null) {
+			sdkIO.startCsvLine();
+			for (final String errorField : errorFields) {
+				sdkIO.addAnotherCsvField(errorField);
+			}
+			sdkIO.writeCsvLine();
+		} else {
+			validateEntry.addErrorLine(errorFields.toArray(new String[errorFields.size()]));
+		}
+	}
+
+	/**
+	 * ValidateTask validates a series of files as initiated from a worker task. Each file is
+	 * validated using a newly allocated X9UtilValidate instance (and hence its own sdkBase), since
+	 * the validator loads the file to the heap and must release that storage on completion.
+	 */
+	private final class ValidateTask implements X9UtilMultiFileTask<X9UtilValidateEntry> {
+
+		@Override
+		public boolean processEntry(final X9UtilValidateEntry entry) {
+			final X9UtilValidate x9utilValidate = new X9UtilValidate(workUnit,
+					workUnit.getNewSdkBase());
+			x9utilValidate.validateToEntry(entry);
+			return true;
+		}
+
+		@Override
+		public void abortEntry(final X9UtilValidateEntry entry, final Exception ex) {
+			entry.setAborted(ex.toString());
+			LOGGER.error("file({}) exception", entry.getInputFile(), ex);
 		}
 
-		sdkIO.writeCsvLine();
 	}
 
 }
@@ -0,0 +1,181 @@
+package sdkUtilities;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * X9UtilValidateEntry defines a single file to be validated as part of a multi-file validation,
+ * along with the results of that validation as posted by the worker task. Error lines are retained
+ * here (instead of being written directly by the worker) which allows the consolidated results csv
+ * to be written in the original file list sequence once all concurrent validations have completed.
+ *
+ * @author X9Ware LLC. Copyright(c) 2012-2018 X9Ware LLC. All Rights Reserved. This is proprietary
+ *         software as developed and licensed by X9Ware LLC under the exclusive legal right of the
+ *         copyright holder. All licensees are provided the right to use the software only under
+ *         certain conditions, and are specifically restricted from other specific uses including
+ *         modification, sharing, reuse, redistribution, or reverse engineering.
+ */
+public final class X9UtilValidateEntry {
+
+	/*
+	 * Private.
+	 */
+	private final File inputFile;
+	private final List<String[]> errorLines = new ArrayList<>();
+	private int inputCount;
+	private int checkCount;
+	private int creditCount;
+	private int errorCount;
+	private String errorSeverity = "";
+	private String abortMessage = "";
+	private int exitStatus = X9UtilBatch.EXIT_STATUS_ABORTED;
+
+	/**
+	 * X9UtilValidateEntry Constructor.
+	 *
+	 * @param input_File
+	 *            current input file
+	 */
+	public X9UtilValidateEntry(final File input_File) {
+		inputFile = input_File;
+	}
+
+	/**
+	 * Get the assigned input file.
+	 *
+	 * @return input file
+	 */
+	public File getInputFile() {
+		return inputFile;
+	}
+
+	/**
+	 * Add an error line for this file.
+	 *
+	 * @param errorLine
+	 *            error line as csv array
+	 */
+	public void addErrorLine(final String[] errorLine) {
+		errorLines.add(errorLine);
+	}
+
+	/**
+	 * Get the error lines for this file.
+	 *
+	 * @return error lines
+	 */
+	public List<String[]> getErrorLines() {
+		return errorLines;
+	}
+
+	/**
+	 * Set the validation results for this file.
+	 *
+	 * @param input_Count
+	 *            input record count
+	 * @param check_Count
+	 *            check count
+	 * @param credit_Count
+	 *            credit count
+	 * @param error_Count
+	 *            error count
+	 * @param error_Severity
+	 *            error severity as a string
+	 * @param exit_Status
+	 *            exit status
+	 */
+	public void setResults(final int input_Count, final int check_Count, final int credit_Count,
+			final int error_Count, final String error_Severity, final int exit_Status) {
+		inputCount = input_Count;
+		checkCount = check_Count;
+		creditCount = credit_Count;
+		errorCount = error_Count;
+		errorSeverity = error_Severity;
+		exitStatus = exit_Status;
+	}
+
+	/**
+	 * Mark this file as aborted.
+	 *
+	 * @param abort_Message
+	 *            abort message
+	 */
+	public void setAborted(final String abort_Message) {
+		abortMessage = abort_Message;
+		exitStatus = X9UtilBatch.EXIT_STATUS_ABORTED;
+	}
+
+	/**
+	 * Determine if validation was aborted for this file.
+	 *
+	 * @return true or false
+	 */
+	public boolean isAborted() {
+		return exitStatus < 0;
+	}
+
+	/**
+	 * Get the abort message.
+	 *
+	 * @return abort message
+	 */
+	public String getAbortMessage() {
+		return abortMessage;
+	}
+
+	/**
+	 * Get the input record count.
+	 *
+	 * @return input record count
+	 */
+	public int getInputCount() {
+		return inputCount;
+	}
+
+	/**
+	 * Get the check count.
+	 *
+	 * @return check count
+	 */
+	public int getCheckCount() {
+		return checkCount;
+	}
+
+	/**
+	 * Get the credit count.
+	 *
+	 * @return credit count
+	 */
+	public int getCreditCount() {
+		return creditCount;
+	}
+
+	/**
+	 * Get the error count.
+	 *
+	 * @return error count
+	 */
+	public int getErrorCount() {
+		return errorCount;
+	}
+
+	/**
+	 * Get the error severity.
+	 *
+	 * @return error severity
+	 */
+	public String getErrorSeverity() {
+		return errorSeverity;
+	}
+
+	/**
+	 * Get the exit status.
+	 *
+	 * @return exit status
+	 */
+	public int getExitStatus() {
+		return exitStatus;
+	}
+
+}
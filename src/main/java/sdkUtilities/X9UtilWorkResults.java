@@ -1,5 +1,8 @@
 package sdkUtilities;
 
+import java.util.Collections;
+import java.util.Map;
+
 /**
  * X9UtilWorkResults is used to post X9Utilities completion results.
  *
@@ -16,6 +19,7 @@ public class X9UtilWorkResults {
 	 */
 	private final X9UtilWorkUnit workUnit;
 	private final int exitStatus;
+	private final Map<String, X9UtilWorkResults> unitResults;
 
 	/**
 	 * X9UtilWorkResults Constructor.
@@ -26,8 +30,25 @@ public class X9UtilWorkResults {
 	 *            exit status
 	 */
 	public X9UtilWorkResults(final X9UtilWorkUnit work_Unit, final int exit_Status) {
+		this(work_Unit, exit_Status, Collections.emptyMap());
+	}
+
+	/**
+	 * X9UtilWorkResults Constructor for a batch file, which includes the results of each of the
+	 * enclosed work units.
+	 *
+	 * @param work_Unit
+	 *            work unit
+	 * @param exit_Status
+	 *            combined exit status
+	 * @param unit_Results
+	 *            work results by work unit name
+	 */
+	public X9UtilWorkResults(final X9UtilWorkUnit work_Unit, final int exit_Status,
+			final Map<String, X9UtilWorkResults> unit_Results) {
 		workUnit = work_Unit;
 		exitStatus = exit_Status;
+		unitResults = unit_Results;
 	}
 
 	/**
@@ -48,4 +69,14 @@ public class X9UtilWorkResults {
 		return exitStatus;
 	}
 
+	/**
+	 * Get work results for the work units within a batch file, which will be empty otherwise. A
+	 * work unit that was skipped or could not be started has results with a null work unit.
+	 *
+	 * @return work results by work unit name
+	 */
+	public Map<String, X9UtilWorkResults> getUnitResults() {
+		return unitResults;
+	}
+
 }
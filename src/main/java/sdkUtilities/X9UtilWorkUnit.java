@@ -62,6 +62,7 @@ public final class X9UtilWorkUnit {
 	 */
 	private boolean isImageRepairEnabled;
 	private boolean isImageResizeEnabled;
+	private X9UtilMetrics metrics;
 
 	/*
 	 * Constants.
@@ -93,6 +94,7 @@ public final class X9UtilWorkUnit {
 
 	private static final int SKIP_INTERVAL_DEFAULT = 60;
 	private static final String SUMMARY_SUFFIX = "_summary";
+	private static final String METRICS_SUFFIX = "_metrics";
 	private static final String HELP_BREAK_LINE = StringUtils.rightPad("", 80, "-");
 
 	/*
@@ -114,16 +116,21 @@ public final class X9UtilWorkUnit {
 	public static final String SWITCH_WORK_UNIT = "workUnit";
 	public static final String SWITCH_IMAGE_REPAIR_ENABLED = "imageRepairEnabled";
 	public static final String SWITCH_IMAGE_RESIZE_ENABLED = "imageResizeEnabled";
+	public static final String SWITCH_THREADS = "threads";
+	public static final String SWITCH_PROFILE = "profile";
 
 	/*
 	 * Writer switches.
 	 */
 	public static final String SWITCH_HEADERS_XML = "xml";
 	public static final String SWITCH_END_NOT_PROVIDED = "enp";
+	public static final String SWITCH_STREAM_CSV = "stream";
+	public static final String SWITCH_SORT_LIMIT = "sortlimit";
 	public static final String[] WRITE_SWITCHES = { SWITCH_CONFIG, SWITCH_LOGGING,
 			SWITCH_WRITE_JSON_TOTALS, SWITCH_WRITE_XML_TOTALS, SWITCH_WRITE_TEXT_TOTALS,
 			SWITCH_HEADERS_XML, SWITCH_DO_NOT_REWRITE, SWITCH_DATE_TIME_STAMP,
-			SWITCH_IMAGE_REPAIR_ENABLED, SWITCH_IMAGE_RESIZE_ENABLED, SWITCH_END_NOT_PROVIDED };
+			SWITCH_IMAGE_REPAIR_ENABLED, SWITCH_IMAGE_RESIZE_ENABLED, SWITCH_END_NOT_PROVIDED,
+			SWITCH_STREAM_CSV, SWITCH_SORT_LIMIT, SWITCH_THREADS };
 
 	/*
 	 * Translate switches.
@@ -131,15 +138,17 @@ public final class X9UtilWorkUnit {
 	public static final String SWITCH_WRITE_ADDENDA = "a";
 	public static final String[] TRANSLATE_SWITCHES = { SWITCH_CONFIG, SWITCH_LOGGING,
 			SWITCH_WRITE_JSON_TOTALS, SWITCH_WRITE_XML_TOTALS, SWITCH_WRITE_TEXT_TOTALS,
-			SWITCH_WRITE_ADDENDA, SWITCH_IMAGE_EXPORT };
+			SWITCH_WRITE_ADDENDA, SWITCH_IMAGE_EXPORT, SWITCH_PROFILE, SWITCH_THREADS };
 
 	/*
 	 * Import switches.
 	 */
 	public static final String SWITCH_REPLACE_TRAILER_TOTALS = "r";
+	public static final String SWITCH_IMAGE_PREFETCH = "prefetch";
 	public static final String[] IMPORT_SWITCHES = { SWITCH_CONFIG, SWITCH_LOGGING,
 			SWITCH_WRITE_JSON_TOTALS, SWITCH_WRITE_XML_TOTALS, SWITCH_WRITE_TEXT_TOTALS,
-			SWITCH_REPLACE_TRAILER_TOTALS };
+			SWITCH_REPLACE_TRAILER_TOTALS, SWITCH_MULTI_FILE, SWITCH_EXTENSION_INPUT,
+			SWITCH_SKIP_INTERVAL, SWITCH_THREADS, SWITCH_IMAGE_PREFETCH };
 
 	/*
 	 * Export switches.
@@ -152,6 +161,7 @@ public final class X9UtilWorkUnit {
 	public static final String SWITCH_TIFF_TAG_EXPORT = "xt";
 	public static final String SWITCH_XML_EXPORT_FLAT = "xmlf";
 	public static final String SWITCH_XML_EXPORT_HIERARCHICAL = "xmlh";
+	public static final String SWITCH_XML_EXPORT_STREAM = "xmls";
 	public static final String SWITCH_CSV_EXPORT = "xc";
 	public static final String SWITCH_IMAGE_RELATIVE = "ir";
 	public static final String SWITCH_IMAGE_EXPORT_NONE = "none";
@@ -170,11 +180,12 @@ public final class X9UtilWorkUnit {
 			SWITCH_EXTENSION_INPUT, SWITCH_SKIP_INTERVAL, SWITCH_RECORD_TYPES,
 			SWITCH_ABORT_WHEN_EMPTY, SWITCH_ITEM_EXPORT, SWITCH_ITEM_EXPORT_WITH_COLUMN_HEADINGS,
 			SWITCH_GROUP_EXPORT, SWITCH_TIFF_TAG_EXPORT, SWITCH_XML_EXPORT_FLAT,
-			SWITCH_XML_EXPORT_HIERARCHICAL, SWITCH_MULTI_FILE, SWITCH_CSV_EXPORT,
-			SWITCH_IMAGE_EXPORT, SWITCH_IMAGE_RELATIVE, SWITCH_IMAGE_EXPORT_TIF,
+			SWITCH_XML_EXPORT_HIERARCHICAL, SWITCH_XML_EXPORT_STREAM, SWITCH_MULTI_FILE,
+			SWITCH_CSV_EXPORT, SWITCH_IMAGE_EXPORT, SWITCH_IMAGE_RELATIVE, SWITCH_IMAGE_EXPORT_TIF,
 			SWITCH_IMAGE_EXPORT_JPG, SWITCH_IMAGE_EXPORT_PNG, SWITCH_IMAGE_EXPORT_GIF,
 			SWITCH_IMAGE_BASE64_BASIC, SWITCH_IMAGE_BASE64_MIME, SWITCH_MULTIPAGE_TIFF_EXPORT,
-			SWITCH_MULTIPAGE_IRD_EXPORT, SWITCH_XML_INCLUDE_EMPTY_FIELDS, SWITCH_DECIMAL_POINTS };
+			SWITCH_MULTIPAGE_IRD_EXPORT, SWITCH_XML_INCLUDE_EMPTY_FIELDS, SWITCH_DECIMAL_POINTS,
+			SWITCH_PROFILE, SWITCH_THREADS };
 
 	/*
 	 * ExportCsv switches. In support of automated operations, our design is to embed the majority
@@ -192,7 +203,8 @@ public final class X9UtilWorkUnit {
 	 * Validate switches.
 	 */
 	public static final String[] VALIDATE_SWITCHES = { SWITCH_CONFIG, SWITCH_LOGGING,
-			SWITCH_WRITE_JSON_TOTALS, SWITCH_WRITE_XML_TOTALS, SWITCH_WRITE_TEXT_TOTALS };
+			SWITCH_WRITE_JSON_TOTALS, SWITCH_WRITE_XML_TOTALS, SWITCH_WRITE_TEXT_TOTALS,
+			SWITCH_EXTENSION_INPUT, SWITCH_SKIP_INTERVAL, SWITCH_MULTI_FILE, SWITCH_THREADS };
 
 	/*
 	 * Scrub switches.
@@ -230,7 +242,7 @@ public final class X9UtilWorkUnit {
 			SWITCH_T99_MISSING, SWITCH_MERGE_BY_BUNDLE, SWITCH_MODIFY_BUNDLES,
 			SWITCH_INCLUDE_SUBFOLDERS, SWITCH_SORT_DESCENDING, SWITCH_GROUP_BY_ITEM_COUNT,
 			SWITCH_SKIP_INTERVAL, SWITCH_DO_NOT_RENAME, SWITCH_UPDATE_TIMESTAMP,
-			SWITCH_MAXIMUM_FILE_SIZE };
+			SWITCH_MAXIMUM_FILE_SIZE, SWITCH_PROFILE };
 
 	/*
 	 * Update switches.
@@ -251,9 +263,15 @@ public final class X9UtilWorkUnit {
 	public static final String SWITCH_VERBOSE = "v";
 	public static final String SWITCH_MASK = "mask";
 	public static final String SWITCH_DELETE = "delete";
+	public static final String SWITCH_FAST_COMPARE = "fast";
+	public static final String SWITCH_ITEM_COMPARE = "items";
+	public static final String SWITCH_DIFFERENCE_LIMIT = "maxdiff";
+	public static final String SWITCH_BATCH_COMPARE = "batch";
 	public static final String[] COMPARE_SWITCHES = { SWITCH_CONFIG, SWITCH_LOGGING,
 			SWITCH_WRITE_JSON_TOTALS, SWITCH_WRITE_XML_TOTALS, SWITCH_WRITE_TEXT_TOTALS,
-			SWITCH_EXCLUDE, SWITCH_DELETE, SWITCH_VERBOSE, SWITCH_MASK };
+			SWITCH_EXCLUDE, SWITCH_DELETE, SWITCH_VERBOSE, SWITCH_MASK, SWITCH_FAST_COMPARE,
+			SWITCH_ITEM_COMPARE, SWITCH_DIFFERENCE_LIMIT, SWITCH_BATCH_COMPARE,
+			SWITCH_EXTENSION_INPUT, SWITCH_SKIP_INTERVAL, SWITCH_THREADS };
 
 	/*
 	 * Image pull switches.
@@ -263,7 +281,6 @@ public final class X9UtilWorkUnit {
 	public static final String SWITCH_DO_NOT_ABORT_WHEN_IMAGE_FOLDER_NOT_EMPTY = "ia";
 	public static final String SWITCH_INCLUDE_61_62_CREDITS = "cr";
 	public static final String SWITCH_PULL_BACK_SIDE_IMAGES = "ib";
-	public static final String SWITCH_THREADS = "threads";
 	public static final String[] IMAGE_PULL_SWITCHES = { SWITCH_CONFIG, SWITCH_LOGGING,
 			SWITCH_APPEND_TIMESTAMP_TO_IMAGE_FOLDER_NAME, SWITCH_CLEAR_IMAGE_FOLDER,
 			SWITCH_DO_NOT_ABORT_WHEN_IMAGE_FOLDER_NOT_EMPTY, SWITCH_INCLUDE_61_62_CREDITS,
@@ -744,15 +761,37 @@ public final class X9UtilWorkUnit {
 		} else if (StringUtils.equals(utilFunctionName, FUNCTION_COMPARE)) {
 			inputFile = files[0];
 			switch (files.length) {
-				case 2: {
+				case 1: {
 					/*
-					 * -compare <inputFile1> <inputFile2>
+					 * -compare -batch <manifestFile>
 					 */
-					secondaryFile = files[1];
-					final String folder = X9FileUtils.getFolderName(inputFile);
-					final String baseName = FilenameUtils.getBaseName(inputFile.toString());
-					outputFile = new File(folder, baseName + "_output." + X9C.TXT);
-					resultsFile = new File(folder, baseName + "_output." + X9C.CSV);
+					if (isCommandSwitchSet(SWITCH_BATCH_COMPARE)) {
+						final String folder = X9FileUtils.getFolderName(inputFile);
+						final String baseName = FilenameUtils.getBaseName(inputFile.toString());
+						resultsFile = new File(folder, baseName + "_output." + X9C.CSV);
+					} else {
+						isValidWorkUnit = false;
+						LOGGER.error(
+								"Usage: x9util -compare inputFile1 inputFile2 outputFile resultsFile");
+					}
+					break;
+				}
+				case 2: {
+					if (isCommandSwitchSet(SWITCH_BATCH_COMPARE) && !inputFile.isDirectory()) {
+						/*
+						 * -compare -batch <manifestFile> <resultsFile>
+						 */
+						resultsFile = files[1];
+					} else {
+						/*
+						 * -compare <inputFile1> <inputFile2>
+						 */
+						secondaryFile = files[1];
+						final String folder = X9FileUtils.getFolderName(inputFile);
+						final String baseName = FilenameUtils.getBaseName(inputFile.toString());
+						outputFile = new File(folder, baseName + "_output." + X9C.TXT);
+						resultsFile = new File(folder, baseName + "_output." + X9C.CSV);
+					}
 					break;
 				}
 				case 3: {
@@ -929,7 +968,8 @@ public final class X9UtilWorkUnit {
 				 */
 				if (!StringUtils.equalsAnyIgnoreCase(switchName, utilFunctionName,
 						X9UtilBatch.DEBUG_SWITCH, X9UtilBatch.CONSOLE_ON_SWITCH,
-						X9UtilBatch.CONSOLE_OFF_SWITCH, X9UtilBatch.SWITCH_LOG_FOLDER)) {
+						X9UtilBatch.CONSOLE_OFF_SWITCH, X9UtilBatch.SWITCH_LOG_FOLDER,
+						X9UtilMetrics.SWITCH_METRICS)) {
 					/*
 					 * Determine if this switch is present for the current function.
 					 */
@@ -1007,7 +1047,7 @@ public final class X9UtilWorkUnit {
 		LOGGER.info("command usage:");
 		if (isCommandSwitchSet("write")) {
 			LOGGER.info("x9util -write inputFile.csv [headerXml] [outputFile.x9] ");
-			LOGGER.info("[-config:] [-l] [-j] [-x] [-t]");
+			LOGGER.info("[-config:] [-stream] [-sortlimit:] [-threads:] [-l] [-j] [-x] [-t]");
 			LOGGER.info("writes a new x9 output file from the provided input csv file");
 			LOGGER.info("all image filenames must be provided in absolute format");
 			LOGGER.info("headerXml       headerXml file which defines output x9 parameters; "
@@ -1018,13 +1058,19 @@ public final class X9UtilWorkUnit {
 			LOGGER.info("-dnr            do not rewrite output file when it already exists");
 			LOGGER.info("-dts            append date-time stamp to output file");
 			LOGGER.info("-config:        specifies the x9 configuration to be loaded");
+			LOGGER.info("-stream         writes each batch profile group as soon as it is "
+					+ "complete; csv lines must already be grouped by batch profile");
+			LOGGER.info("-sortlimit:n    groups by batch profile using temporary sort files once "
+					+ "n csv lines are held in memory");
+			LOGGER.info("-threads:n      converts png, jpg, gif, and bmp images to tiff on n "
+					+ "background threads ahead of the writer");
 			LOGGER.info("-l              lists all records to the log");
 			LOGGER.info("-j              creates json totals file in the output folder");
 			LOGGER.info("-x              creates xml totals file in the output folder");
 			LOGGER.info("-t              creates text totals file in the output folder");
 		} else if (isCommandSwitchSet("translate")) {
 			LOGGER.info("x9util -translate inputFile.x9 [outputFile.csv] [imageFolder]");
-			LOGGER.info("[-config:] [-a] [-i] [-l] [-j] [-x] [-t]");
+			LOGGER.info("[-config:] [-a] [-i] [-threads:] [-profile] [-l] [-j] [-x] [-t]");
 			LOGGER.info("reads an x9 input file to create an output csv and optional image folder");
 			LOGGER.info("outputFile      defaults to inputFile.csv when not specified");
 			LOGGER.info("imageFolder     defaults to outputFile_IMAGES when not specified");
@@ -1032,13 +1078,16 @@ public final class X9UtilWorkUnit {
 			LOGGER.info("-a              includes addenda in the output csv file");
 			LOGGER.info("-i              indicates that images should be exported to the "
 					+ "imageFolder");
+			LOGGER.info("-threads:n      writes exported images using n background threads");
+			LOGGER.info("-profile        logs a breakdown of the time spent in each stage");
 			LOGGER.info("-l              lists all records to the log");
 			LOGGER.info("-j              creates json totals file in the output folder");
 			LOGGER.info("-x              creates xml totals file in the output folder");
 			LOGGER.info("-t              creates text totals file in the output folder");
 		} else if (isCommandSwitchSet("import")) {
 			LOGGER.info("x9util -import inputFile.csv [outputFile.x9] [imageFolder]");
-			LOGGER.info("[-config:] [-l] [-j] [-x] [-t]");
+			LOGGER.info("[-config:] [-r] [-xm] [-exti:] [-threads:] [-prefetch:] [-l] [-j] [-x] "
+					+ "[-t]");
 			LOGGER.info("imports an input csv file and optional imageFolder to create an "
 					+ "output x9 file");
 			LOGGER.info("all image filenames must be provided in absolute format");
@@ -1047,6 +1096,12 @@ public final class X9UtilWorkUnit {
 			LOGGER.info("-config:        specifies the x9 configuration to be loaded");
 			LOGGER.info("-r              indicates that trailer record totals should be "
 					+ "automatically repaired");
+			LOGGER.info("-xm             folder level (input and output are folders; csv files "
+					+ "are imported concurrently with a consolidated importSummary.csv)");
+			LOGGER.info("-exti:          input file extensions to select when running multi-file");
+			LOGGER.info("-threads:n      maximum number of concurrent import threads");
+			LOGGER.info("-prefetch:n     reads images for the next n csv lines ahead of the "
+					+ "import");
 			LOGGER.info("-l              lists all records to the log");
 			LOGGER.info("-j              creates json totals file in the output folder");
 			LOGGER.info("-x              creates xml totals file in the output folder");
@@ -1054,7 +1109,8 @@ public final class X9UtilWorkUnit {
 		} else if (isCommandSwitchSet("export")) {
 			LOGGER.info("x9util -export inputFile.x9 [outputFile.csv] [imageFolder]");
 			LOGGER.info("[-config:] [-xc] [-xf] [-xg] [-xm] [-i] [-ir] [-tif] [-jpg] [-png] "
-					+ "[-gif] [-i64] [-i64mime] [-mp] [-xt] [-xml] [-ef] [-l] [-j] [-x] [-t]");
+					+ "[-gif] [-i64] [-i64mime] [-mp] [-xt] [-xml] [-ef] [-profile] [-l] [-j] [-x] "
+					+ "[-t]");
 			LOGGER.info("exports an x9 input file to create output csv/xml with optional images");
 			LOGGER.info("outputFile      defaults to inputFile.csv when not specified");
 			LOGGER.info("imageFolder     defaults to outputFile_IMAGES when not specified");
@@ -1064,6 +1120,8 @@ public final class X9UtilWorkUnit {
 			LOGGER.info("-xfc            exports to csv in fixed column format with headings");
 			LOGGER.info("-xg             exports to csv as record groups in variable columns");
 			LOGGER.info("-xm             folder level (multiple inputs written to one output");
+			LOGGER.info("-threads:n      exports -xm files concurrently using n threads (files "
+					+ "are exported sequentially when omitted)");
 			LOGGER.info("-i              exports images to the image folder with absolute "
 					+ "file names inserted into the image data field");
 			LOGGER.info("-ir             exports images to the image folder with relative "
@@ -1083,6 +1141,11 @@ public final class X9UtilWorkUnit {
 					+ "exports to csv)");
 			LOGGER.info("-ef             includes fields which contain blanks data during "
 					+ "xml export");
+			LOGGER.info("-xmls           exports to our streaming xml format (x9stream root "
+					+ "with record and field elements, which differs from -xmlf and -xmlh "
+					+ "alone) using -xmlf or -xmlh for the flat or hierarchical layout, so memory "
+					+ "is independent of file and image size");
+			LOGGER.info("-profile        logs a breakdown of the time spent in each stage");
 			LOGGER.info("-l              lists all records to the log");
 			LOGGER.info("-j              creates json totals file in the output folder");
 			LOGGER.info("-x              creates xml totals file in the output folder");
@@ -1094,7 +1157,7 @@ public final class X9UtilWorkUnit {
 			LOGGER.info("-xfmt:          defines the export format definition to be utilized");
 		} else if (isCommandSwitchSet("validate")) {
 			LOGGER.info("x9util -validate inputFile.x9 [outputFile.csv]");
-			LOGGER.info("[-config:] [-l] [-j] [-x] [-t]");
+			LOGGER.info("[-config:] [-xm] [-exti:] [-skpi:] [-threads:] [-l] [-j] [-x] [-t]");
 			LOGGER.info("validates an x9 input file and creates an output csv error file");
 			LOGGER.info("final exitStatus is set based on the types of errors which were "
 					+ "identified during validation");
@@ -1105,6 +1168,11 @@ public final class X9UtilWorkUnit {
 			LOGGER.info("exitStatus = 3  (error error messages issued)");
 			LOGGER.info("exitStatus = 4  (severe error messages issued)");
 			LOGGER.info("-config:        specifies the x9 configuration to be loaded");
+			LOGGER.info("-xm             folder level (files are validated concurrently and "
+					+ "written to one consolidated output");
+			LOGGER.info("-exti:x1|x2|... list of one or more input file extensions");
+			LOGGER.info("-skpi           skip internal in seconds for transmissions in progress");
+			LOGGER.info("-threads:n      maximum number of concurrent validation threads");
 			LOGGER.info("-l              lists all records to the log");
 			LOGGER.info("-j              creates json totals file in the output folder");
 			LOGGER.info("-x              creates xml totals file in the output folder");
@@ -1137,7 +1205,7 @@ public final class X9UtilWorkUnit {
 			LOGGER.info("-t              creates text totals file in the output folder");
 		} else if (isCommandSwitchSet("merge")) {
 			LOGGER.info("x9util -merge inputFolder outputFile.x9");
-			LOGGER.info("[-config:] [-l] [-j] [-x] [-t]");
+			LOGGER.info("[-config:] [-profile] [-l] [-j] [-x] [-t]");
 			LOGGER.info("merges the contents of the specified folder to a single x9 output file");
 			LOGGER.info("inputFolder     required and contains input files to be merged");
 			LOGGER.info("outputFile      required and will contain all items from all input files");
@@ -1154,6 +1222,7 @@ public final class X9UtilWorkUnit {
 			LOGGER.info("-skpi           skip internal in seconds for transmissions in progress");
 			LOGGER.info("-utsf:file.csv  indicates the time stamp file should be created");
 			LOGGER.info("-dnr            do not rename merged files (ONLY used for testing");
+			LOGGER.info("-profile        logs a breakdown of the time spent in each stage");
 			LOGGER.info("-config:        specifies the x9 configuration to be loaded");
 			LOGGER.info("-l              lists all records to the log");
 			LOGGER.info("-j              creates json totals file in the output folder");
@@ -1197,6 +1266,18 @@ public final class X9UtilWorkUnit {
 			LOGGER.info(
 					"compares two x9 files and creates a results file of any differences found");
 			LOGGER.info("-exclude:xx.xx|xx.xx|xx.xx|... field(s) to be excluded from the compare");
+			LOGGER.info("-fast           bundle digests are compared first and the field level "
+					+ "compare is limited to those bundles which are different (using retained "
+					+ "_reduced1/_reduced2 files)");
+			LOGGER.info("-items          items are matched by sequence number, amount, and "
+					+ "routing and are reported as changed, added, or removed");
+			LOGGER.info("-maxdiff:nnnn   maximum number of difference lines written to the "
+					+ "results file; remaining lines are counted but not written");
+			LOGGER.info("x9util -compare -batch manifest.csv [results.csv]");
+			LOGGER.info("x9util -compare -batch inputFolder1 inputFolder2 -exti:x1|x2|...");
+			LOGGER.info("-batch          compares a list of file pairs concurrently from either "
+					+ "a csv manifest (file1,file2) or two mirrored folders");
+			LOGGER.info("-threads:n      maximum number of concurrent compare threads");
 			LOGGER.info("-config:        specifies the x9 configuration to be loaded");
 			LOGGER.info("-j              creates json totals file in the output folder");
 			LOGGER.info("-x              creates xml totals file in the output folder");
@@ -1220,6 +1301,37 @@ public final class X9UtilWorkUnit {
 			LOGGER.info("-ic             clear the assigned image folder");
 			LOGGER.info("-ia             do not abort if the output image folder is not empty");
 			LOGGER.info("-l              list record types 25/31 to the log");
+		} else if (isCommandSwitchSet(X9UtilBatch.SWITCH_DAEMON)) {
+			LOGGER.info("x9util -daemon [-port:] [-token:] [-spool:] [-threads:]");
+			LOGGER.info("runs as a service which keeps the license and configurations loaded and "
+					+ "accepts x9util command lines until a shutdown request is received");
+			LOGGER.info("each request provides one command line argument per line; a request of "
+					+ "\"shutdown\" stops the service once active requests have completed");
+			LOGGER.info("-port:n         accepts requests on local port n; the first line must be "
+					+ "the token from the token file and the response is exitStatus=n");
+			LOGGER.info("-token:         token file written with owner only access for -port "
+					+ "(defaults to .x9utilDaemon_port.token in the user home folder)");
+			LOGGER.info("-spool:         accepts requests as .cmd files within the spool folder; "
+					+ "exit status is written to a .status file and the .cmd is renamed to .done; "
+					+ "the spool folder should be writable only by the daemon owner");
+			LOGGER.info("-threads:n      maximum number of concurrent requests");
+		} else if (isCommandSwitchSet(X9UtilBatch.SWITCH_BATCH_FILE)) {
+			LOGGER.info("x9util -batchFile:workUnits.txt [-threads:]");
+			LOGGER.info("runs all work units listed within the batch file after a single "
+					+ "environment open, with independent work units run concurrently");
+			LOGGER.info("each line defines one work unit as name;dependencies;commandLine where "
+					+ "dependencies is a comma separated list of work unit names (or empty) and "
+					+ "command line arguments are separated by the pipe character");
+			LOGGER.info("example: merge;import1,import2;-merge|inputFolder|output.x9");
+			LOGGER.info("a work unit is skipped when any of its dependencies has aborted");
+			LOGGER.info("-threads:n      maximum number of concurrent work units");
+		} else if (isCommandSwitchSet(X9UtilTraining.SWITCH_TRAIN)) {
+			LOGGER.info("x9util -train:trainingFolder [sample.x9]");
+			LOGGER.info("exercises all functions so that a class data sharing archive can be "
+					+ "created; this is normally run using the x9utilTrain launcher script");
+			LOGGER.info("-train:         folder where training output is written");
+			LOGGER.info("sample.x9       x9 file used to execute the functions; classes are "
+					+ "only preloaded when omitted");
 		} else {
 			logAllAvailableUtilityFunctions();
 		}
@@ -1233,8 +1345,9 @@ public final class X9UtilWorkUnit {
 	 */
 	public X9SdkBase getNewSdkBase() {
 		/*
-		 * Create an sdk instance.
+		 * Load the configurations on first use and then create an sdk instance.
 		 */
+		X9UtilConfigLoader.loadWhenNeeded();
 		final X9SdkBase sdkBase = new X9SdkBase();
 
 		/*
@@ -1271,8 +1384,23 @@ public final class X9UtilWorkUnit {
 	 *            sdkBase for this environment
 	 */
 	public void autoBindToCommandLineConfiguration(final X9SdkBase sdkBase) {
+		autoBindToCommandLineConfiguration(sdkBase, inputFile);
+	}
+
+	/**
+	 * Bind to the configuration identified on the command line and default to the file header of
+	 * a specific file. This is used by multi-file functions where each file is processed using its
+	 * own sdkBase and where the configuration must be determined from that file (and not from the
+	 * input folder that was named on the command line).
+	 *
+	 * @param sdkBase
+	 *            sdkBase for this environment
+	 * @param x9file
+	 *            x9 file to be inspected when auto bind is active
+	 */
+	public void autoBindToCommandLineConfiguration(final X9SdkBase sdkBase, final File x9file) {
 		if (bindToCommandLineConfiguration(sdkBase)) {
-			X9ConfigSelector.autoBindToConfiguration(sdkBase, inputFile);
+			X9ConfigSelector.autoBindToConfiguration(sdkBase, x9file);
 		}
 	}
 
@@ -1538,6 +1666,31 @@ public final class X9UtilWorkUnit {
 				: null;
 	}
 
+	/**
+	 * Make the metrics file which is written next to the summary totals.
+	 *
+	 * @return metrics json file
+	 */
+	public File makeMetricsFile() {
+		final File file = outputFile != null ? outputFile : inputFile;
+		return file != null
+				? new File(FilenameUtils.removeExtension(file.toString()) + METRICS_SUFFIX + "."
+						+ X9C.JSON)
+				: null;
+	}
+
+	/**
+	 * Get the metrics registry for this work unit, which is shared by all worker threads.
+	 *
+	 * @return metrics registry
+	 */
+	public synchronized X9UtilMetrics getMetrics() {
+		if (metrics == null) {
+			metrics = new X9UtilMetrics(this);
+		}
+		return metrics;
+	}
+
 	/**
 	 * Abort when the input file is empty.
 	 */
@@ -1715,8 +1868,13 @@ public final class X9UtilWorkUnit {
 		LOGGER.info("x9util -split -h");
 		LOGGER.info("x9util -compare -h");
 		LOGGER.info("x9util -imagePull -h");
+		LOGGER.info("x9util -daemon -h");
+		LOGGER.info("x9util -batchFile -h");
+		LOGGER.info("x9util -train -h");
 		LOGGER.info("-h provides more detailed information when entered along with each "
 				+ "of the above functions (for example, -write -h)");
+		LOGGER.info("-metrics:n can be entered with any function to log throughput every n "
+				+ "seconds and write a metrics json file next to the summary totals");
 	}
 
 	/**
@@ -4,6 +4,7 @@ import java.io.File;
 import java.math.BigDecimal;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.function.BiConsumer;
 
 import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
@@ -78,6 +79,9 @@ public final class X9UtilWriter {
 	private X9Sdk sdk;
 	private File csvInputFile;
 	private File x9outputFile;
+	private boolean isOutputOpen;
+	private boolean isFileHeaderWritten;
+	private boolean isCashLetterHeaderWritten;
 
 	/*
 	 * Constants.
@@ -192,257 +196,330 @@ public final class X9UtilWriter {
 		/*
 		 * Allocate our writer and then write all items.
 		 */
-		boolean isFileHeaderWritten = false;
-		boolean isCashLetterHeaderWritten = false;
 		try (final X9Writer x9writer = new X9Writer(sdkBase, workUnit.isImageRepairEnabled(),
-				workUnit.isImageResizeEnabled())) {
+				workUnit.isImageResizeEnabled());
+				final X9UtilWriterImageConverter imageConverter = allocateImageConverter()) {
 			/*
-			 * Read the headerXml and load the csv into an internal map.
+			 * Read the headerXml and the csv. Groups are either loaded into an internal map (which
+			 * allows lines to be reordered by batch profile) and then written, are reordered using
+			 * an external sort when a line limit is provided, or are streamed and written as soon
+			 * as each group is complete when csv lines are already grouped.
 			 */
 			final boolean isAbortIfEndMissing = !workUnit
 					.isCommandSwitchSet(X9UtilWorkUnit.SWITCH_END_NOT_PROVIDED);
-			final Map<String, X9UtilWriterCsvLines> itemMap = X9UtilWriterList.loadCsv(sdkIO,
-					x9writer, workUnit, x9headerXml937, isAbortIfEndMissing);
-
-			/*
-			 * Set options from headerXml and then also from the command line. This must be
-			 * performed after the csv has been loaded (since headerXml is loaded there).
-			 */
-			setProcessingOptions(sdkIO);
+			final BiConsumer<String, X9UtilWriterCsvLines> groupWriter = (mapKey, csvLines) -> {
+				try {
+					openOutputWhenNeeded(sdkIO, x9writer);
+					writeGroup(x9writer, imageConverter, mapKey, csvLines);
+				} catch (final Exception ex) {
+					throw X9Exception.abort(ex);
+				}
+			};
+			final int sortLimit = getSortLimit();
+			if (workUnit.isCommandSwitchSet(X9UtilWorkUnit.SWITCH_STREAM_CSV)) {
+				if (sortLimit > 0) {
+					throw X9Exception.abort("stream and sortlimit are mutually exclusive");
+				}
+				X9UtilWriterList.streamCsv(sdkIO, x9writer, workUnit, x9headerXml937,
+						isAbortIfEndMissing, groupWriter);
+				openOutputWhenNeeded(sdkIO, x9writer);
+			} else if (sortLimit > 0) {
+				X9UtilWriterList.sortCsv(sdkIO, x9writer, workUnit, x9headerXml937,
+						isAbortIfEndMissing, sortLimit, groupWriter);
+				openOutputWhenNeeded(sdkIO, x9writer);
+			} else {
+				final Map<String, X9UtilWriterCsvLines> itemMap = X9UtilWriterList.loadCsv(sdkIO,
+						x9writer, workUnit, x9headerXml937, isAbortIfEndMissing);
+				openOutputWhenNeeded(sdkIO, x9writer);
+				for (final Entry<String, X9UtilWriterCsvLines> entrySet : itemMap.entrySet()) {
+					writeGroup(x9writer, imageConverter, entrySet.getKey(),
+							entrySet.getValue());
+				}
+			}
 
 			/*
-			 * Get header attributes.
+			 * Return our trailer manager instance.
 			 */
-			final X9HeaderAttr937 headerAttr = x9headerXml937.getAttr();
+			return x9writer.getTrailerManager();
+		} catch (final Exception ex) {
+			throw X9Exception.abort(ex);
+		}
+	}
 
-			/*
-			 * Open the output file.
-			 */
+	/**
+	 * Set processing options and open the output file when not already open. This must be
+	 * performed after headerXml has been loaded, since processing options are taken from there.
+	 *
+	 * @param sdkIO
+	 *            current sdkIO
+	 * @param x9writer
+	 *            current x9writer
+	 */
+	private void openOutputWhenNeeded(final X9SdkIO sdkIO, final X9Writer x9writer) {
+		if (!isOutputOpen) {
+			isOutputOpen = true;
+			setProcessingOptions(sdkIO);
 			x9writer.bindAndOpenToFile(x9outputFile, x9headerXml937);
+		}
+	}
+
+	/**
+	 * Write a single group of csv lines, which are all associated with the same batch profile.
+	 *
+	 * @param x9writer
+	 *            current x9writer
+	 * @param imageConverter
+	 *            image converter instance or null when not enabled
+	 * @param mapKey
+	 *            map key for this group
+	 * @param csvLines
+	 *            csv lines for this group
+	 * @throws Exception
+	 */
+	private void writeGroup(final X9Writer x9writer,
+			final X9UtilWriterImageConverter imageConverter, final String mapKey,
+			final X9UtilWriterCsvLines csvLines) throws Exception {
+		/*
+		 * Get the next group of csv lines. Typically, everything is grouped under a single profile
+		 * name of "". However, when creating multiple credits, items are grouped by profile and we
+		 * accumulate the total amount for this group and insert the credit for these specific items
+		 * (using that total amount). In that situation, any csv lines that are not associated with
+		 * credit groups will be forced to the front since they have a mapKey of "". This would
+		 * specifically apply to headerXml, but could also be used for other purposes such as an
+		 * imageFolder reference. It is important to understand that the use of credit grouping puts
+		 * some restrictions on how the csv is constructed. Specifically, items must be on a single
+		 * line, and other functions like interspersed imageFolder commands cannot be used since
+		 * they will be reordered to the front.
+		 */
+		final X9HeaderAttr937 headerAttr = x9headerXml937.getAttr();
+		LOGGER.info("csv lines for mapKey({}) lineCount({}) creditInserted({})", mapKey,
+				csvLines.size(), headerAttr.creditInsertedAutomatically);
 
+		/*
+		 * Automatically insert a credit when directed by the headerXml definition.
+		 */
+		if (headerAttr.creditInsertedAutomatically) {
 			/*
-			 * Write items by batch profile.
+			 * Accumulate debit amounts which will be used to insert the offsetting credit.
 			 */
-			for (final Entry<String, X9UtilWriterCsvLines> entrySet : itemMap.entrySet()) {
+			int itemCount = 0;
+			String firstItemSequenceNumber = "";
+			BigDecimal totalAmount = BigDecimal.ZERO;
+			for (final X9CsvLine csvLine : csvLines) {
 				/*
-				 * Get the next group of csv lines. Typically, everything is grouped under a single
-				 * profile name of "". However, when creating multiple credits, items are grouped by
-				 * profile and we accumulate the total amount for this group and insert the credit
-				 * for these specific items (using that total amount). In that situation, any csv
-				 * lines that are not associated with credit groups will be forced to the front
-				 * since they have a mapKey of "". This would specifically apply to headerXml, but
-				 * could also be used for other purposes such as an imageFolder reference. It is
-				 * important to understand that the use of credit grouping puts some restrictions on
-				 * how the csv is constructed. Specifically, items must be on a single line, and
-				 * other functions like interspersed imageFolder commands cannot be used since they
-				 * will be reordered to the front.
+				 * Get the csv array and line number.
 				 */
-				final String mapKey = entrySet.getKey();
-				final X9UtilWriterCsvLines csvLines = entrySet.getValue();
-				LOGGER.info("csv lines for mapKey({}) lineCount({}) creditInserted({})", mapKey,
-						csvLines.size(), headerAttr.creditInsertedAutomatically);
+				final int lineNumber = csvLine.getLineNumber();
+				final String[] record = csvLine.getCsvArray();
 
 				/*
-				 * Automatically insert a credit when directed by the headerXml definition.
+				 * Since we have explicit direction to automatically insert a credit, we should not
+				 * see a credit on the csv file; abort if one is encountered.
 				 */
-				if (headerAttr.creditInsertedAutomatically) {
-					/*
-					 * Accumulate debit amounts which will be used to insert the offsetting credit.
-					 */
-					int itemCount = 0;
-					String firstItemSequenceNumber = "";
-					BigDecimal totalAmount = BigDecimal.ZERO;
-					for (final X9CsvLine csvLine : csvLines) {
-						/*
-						 * Get the csv array and line number.
-						 */
-						final int lineNumber = csvLine.getLineNumber();
-						final String[] record = csvLine.getCsvArray();
-
-						/*
-						 * Since we have explicit direction to automatically insert a credit, we
-						 * should not see a credit on the csv file; abort if one is encountered.
-						 */
-						if (StringUtils.equalsAny(record[0], X9Writer.CSV_LINE_TYPE_CREDIT,
-								X9Writer.CSV_LINE_TYPE_61, X9Writer.CSV_LINE_TYPE_62)) {
-							throw X9Exception.abort(
-									"user provided credit encountered when auto insert is "
-											+ "enabled at lineNumber({}) content({})",
-									lineNumber, X9String.joinWithLimits(record));
-						}
-
-						/*
-						 * Get the index of various csv fields.
-						 */
-						final int csvAmountIndex;
-						final int csvSequenceNumberIndex;
-						if (StringUtils.equals(record[0], X9Writer.CSV_LINE_TYPE_T25)) {
-							csvAmountIndex = X9Writer.ITEM_AMOUNT;
-							csvSequenceNumberIndex = X9Writer.ITEM_SEQUENCE_NUMBER;
-						} else if (StringUtils.equals(record[0], X9Writer.CSV_LINE_TYPE_25)) {
-							csvAmountIndex = TYPE25_AMOUNT_INDEX;
-							csvSequenceNumberIndex = TYPE25_SEQUENCE_NUMBER_INDEX;
-						} else {
-							csvAmountIndex = csvSequenceNumberIndex = 9999;
-						}
-
-						/*
-						 * Accumulate debit amounts within this deposit which will be needed when we
-						 * automatically insert an offsetting credit.
-						 */
-						final int csvLength = record.length;
-						if (csvLength > csvAmountIndex) {
-							itemCount++;
-							totalAmount = totalAmount
-									.add(X9Decimal.getAsAmount(record[csvAmountIndex]));
-						}
-
-						/*
-						 * Save the first item sequence number (either from a 25 or a t25 record),
-						 * which can be used as the serial number (AuxOnUs) on an inserted credit.
-						 * If this isn is used for the credit serial number, then users should
-						 * restrict their isn assignments to at most ten (10) digits. If the isn
-						 * exceeds that, then we will use the rightmost 10 digits and ignore the
-						 * high order digits. This facility works best when using single item
-						 * deposits. If used with multi-item deposits, then the isn of the first
-						 * debit in the deposit will be used as the credit item serial number (which
-						 * still provides a good relational trace back facility for the credit).
-						 */
-						if (StringUtils.isBlank(firstItemSequenceNumber)
-								&& csvLength > csvSequenceNumberIndex) {
-							firstItemSequenceNumber = record[csvSequenceNumberIndex];
-						}
-
-						/*
-						 * When a cash letter is active and then if credits are actually represented
-						 * by the type 10 cash letter itself as an alternative to the more typical
-						 * t25/t61/t62 record (which is used by Wells Fargo), we must close out the
-						 * currently active cash letter. This will force a new cash letter header to
-						 * be written with the information for the current deposit.
-						 */
-						if (isCashLetterHeaderWritten
-								&& StringUtils.equals(headerAttr.creditFormat, X9Credit.T10)) {
-							isCashLetterHeaderWritten = false;
-							x9writer.writeBundleAndCashLetterTrailers();
-						}
-					}
+				if (StringUtils.equalsAny(record[0], X9Writer.CSV_LINE_TYPE_CREDIT,
+						X9Writer.CSV_LINE_TYPE_61, X9Writer.CSV_LINE_TYPE_62)) {
+					throw X9Exception.abort(
+							"user provided credit encountered when auto insert is "
+									+ "enabled at lineNumber({}) content({})",
+							lineNumber, X9String.joinWithLimits(record));
+				}
 
-					/*
-					 * Build and attach the next credit which will be automatically inserted by
-					 * x9writer at the designated insertion point per the headerXml definition.
-					 */
-					if (itemCount > 0) {
-						final X9Credit x9credit = x9writer.createCredit();
-						final String profileName = csvLines.getProfileName();
-						setBatchProfileName(x9writer, headerAttr, profileName);
-						x9credit.itemCount = itemCount;
-						x9credit.amount = X9Decimal.getStringValue(totalAmount);
-						x9credit.payorBankRouting = x9writer
-								.getDirectedValue(headerAttr.creditPayorBankRouting);
-						x9credit.micrOnUs = x9writer.getDirectedValue(headerAttr.creditMicrOnUs);
-						final String creditAuxOnUs = x9writer
-								.getDirectedValue(headerAttr.creditMicrAuxOnUs);
-						x9credit.auxiliaryOnUs = StringUtils.equals(creditAuxOnUs,
-								X9Writer.CREDIT_SERIAL_IS_DEBIT_ISN)
-										? StringUtils.right(firstItemSequenceNumber, 10)
-										: x9writer.assignCreditSerialNumber(creditAuxOnUs);
-						x9credit.itemSequenceNumber = x9writer.assignCreditItemSequenceNumber(
-								x9writer.getDirectedValue(headerAttr.creditItemSequenceNumber));
-						LOGGER.info(
-								"created batch profileName({}) amount({}) routing({}) OnUs({}) "
-										+ "AuxOnUs({}) isn({}) creditFormat({}) creditLocation({})",
-								profileName, x9credit.amount, x9credit.payorBankRouting,
-								x9credit.micrOnUs, x9credit.auxiliaryOnUs,
-								x9credit.itemSequenceNumber, headerAttr.creditFormat,
-								headerAttr.creditRecordLocation);
-					}
+				/*
+				 * Get the index of various csv fields.
+				 */
+				final int csvAmountIndex;
+				final int csvSequenceNumberIndex;
+				if (StringUtils.equals(record[0], X9Writer.CSV_LINE_TYPE_T25)) {
+					csvAmountIndex = X9Writer.ITEM_AMOUNT;
+					csvSequenceNumberIndex = X9Writer.ITEM_SEQUENCE_NUMBER;
+				} else if (StringUtils.equals(record[0], X9Writer.CSV_LINE_TYPE_25)) {
+					csvAmountIndex = TYPE25_AMOUNT_INDEX;
+					csvSequenceNumberIndex = TYPE25_SEQUENCE_NUMBER_INDEX;
+				} else {
+					csvAmountIndex = csvSequenceNumberIndex = 9999;
 				}
 
 				/*
-				 * Write the file header when not yet written. A pending credit may be optionally
-				 * attached here (but this would be unusual, since credits are typically inserted
-				 * after the bundle header). We cannot write the cash letter header (yet), since it
-				 * is dependent on deposit level information when creditFormat=t10. Because of that,
-				 * writing the type 10 cash letter header is deferred into the upcoming loop, when
-				 * we are writing items and have access to the batch profile.
+				 * Accumulate debit amounts within this deposit which will be needed when we
+				 * automatically insert an offsetting credit.
 				 */
-				if (!isFileHeaderWritten) {
-					isFileHeaderWritten = true;
-					x9writer.writeFileHeaderAndOptionallyAttachCredit();
+				final int csvLength = record.length;
+				if (csvLength > csvAmountIndex) {
+					itemCount++;
+					totalAmount = totalAmount
+							.add(X9Decimal.getAsAmount(record[csvAmountIndex]));
 				}
 
 				/*
-				 * Most typically, items for each profile group begin in a new bundle. However, this
-				 * is not mandatory, and is instead controlled by the credits-begin-in-new-bundle
-				 * setting. When that has been selected, we now close an active bundle when we have
-				 * created and attached a credit, to be inserted at the beginning of a new bundle.
+				 * Save the first item sequence number (either from a 25 or a t25 record), which can
+				 * be used as the serial number (AuxOnUs) on an inserted credit. If this isn is used
+				 * for the credit serial number, then users should restrict their isn assignments to
+				 * at most ten (10) digits. If the isn exceeds that, then we will use the rightmost
+				 * 10 digits and ignore the high order digits. This facility works best when using
+				 * single item deposits. If used with multi-item deposits, then the isn of the first
+				 * debit in the deposit will be used as the credit item serial number (which still
+				 * provides a good relational trace back facility for the credit).
 				 */
-				if (headerAttr.creditInsertedAutomatically && headerAttr.creditBeginsNewBundle) {
-					x9writer.closeBundleWhenCurrentlyActive();
+				if (StringUtils.isBlank(firstItemSequenceNumber)
+						&& csvLength > csvSequenceNumberIndex) {
+					firstItemSequenceNumber = record[csvSequenceNumberIndex];
 				}
 
 				/*
-				 * Bundle and write all items.
+				 * When a cash letter is active and then if credits are actually represented by the
+				 * type 10 cash letter itself as an alternative to the more typical t25/t61/t62
+				 * record (which is used by Wells Fargo), we must close out the currently active
+				 * cash letter. This will force a new cash letter header to be written with the
+				 * information for the current deposit.
 				 */
-				for (final X9CsvLine csvLine : csvLines) {
-					final int lineNumber = csvLine.getLineNumber();
-					final String[] record = csvLine.getCsvArray();
-					if (record != null && record.length > 0) {
-						/*
-						 * Log when command line enabled.
-						 */
-						if (isLoggingEnabled) {
-							LOGGER.info("processing csv lineNumber({}) profileName({}) content({})",
-									lineNumber, csvLines.getProfileName(),
-									StringUtils.join(record, COMMA));
-						}
-
-						/*
-						 * If this is an actual item, then set the batch profile and write the cash
-						 * letter header (when needed). This skips over other leading csv line types
-						 * such as "imageFolder, "batchProfile", etc, where the batch profile name
-						 * has not yet been set. We need to delay writing the cash letter header
-						 * until we get encounter the first actual item. This is important since
-						 * items may be batches within the cash letter header, with deposit account
-						 * proxy information taken from the batch profile.
-						 */
-						if (StringUtils.equalsAny(record[0], X9Writer.CSV_LINE_TYPE_T25,
-								X9Writer.CSV_LINE_TYPE_CREDIT, X9Writer.CSV_LINE_TYPE_25,
-								X9Writer.CSV_LINE_TYPE_31, X9Writer.CSV_LINE_TYPE_61,
-								X9Writer.CSV_LINE_TYPE_62)) {
-							/*
-							 * Set the profile name for this group of items (all items within this
-							 * group have the same profile name, which may also be blanks).
-							 */
-							setBatchProfileName(x9writer, headerAttr, csvLines.getProfileName());
-
-							/*
-							 * Write the cash letter header when not yet written. A pending credit
-							 * may be optionally attached here (but this would be unusual, since
-							 * credits are typically inserted after the bundle header).
-							 */
-							if (!isCashLetterHeaderWritten) {
-								isCashLetterHeaderWritten = true;
-								x9writer.writeCashLetterHeaderAndOptionallyAttachCredit();
-							}
-						}
-
-						/*
-						 * Write the user provided csv record. This is most probably a type 25
-						 * record, but can also be addenda, credits, and other record types.
-						 */
-						x9writer.writeX9FromCsvArray(lineNumber, record);
-					}
+				if (isCashLetterHeaderWritten
+						&& StringUtils.equals(headerAttr.creditFormat, X9Credit.T10)) {
+					isCashLetterHeaderWritten = false;
+					x9writer.writeBundleAndCashLetterTrailers();
 				}
 			}
 
 			/*
-			 * Return our trailer manager instance.
+			 * Build and attach the next credit which will be automatically inserted by x9writer at
+			 * the designated insertion point per the headerXml definition.
 			 */
-			return x9writer.getTrailerManager();
-		} catch (final Exception ex) {
-			throw X9Exception.abort(ex);
+			if (itemCount > 0) {
+				final X9Credit x9credit = x9writer.createCredit();
+				final String profileName = csvLines.getProfileName();
+				setBatchProfileName(x9writer, headerAttr, profileName);
+				x9credit.itemCount = itemCount;
+				x9credit.amount = X9Decimal.getStringValue(totalAmount);
+				x9credit.payorBankRouting = x9writer
+						.getDirectedValue(headerAttr.creditPayorBankRouting);
+				x9credit.micrOnUs = x9writer.getDirectedValue(headerAttr.creditMicrOnUs);
+				final String creditAuxOnUs = x9writer
+						.getDirectedValue(headerAttr.creditMicrAuxOnUs);
+				x9credit.auxiliaryOnUs = StringUtils.equals(creditAuxOnUs,
+						X9Writer.CREDIT_SERIAL_IS_DEBIT_ISN)
+								? StringUtils.right(firstItemSequenceNumber, 10)
+								: x9writer.assignCreditSerialNumber(creditAuxOnUs);
+				x9credit.itemSequenceNumber = x9writer.assignCreditItemSequenceNumber(
+						x9writer.getDirectedValue(headerAttr.creditItemSequenceNumber));
+				LOGGER.info(
+						"created batch profileName({}) amount({}) routing({}) OnUs({}) "
+								+ "AuxOnUs({}) isn({}) creditFormat({}) creditLocation({})",
+						profileName, x9credit.amount, x9credit.payorBankRouting,
+						x9credit.micrOnUs, x9credit.auxiliaryOnUs,
+						x9credit.itemSequenceNumber, headerAttr.creditFormat,
+						headerAttr.creditRecordLocation);
+			}
+		}
+
+		/*
+		 * Write the file header when not yet written. A pending credit may be optionally attached
+		 * here (but this would be unusual, since credits are typically inserted after the bundle
+		 * header). We cannot write the cash letter header (yet), since it is dependent on deposit
+		 * level information when creditFormat=t10. Because of that, writing the type 10 cash letter
+		 * header is deferred into the upcoming loop, when we are writing items and have access to
+		 * the batch profile.
+		 */
+		if (!isFileHeaderWritten) {
+			isFileHeaderWritten = true;
+			x9writer.writeFileHeaderAndOptionallyAttachCredit();
+		}
+
+		/*
+		 * Most typically, items for each profile group begin in a new bundle. However, this is not
+		 * mandatory, and is instead controlled by the credits-begin-in-new-bundle setting. When
+		 * that has been selected, we now close an active bundle when we have created and attached a
+		 * credit, to be inserted at the beginning of a new bundle.
+		 */
+		if (headerAttr.creditInsertedAutomatically && headerAttr.creditBeginsNewBundle) {
+			x9writer.closeBundleWhenCurrentlyActive();
 		}
+
+		/*
+		 * Bundle and write all items, with images converted ahead of the writer when enabled.
+		 */
+		for (int lineIndex = 0; lineIndex < csvLines.size(); lineIndex++) {
+			final X9CsvLine csvLine = csvLines.get(lineIndex);
+			final int lineNumber = csvLine.getLineNumber();
+			final String[] record = csvLine.getCsvArray();
+			if (record != null && record.length > 0) {
+				/*
+				 * Log when command line enabled.
+				 */
+				if (isLoggingEnabled) {
+					LOGGER.info("processing csv lineNumber({}) profileName({}) content({})",
+							lineNumber, csvLines.getProfileName(),
+							StringUtils.join(record, COMMA));
+				}
+
+				/*
+				 * If this is an actual item, then set the batch profile and write the cash letter
+				 * header (when needed). This skips over other leading csv line types such as
+				 * "imageFolder, "batchProfile", etc, where the batch profile name has not yet been
+				 * set. We need to delay writing the cash letter header until we get encounter the
+				 * first actual item. This is important since items may be batches within the cash
+				 * letter header, with deposit account proxy information taken from the batch
+				 * profile.
+				 */
+				if (StringUtils.equalsAny(record[0], X9Writer.CSV_LINE_TYPE_T25,
+						X9Writer.CSV_LINE_TYPE_CREDIT, X9Writer.CSV_LINE_TYPE_25,
+						X9Writer.CSV_LINE_TYPE_31, X9Writer.CSV_LINE_TYPE_61,
+						X9Writer.CSV_LINE_TYPE_62)) {
+					/*
+					 * Set the profile name for this group of items (all items within this group
+					 * have the same profile name, which may also be blanks).
+					 */
+					setBatchProfileName(x9writer, headerAttr, csvLines.getProfileName());
+
+					/*
+					 * Write the cash letter header when not yet written. A pending credit may be
+					 * optionally attached here (but this would be unusual, since credits are
+					 * typically inserted after the bundle header).
+					 */
+					if (!isCashLetterHeaderWritten) {
+						isCashLetterHeaderWritten = true;
+						x9writer.writeCashLetterHeaderAndOptionallyAttachCredit();
+					}
+				}
+
+				/*
+				 * Write the user provided csv record. This is most probably a type 25 record, but
+				 * can also be addenda, credits, and other record types.
+				 */
+				x9writer.writeX9FromCsvArray(lineNumber, imageConverter != null
+						? imageConverter.getConvertedRecord(csvLines, lineIndex)
+						: record);
+			}
+		}
+	}
+
+	/**
+	 * Get the maximum number of csv lines to be held in memory when grouping by batch profile, as
+	 * provided by command line switch.
+	 *
+	 * @return maximum csv lines or zero when an external sort is not to be used
+	 */
+	private int getSortLimit() {
+		if (!workUnit.isCommandSwitchSet(X9UtilWorkUnit.SWITCH_SORT_LIMIT)) {
+			return 0;
+		}
+
+		final String sortLimit = workUnit.getCommandSwitchValue(X9UtilWorkUnit.SWITCH_SORT_LIMIT);
+		final int maximumLines = X9Numeric.toInt(sortLimit);
+		if (maximumLines <= 0) {
+			throw X9Exception.abort("sortlimit({}) not numeric", sortLimit);
+		}
+		return maximumLines;
+	}
+
+	/**
+	 * Allocate the image converter when background threads have been requested by command line
+	 * switch.
+	 *
+	 * @return image converter instance or null when not enabled
+	 */
+	private X9UtilWriterImageConverter allocateImageConverter() {
+		return workUnit.isCommandSwitchSet(X9UtilWorkUnit.SWITCH_THREADS)
+				? new X9UtilWriterImageConverter(workUnit.getThreadCount(), workUnit.getMetrics())
+				: null;
 	}
 
 	/**
@@ -0,0 +1,327 @@
+package sdkUtilities;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map.Entry;
+import java.util.PriorityQueue;
+import java.util.function.BiConsumer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.x9ware.actions.X9Exception;
+import com.x9ware.options.X9WorkFolder;
+import com.x9ware.tools.X9CsvLine;
+import com.x9ware.tools.X9FileUtils;
+
+/**
+ * X9UtilWriterExternalSort groups writer csv lines by batch profile within bounded memory. Csv
+ * lines are accumulated within the profile map until a maximum line count is reached, at which
+ * point the map (which is already ordered by map key) is written to a temporary run file as a
+ * compact serialized stream (where each string is a length prefixed byte array, with nulls
+ * retained) and then cleared. Once the csv has been read, all run files are merged by map key and
+ * each completed group is passed to the writer. Within each group, lines are merged in run
+ * sequence, which ensures that csv lines remain in their original order within the group. The
+ * result is identical to grouping entirely on the heap, but only a single group must fit in memory
+ * at any time.
+ *
+ * @author X9Ware LLC. Copyright(c) 2012-2018 X9Ware LLC. All Rights Reserved. This is proprietary
+ *         software as developed and licensed by X9Ware LLC under the exclusive legal right of the
+ *         copyright holder. All licensees are provided the right to use the software only under
+ *         certain conditions, and are specifically restricted from other specific uses including
+ *         modification, sharing, reuse, redistribution, or reverse engineering.
+ */
+public final class X9UtilWriterExternalSort implements AutoCloseable {
+
+	/*
+	 * Private.
+	 */
+	private final int maximumLinesInMemory;
+	private final List<File> runFiles = new ArrayList<>();
+	private int linesInMemory;
+	private long linesSpilled;
+
+	/*
+	 * Constants.
+	 */
+	private static final String RUN_FILE_PREFIX = "writerSortRun_";
+	private static final String RUN_FILE_SUFFIX = ".bin";
+	private static final int BUFFER_SIZE = 256 * 1024;
+	private static final int NULL_LENGTH = -1;
+
+	/**
+	 * Logger instance.
+	 */
+	private static final Logger LOGGER = LoggerFactory.getLogger(X9UtilWriterExternalSort.class);
+
+	/**
+	 * X9UtilWriterExternalSort Constructor.
+	 *
+	 * @param maximumLines_InMemory
+	 *            maximum number of csv lines to be held in memory before a run is written
+	 */
+	public X9UtilWriterExternalSort(final int maximumLines_InMemory) {
+		maximumLinesInMemory = maximumLines_InMemory;
+	}
+
+	/**
+	 * Account for a csv line which has been added to the profile map, and write the current map
+	 * contents as a new run when the maximum line count has been reached.
+	 *
+	 * @param itemMap
+	 *            profile map which has been populated up to this point
+	 */
+	public void lineAdded(final X9UtilWriterProfileMap itemMap) {
+		if (++linesInMemory >= maximumLinesInMemory) {
+			writeRun(itemMap);
+		}
+	}
+
+	/**
+	 * Pass all groups to the group writer in map key sequence. When no runs have been written, the
+	 * groups are taken directly from the profile map. Otherwise the remaining lines are written as
+	 * a final run and all runs are merged.
+	 *
+	 * @param itemMap
+	 *            profile map with the lines which have not yet been written to a run
+	 * @param groupWriter
+	 *            group writer which is invoked with the map key and csv lines for each group
+	 */
+	public void writeGroups(final X9UtilWriterProfileMap itemMap,
+			final BiConsumer<String, X9UtilWriterCsvLines> groupWriter) {
+		/*
+		 * Write groups directly from the map when everything has fit within memory.
+		 */
+		if (runFiles.isEmpty()) {
+			for (final Entry<String, X9UtilWriterCsvLines> entry : itemMap.entrySet()) {
+				groupWriter.accept(entry.getKey(), entry.getValue());
+			}
+			itemMap.clear();
+			return;
+		}
+
+		/*
+		 * Write the final run and then merge all runs.
+		 */
+		writeRun(itemMap);
+		LOGGER.info("merging runCount({}) linesSpilled({})", runFiles.size(), linesSpilled);
+		mergeRuns(groupWriter);
+	}
+
+	/**
+	 * Write the current profile map contents to a new run file and then clear the map.
+	 *
+	 * @param itemMap
+	 *            profile map to be written
+	 */
+	private void writeRun(final X9UtilWriterProfileMap itemMap) {
+		if (itemMap.isEmpty()) {
+			return;
+		}
+
+		try {
+			final File runFile = File.createTempFile(RUN_FILE_PREFIX, RUN_FILE_SUFFIX,
+					X9WorkFolder.getTempFolder());
+			runFiles.add(runFile);
+			try (final DataOutputStream dos = new DataOutputStream(new BufferedOutputStream(
+					Files.newOutputStream(runFile.toPath()), BUFFER_SIZE))) {
+				for (final Entry<String, X9UtilWriterCsvLines> entry : itemMap.entrySet()) {
+					final X9UtilWriterCsvLines csvLines = entry.getValue();
+					for (final X9CsvLine csvLine : csvLines) {
+						final String[] record = csvLine.getCsvArray();
+						dos.writeBoolean(true);
+						writeString(dos, entry.getKey());
+						writeString(dos, csvLines.getProfileName());
+						dos.writeInt(csvLine.getLineNumber());
+						dos.writeInt(record.length);
+						for (final String field : record) {
+							writeString(dos, field);
+						}
+					}
+				}
+				dos.writeBoolean(false);
+			}
+			LOGGER.info("sort run written runFile({}) lineCount({})", runFile, linesInMemory);
+		} catch (final Exception ex) {
+			throw X9Exception.abort(ex);
+		}
+
+		linesSpilled += linesInMemory;
+		linesInMemory = 0;
+		itemMap.clear();
+	}
+
+	/**
+	 * Write a string to a run file as a length prefixed utf-8 byte array. This is used instead of
+	 * writeUTF(), which is limited to 65535 bytes, and retains null values using a negative length.
+	 *
+	 * @param dos
+	 *            run file output stream
+	 * @param value
+	 *            string value which may be null
+	 * @throws IOException
+	 */
+	private static void writeString(final DataOutputStream dos, final String value)
+			throws IOException {
+		if (value == null) {
+			dos.writeInt(NULL_LENGTH);
+		} else {
+			final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+			dos.writeInt(bytes.length);
+			dos.write(bytes);
+		}
+	}
+
+	/**
+	 * Read a string from a run file which was written as a length prefixed utf-8 byte array.
+	 *
+	 * @param dis
+	 *            run file input stream
+	 * @return string value which may be null
+	 * @throws IOException
+	 */
+	private static String readString(final DataInputStream dis) throws IOException {
+		final int length = dis.readInt();
+		if (length == NULL_LENGTH) {
+			return null;
+		}
+		final byte[] bytes = new byte[length];
+		dis.readFully(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * Merge all run files by map key, where each completed group is passed to the group writer.
+	 * Ties on map key are resolved by run number, which retains the original csv line sequence.
+	 *
+	 * @param groupWriter
+	 *            group writer
+	 */
+	private void mergeRuns(final BiConsumer<String, X9UtilWriterCsvLines> groupWriter) {
+		final List<RunReader> runReaders = new ArrayList<>(runFiles.size());
+		try {
+			/*
+			 * Open all runs and prime the merge queue with the first line from each.
+			 */
+			final PriorityQueue<RunReader> mergeQueue = new PriorityQueue<>(
+					Comparator.comparing((final RunReader reader) -> reader.mapKey)
+							.thenComparingInt(reader -> reader.runNumber));
+			for (int i = 0; i < runFiles.size(); i++) {
+				final RunReader runReader = new RunReader(runFiles.get(i), i);
+				runReaders.add(runReader);
+				if (runReader.readNext()) {
+					mergeQueue.add(runReader);
+				}
+			}
+
+			/*
+			 * Assemble and write one group at a time.
+			 */
+			while (!mergeQueue.isEmpty()) {
+				final String mapKey = mergeQueue.peek().mapKey;
+				final X9UtilWriterCsvLines csvLines = new X9UtilWriterCsvLines(
+						mergeQueue.peek().profileName);
+				while (!mergeQueue.isEmpty() && mergeQueue.peek().mapKey.equals(mapKey)) {
+					final RunReader runReader = mergeQueue.poll();
+					csvLines.add(runReader.csvLine);
+					if (runReader.readNext()) {
+						mergeQueue.add(runReader);
+					}
+				}
+				groupWriter.accept(mapKey, csvLines);
+			}
+		} catch (final Exception ex) {
+			throw X9Exception.abort(ex);
+		} finally {
+			for (final RunReader runReader : runReaders) {
+				runReader.close();
+			}
+		}
+	}
+
+	@Override
+	public void close() {
+		/*
+		 * Delete all run files.
+		 */
+		for (final File runFile : runFiles) {
+			if (runFile.exists() && !X9FileUtils.delete(runFile)) {
+				LOGGER.warn("unable to delete runFile({})", runFile);
+			}
+		}
+		runFiles.clear();
+	}
+
+	/**
+	 * RunReader reads csv lines sequentially from a single run file.
+	 */
+	private static final class RunReader {
+
+		/*
+		 * Private.
+		 */
+		private final DataInputStream dis;
+		private final int runNumber;
+		private String mapKey;
+		private String profileName;
+		private X9CsvLine csvLine;
+
+		/**
+		 * RunReader Constructor.
+		 *
+		 * @param runFile
+		 *            run file to be read
+		 * @param run_Number
+		 *            run number relative to zero
+		 * @throws IOException
+		 */
+		private RunReader(final File runFile, final int run_Number) throws IOException {
+			dis = new DataInputStream(
+					new BufferedInputStream(Files.newInputStream(runFile.toPath()), BUFFER_SIZE));
+			runNumber = run_Number;
+		}
+
+		/**
+		 * Read the next csv line from this run.
+		 *
+		 * @return true if a line was read or false at end of run
+		 * @throws IOException
+		 */
+		private boolean readNext() throws IOException {
+			if (!dis.readBoolean()) {
+				return false;
+			}
+			mapKey = readString(dis);
+			profileName = readString(dis);
+			final int lineNumber = dis.readInt();
+			final String[] record = new String[dis.readInt()];
+			for (int i = 0; i < record.length; i++) {
+				record[i] = readString(dis);
+			}
+			csvLine = new X9CsvLine(record, lineNumber);
+			return true;
+		}
+
+		/**
+		 * Close this run.
+		 */
+		private void close() {
+			try {
+				dis.close();
+			} catch (final IOException ex) {
+				LOGGER.warn("run close exception", ex);
+			}
+		}
+
+	}
+
+}
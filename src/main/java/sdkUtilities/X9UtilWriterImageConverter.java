@@ -0,0 +1,294 @@
+package sdkUtilities;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.imageio.ImageIO;
+
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.x9ware.apacheIO.FilenameUtils;
+import com.x9ware.core.X9Writer;
+import com.x9ware.elements.X9C;
+import com.x9ware.imageio.X9BitonalImage;
+import com.x9ware.imageio.X9ImageInfo;
+import com.x9ware.options.X9WorkFolder;
+import com.x9ware.tiffTools.X9TiffImage;
+import com.x9ware.tiffTools.X9TiffWriter;
+import com.x9ware.tools.X9CsvLine;
+import com.x9ware.tools.X9FileIO;
+import com.x9ware.tools.X9FileUtils;
+
+/**
+ * X9UtilWriterImageConverter converts the external images which are referenced by upcoming t25
+ * csv lines to black-white tiff on a pool of background threads, while the writer thread continues
+ * to write csv lines in their original sequence. Each png, jpg, gif, or bmp image is loaded,
+ * converted to bitonal, and encoded as tiff using the dpi of the original image (or our default
+ * when it cannot be determined), and is then written to a temporary file in the work folder. The
+ * writer is handed a copy of the csv array where the image file names have been replaced by those
+ * of the converted images, so X9Writer receives a tiff which it can attach (with repair and resize
+ * still applied when enabled) instead of converting the image on the writer thread. Tiff images
+ * are passed through unchanged. An image which cannot be converted here retains its original file
+ * name, which leaves X9Writer to convert or report it exactly as it would otherwise. The number of
+ * csv lines which are converted ahead of the writer is bounded, and converted images are deleted
+ * once the csv line which references them has been written.
+ *
+ * @author X9Ware LLC. Copyright(c) 2012-2018 X9Ware LLC. All Rights Reserved. This is proprietary
+ *         software as developed and licensed by X9Ware LLC under the exclusive legal right of the
+ *         copyright holder. All licensees are provided the right to use the software only under
+ *         certain conditions, and are specifically restricted from other specific uses including
+ *         modification, sharing, reuse, redistribution, or reverse engineering.
+ */
+public final class X9UtilWriterImageConverter implements AutoCloseable {
+
+	/*
+	 * Private.
+	 */
+	private final ExecutorService executorService;
+	private final Map<Integer, Future<String[]>> pendingLines = new HashMap<>();
+	private final Set<File> convertedFiles = ConcurrentHashMap.newKeySet();
+	private final AtomicInteger imagesConverted = new AtomicInteger();
+	private final AtomicInteger imagesNotConverted = new AtomicInteger();
+	private final X9UtilMetrics metrics;
+	private final int lookAheadLines;
+	private String[] lastRecord;
+	private String[] lastConvertedRecord;
+	private List<X9CsvLine> currentLines;
+	private int nextLineIndex;
+
+	/*
+	 * Constants.
+	 */
+	private static final int LOOK_AHEAD_LINES_PER_THREAD = 16;
+	private static final int DEFAULT_DPI = 200;
+	private static final String IMAGE_FILE_PREFIX = "writerImage_";
+	private static final String[] CONVERTED_EXTENSIONS = { "png", "jpg", "jpeg", "gif", "bmp" };
+
+	/**
+	 * Logger instance.
+	 */
+	private static final Logger LOGGER = LoggerFactory.getLogger(X9UtilWriterImageConverter.class);
+
+	/**
+	 * X9UtilWriterImageConverter Constructor.
+	 *
+	 * @param thread_Count
+	 *            number of background conversion threads
+	 * @param x9util_Metrics
+	 *            metrics registry for the current work unit
+	 */
+	public X9UtilWriterImageConverter(final int thread_Count, final X9UtilMetrics x9util_Metrics) {
+		final int threadCount = Math.max(1, thread_Count);
+		metrics = x9util_Metrics;
+		lookAheadLines = threadCount * LOOK_AHEAD_LINES_PER_THREAD;
+		executorService = Executors.newFixedThreadPool(threadCount, runnable -> {
+			final Thread thread = new Thread(runnable, "X9UtilWriterImageConverter");
+			thread.setDaemon(true);
+			return thread;
+		});
+		LOGGER.info("image converter started threadCount({}) lookAheadLines({})", threadCount,
+				lookAheadLines);
+	}
+
+	/**
+	 * Get the csv array to be written for a csv line, with the image file names replaced by those
+	 * of the converted images. Conversions are scheduled for all lines up to the look ahead limit
+	 * beyond this line, and the converted images for the previously returned line are deleted
+	 * since that line has now been written.
+	 *
+	 * @param csvLines
+	 *            csv lines for the current group
+	 * @param lineIndex
+	 *            index of the csv line which is about to be written
+	 * @return csv array to be written
+	 * @throws Exception
+	 */
+	public String[] getConvertedRecord(final List<X9CsvLine> csvLines, final int lineIndex)
+			throws Exception {
+		/*
+		 * Delete the converted images for the line which has just been written.
+		 */
+		deleteConvertedImages();
+
+		/*
+		 * Reset our position when we move to a new group of csv lines.
+		 */
+		if (csvLines != currentLines) {
+			currentLines = csvLines;
+			nextLineIndex = lineIndex;
+			pendingLines.clear();
+		}
+
+		/*
+		 * Schedule conversions for all csv lines which are now within the look ahead window.
+		 */
+		final int lastLineIndex = Math.min(csvLines.size(), lineIndex + lookAheadLines + 1);
+		while (nextLineIndex < lastLineIndex) {
+			final int index = nextLineIndex++;
+			final String[] record = csvLines.get(index).getCsvArray();
+			if (record != null && record.length > X9Writer.ITEM_IMAGE_BACK_NAME
+					&& StringUtils.equals(record[0], X9Writer.CSV_LINE_TYPE_T25)) {
+				pendingLines.put(index, executorService.submit(() -> convertRecord(record)));
+			}
+		}
+
+		/*
+		 * Wait for the conversion of this line when one has been scheduled.
+		 */
+		final Future<String[]> pendingLine = pendingLines.remove(lineIndex);
+		lastRecord = csvLines.get(lineIndex).getCsvArray();
+		lastConvertedRecord = pendingLine == null ? lastRecord : pendingLine.get();
+		return lastConvertedRecord;
+	}
+
+	/**
+	 * Convert the front and back images for a t25 csv line.
+	 *
+	 * @param record
+	 *            csv array for the t25 line
+	 * @return copy of the csv array with converted image file names
+	 */
+	private String[] convertRecord(final String[] record) {
+		final String[] convertedRecord = record.clone();
+		convertedRecord[X9Writer.ITEM_IMAGE_FRONT_NAME] = convertImage(
+				record[X9Writer.ITEM_IMAGE_FRONT_NAME]);
+		convertedRecord[X9Writer.ITEM_IMAGE_BACK_NAME] = convertImage(
+				record[X9Writer.ITEM_IMAGE_BACK_NAME]);
+		return convertedRecord;
+	}
+
+	/**
+	 * Convert a single image to a temporary tiff file when it is in a convertible format.
+	 *
+	 * @param imageFileName
+	 *            image file name which may be blank
+	 * @return converted image file name or the original name when not converted
+	 */
+	private String convertImage(final String imageFileName) {
+		/*
+		 * Tiff images (and blank names) are passed through to the writer unchanged.
+		 */
+		if (StringUtils.isBlank(imageFileName) || !StringUtils.equalsAnyIgnoreCase(
+				FilenameUtils.getExtension(imageFileName), CONVERTED_EXTENSIONS)) {
+			return imageFileName;
+		}
+
+		final long convertTimer = metrics.startTimer();
+		try {
+			/*
+			 * Load the image and use the dpi of the original image when available.
+			 */
+			final byte[] imageArray = X9FileIO.readFile(new File(imageFileName));
+			final X9ImageInfo x9imageInfo = new X9ImageInfo();
+			final int dpi = x9imageInfo.interrogateImage(imageArray) && x9imageInfo.getXdpi() > 0
+					? x9imageInfo.getXdpi()
+					: DEFAULT_DPI;
+			final BufferedImage bufferedImage;
+			try (final ByteArrayInputStream inputStream = new ByteArrayInputStream(imageArray)) {
+				bufferedImage = ImageIO.read(inputStream);
+			}
+			if (bufferedImage == null) {
+				imagesNotConverted.incrementAndGet();
+				return imageFileName;
+			}
+
+			/*
+			 * Convert to black-white and write the encoded tiff to a temporary file.
+			 */
+			final X9TiffImage tiffImage = X9TiffWriter
+					.makeDirectory(X9BitonalImage.createFromImage(bufferedImage), dpi);
+			final File tiffFile = File.createTempFile(IMAGE_FILE_PREFIX, "." + X9C.TIF,
+					X9WorkFolder.getTempFolder());
+			convertedFiles.add(tiffFile);
+			X9FileIO.writeFile(X9TiffWriter.encodeTiffImage(tiffImage), tiffFile);
+			imagesConverted.incrementAndGet();
+			metrics.recordLatency(X9UtilMetrics.IMAGE_CONVERT, convertTimer);
+			metrics.count(X9UtilMetrics.IMAGES_CONVERTED, 1);
+			return tiffFile.toString();
+		} catch (final Exception ex) {
+			/*
+			 * Leave the original image for X9Writer to convert or report.
+			 */
+			imagesNotConverted.incrementAndGet();
+			LOGGER.warn("image not converted imageFile({})", imageFileName, ex);
+			return imageFileName;
+		}
+	}
+
+	/**
+	 * Delete the converted images for the last csv line which has been returned to the writer.
+	 */
+	private void deleteConvertedImages() {
+		if (lastConvertedRecord != null && lastConvertedRecord != lastRecord) {
+			deleteConvertedImage(lastRecord[X9Writer.ITEM_IMAGE_FRONT_NAME],
+					lastConvertedRecord[X9Writer.ITEM_IMAGE_FRONT_NAME]);
+			deleteConvertedImage(lastRecord[X9Writer.ITEM_IMAGE_BACK_NAME],
+					lastConvertedRecord[X9Writer.ITEM_IMAGE_BACK_NAME]);
+		}
+		lastRecord = null;
+		lastConvertedRecord = null;
+	}
+
+	/**
+	 * Delete a single converted image when the image file name has been replaced.
+	 *
+	 * @param imageFileName
+	 *            original image file name
+	 * @param convertedFileName
+	 *            converted image file name
+	 */
+	private void deleteConvertedImage(final String imageFileName,
+			final String convertedFileName) {
+		if (!StringUtils.equals(imageFileName, convertedFileName)) {
+			deleteConvertedFile(new File(convertedFileName));
+		}
+	}
+
+	/**
+	 * Delete a converted image file.
+	 *
+	 * @param convertedFile
+	 *            converted image file
+	 */
+	private void deleteConvertedFile(final File convertedFile) {
+		convertedFiles.remove(convertedFile);
+		if (convertedFile.exists() && !X9FileUtils.delete(convertedFile)) {
+			LOGGER.warn("unable to delete convertedFile({})", convertedFile);
+		}
+	}
+
+	@Override
+	public void close() {
+		/*
+		 * Pending conversions are no longer needed once the writer has completed. We wait for
+		 * running conversions to end so that all of their temporary files can be deleted.
+		 */
+		executorService.shutdownNow();
+		try {
+			if (!executorService.awaitTermination(1, TimeUnit.MINUTES)) {
+				LOGGER.warn("image converter threads did not terminate");
+			}
+		} catch (final InterruptedException ex) {
+			Thread.currentThread().interrupt();
+		}
+		for (final File convertedFile : convertedFiles) {
+			deleteConvertedFile(convertedFile);
+		}
+		LOGGER.info("image converter completed imagesConverted({}) imagesNotConverted({})",
+				imagesConverted.get(), imagesNotConverted.get());
+	}
+
+}
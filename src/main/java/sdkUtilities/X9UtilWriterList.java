@@ -1,7 +1,10 @@
 package sdkUtilities;
 
 import java.io.File;
+import java.util.HashSet;
 import java.util.Map;
+import java.util.Set;
+import java.util.function.BiConsumer;
 
 import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
@@ -65,10 +68,102 @@ public class X9UtilWriterList {
 	public static Map<String, X9UtilWriterCsvLines> loadCsv(final X9SdkIO sdkIO,
 			final X9Writer x9writer, final X9UtilWorkUnit workUnit,
 			final X9HeaderXml937 x9headerXml937, final boolean isAbortIfEndMissing) {
+		return readCsv(sdkIO, x9writer, workUnit, x9headerXml937, isAbortIfEndMissing, null, null);
+	}
+
+	/**
+	 * Stream the incoming csv file, where each group of csv lines is passed to the group writer as
+	 * soon as it is complete. Only the current group is retained on the heap. This requires that
+	 * csv lines are already grouped by batch profile (or that single item deposits are used), since
+	 * groups are written in their original sequence and are not reordered by depositor. We abort
+	 * when a group reappears after it has already been written.
+	 *
+	 * @param sdkIO
+	 *            current sdkIO
+	 * @param x9writer
+	 *            current x9writer
+	 * @param workUnit
+	 *            current work unit
+	 * @param x9headerXml937
+	 *            x9headerXml937 instance
+	 * @param isAbortIfEndMissing
+	 *            true if we should abort when end is missing
+	 * @param groupWriter
+	 *            group writer which is invoked with the map key and csv lines for each group
+	 */
+	public static void streamCsv(final X9SdkIO sdkIO, final X9Writer x9writer,
+			final X9UtilWorkUnit workUnit, final X9HeaderXml937 x9headerXml937,
+			final boolean isAbortIfEndMissing,
+			final BiConsumer<String, X9UtilWriterCsvLines> groupWriter) {
+		readCsv(sdkIO, x9writer, workUnit, x9headerXml937, isAbortIfEndMissing, groupWriter,
+				null);
+	}
+
+	/**
+	 * Load the incoming csv file and group by depositor using an external sort, where csv lines
+	 * are written to temporary run files whenever the maximum number of lines held in memory has
+	 * been reached. Groups are passed to the group writer in the same sequence as they would be
+	 * taken from the sorted map, which allows arbitrarily large inputs to be reordered by batch
+	 * profile within bounded memory.
+	 *
+	 * @param sdkIO
+	 *            current sdkIO
+	 * @param x9writer
+	 *            current x9writer
+	 * @param workUnit
+	 *            current work unit
+	 * @param x9headerXml937
+	 *            x9headerXml937 instance
+	 * @param isAbortIfEndMissing
+	 *            true if we should abort when end is missing
+	 * @param maximumLinesInMemory
+	 *            maximum number of csv lines to be held in memory
+	 * @param groupWriter
+	 *            group writer which is invoked with the map key and csv lines for each group
+	 */
+	public static void sortCsv(final X9SdkIO sdkIO, final X9Writer x9writer,
+			final X9UtilWorkUnit workUnit, final X9HeaderXml937 x9headerXml937,
+			final boolean isAbortIfEndMissing, final int maximumLinesInMemory,
+			final BiConsumer<String, X9UtilWriterCsvLines> groupWriter) {
+		try (final X9UtilWriterExternalSort externalSort = new X9UtilWriterExternalSort(
+				maximumLinesInMemory)) {
+			final X9UtilWriterProfileMap itemMap = readCsv(sdkIO, x9writer, workUnit,
+					x9headerXml937, isAbortIfEndMissing, null, externalSort);
+			externalSort.writeGroups(itemMap, groupWriter);
+		}
+	}
+
+	/**
+	 * Read the incoming csv file into a sorted map which is ordered by depositor, or alternatively
+	 * stream each group to the group writer when provided.
+	 *
+	 * @param sdkIO
+	 *            current sdkIO
+	 * @param x9writer
+	 *            current x9writer
+	 * @param workUnit
+	 *            current work unit
+	 * @param x9headerXml937
+	 *            x9headerXml937 instance
+	 * @param isAbortIfEndMissing
+	 *            true if we should abort when end is missing
+	 * @param groupWriter
+	 *            group writer when streaming or null when loading to the map
+	 * @param externalSort
+	 *            external sort when lines are to be spilled to run files or null
+	 * @return csv line map, which is empty on completion when streaming
+	 */
+	private static X9UtilWriterProfileMap readCsv(final X9SdkIO sdkIO,
+			final X9Writer x9writer, final X9UtilWorkUnit workUnit,
+			final X9HeaderXml937 x9headerXml937, final boolean isAbortIfEndMissing,
+			final BiConsumer<String, X9UtilWriterCsvLines> groupWriter,
+			final X9UtilWriterExternalSort externalSort) {
 		/*
-		 * Read the csv into a map (to reorder by profile) and close on completion.
+		 * Read the csv into a map (to reorder by profile) and close on completion. When streaming,
+		 * the map holds only the group which is currently being accumulated.
 		 */
 		final X9UtilWriterProfileMap itemMap = new X9UtilWriterProfileMap();
+		final Set<String> writtenKeys = new HashSet<>();
 		try (X9CsvReader csvReader = sdkIO.getCsvReader()) {
 			/*
 			 * Load the X9HeaderXml file when present on the command line. Our current documentation
@@ -128,11 +223,31 @@ public class X9UtilWriterList {
 			x9headerXml937.readHeaderDefinition(headersFile);
 			final X9HeaderAttr937 headerAttr = x9headerXml937.getAttr();
 
+			/*
+			 * Determine if items are batched as single or multi-item deposits. This is constant for
+			 * the entire file and is determined once.
+			 */
+			final String creditStructure = x9writer.getDirectedValue(headerAttr.creditStructure);
+			final boolean isSingleItemDeposits;
+			if (StringUtils.isBlank(creditStructure)) {
+				isSingleItemDeposits = false;
+			} else if (StringUtils.equals(creditStructure, X9HeaderXml937.DEPOSITS_SINGLE_ITEM)) {
+				isSingleItemDeposits = true;
+			} else if (StringUtils.equalsAny(creditStructure,
+					X9HeaderXml937.DEPOSITS_MULTI_ITEM)) {
+				isSingleItemDeposits = false;
+			} else {
+				throw X9Exception.abort("creditStructure({}) invalid; expecting {} or {}",
+						creditStructure, X9HeaderXml937.DEPOSITS_SINGLE_ITEM,
+						X9HeaderXml937.DEPOSITS_MULTI_ITEM);
+			}
+
 			/*
 			 * Load the csv rows to an internal list until "end" is encountered, with the purpose to
 			 * accumulate all check amounts (needed to insert the credit automatically).
 			 */
 			String batchProfile = "";
+			int singleItemCount = 0;
 			boolean isEndEncountered = false;
 			X9CsvLine csvLine = csvReader.getNextCsvLine();
 			while (csvLine != null && csvLine.isPopulated() && !isEndEncountered) {
@@ -173,26 +288,6 @@ public class X9UtilWriterList {
 								: "";
 					}
 
-					/*
-					 * Determine if items are batched as single or multi-item deposits.
-					 */
-					final String creditStructure = x9writer
-							.getDirectedValue(headerAttr.creditStructure);
-					final boolean isSingleItemDeposits;
-					if (StringUtils.isBlank(creditStructure)) {
-						isSingleItemDeposits = false;
-					} else if (StringUtils.equals(creditStructure,
-							X9HeaderXml937.DEPOSITS_SINGLE_ITEM)) {
-						isSingleItemDeposits = true;
-					} else if (StringUtils.equalsAny(creditStructure,
-							X9HeaderXml937.DEPOSITS_MULTI_ITEM)) {
-						isSingleItemDeposits = false;
-					} else {
-						throw X9Exception.abort("creditStructure({}) invalid; expecting {} or {}",
-								creditStructure, X9HeaderXml937.DEPOSITS_SINGLE_ITEM,
-								X9HeaderXml937.DEPOSITS_MULTI_ITEM);
-					}
-
 					/*
 					 * Formulate a map key which is used to add incoming csv lines to our map and
 					 * optionally regroup them. Grouping can be applied in two manners. First is the
@@ -211,7 +306,7 @@ public class X9UtilWriterList {
 					 */
 					final String mapKey1 = StringUtils.isNotBlank(batchProfile) ? batchProfile : "";
 					final String mapKey2 = isSingleItemDeposits
-							? X9Numeric.getAsString(itemMap.size() + 1, SEVEN_DIGITS)
+							? X9Numeric.getAsString(++singleItemCount, SEVEN_DIGITS)
 							: "";
 					final String mapKey = mapKey1 + mapKey2;
 
@@ -223,7 +318,19 @@ public class X9UtilWriterList {
 					 * csv rows for each item. In those situations, the original csv row sequence
 					 * will always be maintained since it is critical to the defined data flow.
 					 */
+					if (groupWriter != null && !itemMap.containsKey(mapKey)) {
+						writeGroups(itemMap, groupWriter);
+						if (!writtenKeys.add(mapKey)) {
+							throw X9Exception.abort(
+									"csv lines must be grouped by batch profile when streaming; "
+											+ "mapKey({}) reappears at lineNumber({})",
+									mapKey, lineNumber);
+						}
+					}
 					itemMap.addNewLine(mapKey, batchProfile, csvLine);
+					if (externalSort != null) {
+						externalSort.lineAdded(itemMap);
+					}
 
 					/*
 					 * Log when debugging.
@@ -249,6 +356,13 @@ public class X9UtilWriterList {
 			if (isAbortIfEndMissing && !isEndEncountered) {
 				throw X9Exception.abort("\"end\" not last csv input line");
 			}
+
+			/*
+			 * Write the final group when streaming.
+			 */
+			if (groupWriter != null) {
+				writeGroups(itemMap, groupWriter);
+			}
 		} catch (final Exception ex) {
 			/*
 			 * Log csv lines up to the point of failure when we have aborted.
@@ -271,4 +385,20 @@ public class X9UtilWriterList {
 		return itemMap;
 	}
 
+	/**
+	 * Pass all groups which are currently held to the group writer and then release them.
+	 *
+	 * @param itemMap
+	 *            csv line map
+	 * @param groupWriter
+	 *            group writer
+	 */
+	private static void writeGroups(final X9UtilWriterProfileMap itemMap,
+			final BiConsumer<String, X9UtilWriterCsvLines> groupWriter) {
+		for (final Map.Entry<String, X9UtilWriterCsvLines> entry : itemMap.entrySet()) {
+			groupWriter.accept(entry.getKey(), entry.getValue());
+		}
+		itemMap.clear();
+	}
+
 }
@@ -0,0 +1,27 @@
+@ECHO OFF
+:: Launch x9utilities from the command line or a job scheduler
+:: X9Ware LLC
+::
+:: All arguments are passed to x9utilities unchanged and the x9utilities exit status is
+:: returned as the errorlevel. The current directory is not changed, so relative file names
+:: are resolved against the directory of the caller.
+::
+:: When the class data sharing archive (x9util.jsa) has been created by x9utilTrain.bat, it
+:: is used automatically to reduce startup time. The archive is only valid for the JVM and
+:: class path that were used to create it; when either changes, the JVM silently ignores the
+:: archive (-Xshare:auto) and x9utilTrain.bat should be run again.
+:: Maximum heap size (Xmx) is recommended as 7g for 64-bit and 1536m for 32-bit JVMs.
+:: The sdkUtilities classes are taken from X9Template-1.0-SNAPSHOT.jar, which is the jar that
+:: is created by the project build (mvn package) in the target folder. It must be copied here
+:: alongside x9assist.jar, which provides the sdk.
+
+SETLOCAL
+SET "javaExe=C:\Program Files\Zulu\zulu-11\bin\java.exe"
+SET "classPath=%~dp0x9assist.jar;%~dp0X9Template-1.0-SNAPSHOT.jar"
+SET "archiveFile=%~dp0x9util.jsa"
+
+SET "shareOptions="
+IF EXIST "%archiveFile%" SET "shareOptions=-Xshare:auto -XX:SharedArchiveFile=%archiveFile%"
+
+"%javaExe%" -Xmx7g %shareOptions% -cp "%classPath%" sdkUtilities.X9UtilMain %*
+EXIT /B %ERRORLEVEL%
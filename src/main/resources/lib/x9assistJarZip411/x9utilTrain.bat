@@ -0,0 +1,46 @@
+@ECHO OFF
+:: Create the x9utilities class data sharing archive (x9util.jsa)
+:: X9Ware LLC
+::
+:: Step 1 runs x9utilities in training mode (-train) with the loaded class list recorded. Training
+:: loads all classes of the sdkUtilities package and then runs translate, import, export, validate,
+:: compare, and merge against the sample x9 file, which records the sdk, image, and jaxb classes
+:: that are loaded at run time. Scrub and split are also run when scrub.xml and split.xml are
+:: present in the training folder. Training output is written to a time stamped subfolder of the
+:: training folder.
+:: Step 2 creates the archive from the recorded class list, which x9util.bat then picks up
+:: automatically. The java executable and class path must be identical to those in x9util.bat,
+:: which describes where X9Template-1.0-SNAPSHOT.jar (from mvn package) is expected.
+::
+:: Usage: x9utilTrain.bat [sample.x9]
+
+SETLOCAL
+SET "javaExe=C:\Program Files\Zulu\zulu-11\bin\java.exe"
+SET "classPath=%~dp0x9assist.jar;%~dp0X9Template-1.0-SNAPSHOT.jar"
+SET "archiveFile=%~dp0x9util.jsa"
+SET "classList=%~dp0x9util.classlist"
+SET "trainingFolder=%~dp0training"
+
+SET "sampleFile=%~1"
+IF "%sampleFile%" == "" SET "sampleFile=%~dp0files\Test ICL with 10 checks.x9"
+
+IF EXIST "%archiveFile%" DEL "%archiveFile%"
+IF EXIST "%classList%" DEL "%classList%"
+
+ECHO x9utilities training started
+"%javaExe%" -Xmx7g -Xshare:off -XX:DumpLoadedClassList="%classList%" -cp "%classPath%" ^
+ sdkUtilities.X9UtilMain -train:"%trainingFolder%" "%sampleFile%"
+IF NOT "%ERRORLEVEL%" == "0" GOTO :_Failed
+IF NOT EXIST "%classList%" GOTO :_Failed
+
+ECHO x9utilities archive creation started
+"%javaExe%" -Xmx7g -Xshare:dump -XX:SharedClassListFile="%classList%" ^
+ -XX:SharedArchiveFile="%archiveFile%" -cp "%classPath%"
+IF NOT "%ERRORLEVEL%" == "0" GOTO :_Failed
+
+ECHO x9utilities archive created %archiveFile%
+EXIT /B 0
+
+:_Failed
+ECHO x9utilities training failed
+EXIT /B 1